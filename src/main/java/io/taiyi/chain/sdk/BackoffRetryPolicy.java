@@ -0,0 +1,155 @@
+package io.taiyi.chain.sdk;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry transient failures of idempotent requests with exponential backoff and full jitter.
+ * <p>
+ * Retries are limited by a budget, each request deposits a fraction of token and each retry withdraws a
+ * whole one, so a burst of failures adds at most that ratio of load to a struggling gateway.
+ */
+public final class BackoffRetryPolicy implements RetryPolicy {
+    //fixed point of tokens
+    private static final long TOKEN = 1000;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long deposit;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+
+    private BackoffRetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelayMillis = builder.baseDelay.toMillis();
+        this.maxDelayMillis = builder.maxDelay.toMillis();
+        this.deposit = Math.max(1, Math.round(builder.budget * TOKEN));
+        this.maxTokens = builder.maxBurst * TOKEN;
+        this.tokens = new AtomicLong(maxTokens);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Check whether a failure may succeed when retried
+     *
+     * @param error failure of request
+     * @return true for transport failures, timeouts, and HTTP status 429, 502, 503 or 504
+     */
+    public static boolean isTransient(Throwable error) {
+        if (error instanceof IOException) {
+            return true;
+        }
+        if (error instanceof HttpStatusException) {
+            int status = ((HttpStatusException) error).getStatusCode();
+            return 429 == status || 502 == status || 503 == status || 504 == status;
+        }
+        return false;
+    }
+
+    @Override
+    public void onRequest() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= maxTokens) {
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(maxTokens, current + deposit)));
+    }
+
+    @Override
+    public long retryDelay(int attempts, Throwable error, boolean idempotent) {
+        if (attempts >= maxAttempts || !idempotent || !isTransient(error)) {
+            return -1;
+        }
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return -1;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        long ceiling = baseDelayMillis << Math.min(attempts - 1, 30);
+        if (ceiling <= 0 || ceiling > maxDelayMillis) {
+            ceiling = maxDelayMillis;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public static final class Builder {
+        private int maxAttempts = 3;
+        private Duration baseDelay = Duration.ofMillis(50);
+        private Duration maxDelay = Duration.ofSeconds(2);
+        private double budget = 0.1;
+        private int maxBurst = 10;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxAttempts max attempts of a request including the first one, 3 by default
+         * @return this builder
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("invalid max attempts " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param baseDelay delay ceiling of the first retry, doubled for each retry, 50 milliseconds by default
+         * @return this builder
+         */
+        public Builder setBaseDelay(Duration baseDelay) {
+            if (null == baseDelay || baseDelay.isNegative()) {
+                throw new IllegalArgumentException("invalid base delay " + baseDelay);
+            }
+            this.baseDelay = baseDelay;
+            return this;
+        }
+
+        /**
+         * @param maxDelay max delay ceiling of retries, 2 seconds by default
+         * @return this builder
+         */
+        public Builder setMaxDelay(Duration maxDelay) {
+            if (null == maxDelay || maxDelay.isNegative()) {
+                throw new IllegalArgumentException("invalid max delay " + maxDelay);
+            }
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * @param budget ratio of retries to requests, 0.1 by default
+         * @param maxBurst max retries allowed in a burst, 10 by default
+         * @return this builder
+         */
+        public Builder setBudget(double budget, int maxBurst) {
+            if (!(budget > 0 && budget <= 1)) {
+                throw new IllegalArgumentException("invalid budget " + budget);
+            }
+            if (maxBurst < 1) {
+                throw new IllegalArgumentException("invalid max burst " + maxBurst);
+            }
+            this.budget = budget;
+            this.maxBurst = maxBurst;
+            return this;
+        }
+
+        public BackoffRetryPolicy build() {
+            if (maxDelay.compareTo(baseDelay) < 0) {
+                throw new IllegalArgumentException("max delay less than base delay");
+            }
+            return new BackoffRetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Policy of selecting a gateway node for each request
+ */
+public enum BalancePolicy {
+    /**
+     * Prefer the node with fewer requests in flight
+     */
+    LEAST_OUTSTANDING,
+    /**
+     * Prefer the node with lower recent latency, weighted by requests in flight
+     */
+    LATENCY_WEIGHTED
+}
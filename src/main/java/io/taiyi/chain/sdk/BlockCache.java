@@ -0,0 +1,139 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Cache of blocks and transactions, bounded by bytes and evicted by W-TinyLFU.
+ * <p>
+ * Blocks and transactions never change once committed, so entries are never invalidated, they only leave
+ * for capacity. Entries are filled by {@link ChainConnector#getBlock(String)} and
+ * {@link ChainConnector#getTransaction(String, String)}. Callers receive copies, modifying a returned
+ * object does not affect the cache. A cache may be shared by connectors of the same chain.
+ */
+public final class BlockCache {
+    //estimated bytes of key, node, map entry and object besides strings
+    private static final long ENTRY_OVERHEAD = 160;
+    private static final int EXPECTED_ENTRY_SIZE = 2048;
+    private static final String BLOCK_PREFIX = "b/";
+    private static final String TRANSACTION_PREFIX = "t/";
+
+    private final TinyLfuCache<String, Object> entries;
+    private final CacheMetrics metrics = new CacheMetrics();
+    private final long maxBytes;
+
+    private BlockCache(Builder builder) {
+        this.maxBytes = builder.maxBytes;
+        this.entries = new TinyLfuCache<>(maxBytes, (int) Math.min(Integer.MAX_VALUE, maxBytes / EXPECTED_ENTRY_SIZE),
+                BlockCache::weigh, metrics);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    private static long lengthOf(String value) {
+        return null == value ? 0 : 2L * value.length();
+    }
+
+    private static long weigh(String key, Object value) {
+        long weight = ENTRY_OVERHEAD + lengthOf(key);
+        if (value instanceof BlockData) {
+            BlockData block = (BlockData) value;
+            weight += lengthOf(block.getId()) + lengthOf(block.getTimestamp()) +
+                    lengthOf(block.getPreviousBlock()) + lengthOf(block.getContent());
+        } else {
+            TransactionData transaction = (TransactionData) value;
+            weight += lengthOf(transaction.getBlock()) + lengthOf(transaction.getTransaction()) +
+                    lengthOf(transaction.getTimestamp()) + lengthOf(transaction.getContent());
+        }
+        return weight;
+    }
+
+    private static BlockData copyOf(BlockData block) {
+        BlockData copy = new BlockData();
+        copy.setId(block.getId());
+        copy.setTimestamp(block.getTimestamp());
+        copy.setPreviousBlock(block.getPreviousBlock());
+        copy.setHeight(block.getHeight());
+        copy.setTransactions(block.getTransactions());
+        copy.setContent(block.getContent());
+        return copy;
+    }
+
+    private static TransactionData copyOf(TransactionData transaction) {
+        TransactionData copy = new TransactionData();
+        copy.setBlock(transaction.getBlock());
+        copy.setTransaction(transaction.getTransaction());
+        copy.setTimestamp(transaction.getTimestamp());
+        copy.setValidated(transaction.isValidated());
+        copy.setContent(transaction.getContent());
+        return copy;
+    }
+
+    BlockData getBlock(String blockID) {
+        Object found = entries.get(BLOCK_PREFIX + blockID);
+        return null == found ? null : copyOf((BlockData) found);
+    }
+
+    void putBlock(String blockID, BlockData block) {
+        if (null != block) {
+            entries.put(BLOCK_PREFIX + blockID, copyOf(block));
+        }
+    }
+
+    TransactionData getTransaction(String blockID, String transID) {
+        Object found = entries.get(TRANSACTION_PREFIX + blockID + "/" + transID);
+        return null == found ? null : copyOf((TransactionData) found);
+    }
+
+    void putTransaction(String blockID, String transID, TransactionData transaction) {
+        if (null != transaction) {
+            entries.put(TRANSACTION_PREFIX + blockID + "/" + transID, copyOf(transaction));
+        }
+    }
+
+    /**
+     * @return count of blocks and transactions cached
+     */
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return estimated bytes of blocks and transactions cached
+     */
+    public long getBytes() {
+        return entries.weight();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    public static final class Builder {
+        private long maxBytes = 32L << 20;
+
+        private Builder() {
+        }
+
+        /**
+         * Set max bytes of blocks and transactions cached, estimated by size of strings in memory
+         *
+         * @param maxBytes max bytes, 32 MiB by default
+         * @return this builder
+         */
+        public Builder setMaxBytes(long maxBytes) {
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("invalid max bytes " + maxBytes);
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        public BlockCache build() {
+            return new BlockCache(this);
+        }
+    }
+}
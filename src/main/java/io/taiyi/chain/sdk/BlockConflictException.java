@@ -0,0 +1,14 @@
+package io.taiyi.chain.sdk;
+
+import java.io.IOException;
+
+/**
+ * Block conflicts with blocks stored at the same or adjacent heights, which means a fork or a corrupted store
+ */
+public class BlockConflictException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public BlockConflictException(String message) {
+        super(message);
+    }
+}
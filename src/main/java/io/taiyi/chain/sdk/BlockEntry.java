@@ -0,0 +1,27 @@
+package io.taiyi.chain.sdk;
+
+import java.util.List;
+
+/**
+ * Block with its transactions, delivered by backfill
+ */
+public class BlockEntry {
+    private final BlockData block;
+    private final List<TransactionData> transactions;
+
+    BlockEntry(BlockData block, List<TransactionData> transactions) {
+        this.block = block;
+        this.transactions = transactions;
+    }
+
+    public BlockData getBlock() {
+        return block;
+    }
+
+    /**
+     * @return transactions in the order listed by block
+     */
+    public List<TransactionData> getTransactions() {
+        return transactions;
+    }
+}
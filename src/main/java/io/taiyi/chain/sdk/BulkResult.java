@@ -0,0 +1,41 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Result of an item in bulk operation
+ */
+public class BulkResult {
+    private final long index;
+    private final String docID;
+    private final Exception error;
+
+    BulkResult(long index, String docID, Exception error) {
+        this.index = index;
+        this.docID = docID;
+        this.error = error;
+    }
+
+    /**
+     * @return position of item in input, start from 0
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * @return ID of document assigned by gateway, null when failed
+     */
+    public String getDocID() {
+        return docID;
+    }
+
+    /**
+     * @return failure of item, null when succeeded
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    public boolean isSucceeded() {
+        return null == error;
+    }
+}
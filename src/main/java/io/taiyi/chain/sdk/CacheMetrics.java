@@ -0,0 +1,57 @@
+package io.taiyi.chain.sdk;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a cache, updated without contention by concurrent requests
+ */
+public class CacheMetrics {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    /**
+     * @return count of lookups answered by cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return count of lookups sent to gateway
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return count of entries evicted for capacity
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return ratio of lookups answered by cache, 0 when nothing looked up
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        if (0 == total) {
+            return 0;
+        }
+        return (double) hit / total;
+    }
+}
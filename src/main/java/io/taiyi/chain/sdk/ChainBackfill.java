@@ -0,0 +1,290 @@
+package io.taiyi.chain.sdk;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Walk blocks of a height range with their transactions, fetching ranges of heights concurrently and
+ * delivering blocks in ascending height.
+ * <p>
+ * Ranges of {@link #RANGE_SIZE} heights are fetched by an {@link OrderedPipeline}, blocks of a range in
+ * parallel, and transactions of a block at most {@link Constants#DEFAULT_FETCH_CONCURRENCY} at a time. A range
+ * is only dispatched when less than concurrency ranges are ahead of the consumer, so a slow consumer
+ * slows down fetching. Requests of all ranges share concurrency * {@link Constants#DEFAULT_FETCH_CONCURRENCY}
+ * permits, the others wait in a FIFO queue. Each block delivered is checked to follow the previous one by
+ * height and by link.
+ * <p>
+ * The highest height delivered is saved to checkpoint every {@link OrderedPipeline#CHECKPOINT_INTERVAL}
+ * heights, on failure and at the end. A resumed backfill loads the block at the saved height first, so the
+ * block following it is checked by link too.
+ */
+final class ChainBackfill {
+    static final int RANGE_SIZE = 20;
+
+    private final ChainConnector connector;
+    private final int beginHeight;
+    private final int endHeight;
+    private final int concurrency;
+    private final Checkpoint checkpoint;
+    private final Consumer<BlockEntry> consumer;
+    private final Executor executor;
+    private final int maxRequests;
+    private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+    private int requests = 0;
+    //guarded by the pipeline, which never delivers concurrently
+    private long delivered;
+    private long saved;
+    private String lastID = null;
+
+    ChainBackfill(ChainConnector connector, int beginHeight, int endHeight, int concurrency, Checkpoint checkpoint,
+                  Consumer<BlockEntry> consumer, Executor executor) {
+        if (beginHeight <= 0 || endHeight < beginHeight) {
+            throw new IllegalArgumentException(String.format("invalid height range [%d, %d]", beginHeight, endHeight));
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("invalid concurrency " + concurrency);
+        }
+        if (null == consumer) {
+            throw new IllegalArgumentException("consumer required");
+        }
+        this.connector = connector;
+        this.beginHeight = beginHeight;
+        this.endHeight = endHeight;
+        this.concurrency = concurrency;
+        this.checkpoint = checkpoint;
+        this.consumer = consumer;
+        this.executor = executor;
+        this.maxRequests = (int) Math.min(Integer.MAX_VALUE, (long) concurrency * Constants.DEFAULT_FETCH_CONCURRENCY);
+    }
+
+    /**
+     * @return future completed with the highest height delivered
+     */
+    CompletableFuture<Long> start() {
+        final long first;
+        try {
+            first = Math.max(beginHeight, null == checkpoint ? 0 : checkpoint.load() + 1);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        delivered = first - 1;
+        saved = delivered;
+        if (first > endHeight) {
+            return CompletableFuture.completedFuture(delivered);
+        }
+        Iterator<Integer> ranges = new Iterator<Integer>() {
+            private long next = first;
+
+            @Override
+            public boolean hasNext() {
+                return next <= endHeight;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int begin = (int) next;
+                next += RANGE_SIZE;
+                return begin;
+            }
+        };
+        CompletableFuture<Void> resumed = CompletableFuture.completedFuture(null);
+        if (first > beginHeight) {
+            resumed = loadLastAsync((int) delivered);
+        }
+        return resumed.thenCompose(v -> new OrderedPipeline<>(ranges, concurrency, this::fetchRangeAsync, executor,
+                this::deliver, null).start()).handle((count, e) -> {
+            Throwable failure = null == e ? null : ChainConnector.unwrapCompletion(e);
+            try {
+                saveProgress();
+            } catch (Exception saving) {
+                if (null == failure) {
+                    failure = saving;
+                } else {
+                    failure.addSuppressed(saving);
+                }
+            }
+            if (null != failure) {
+                throw new CompletionException(failure);
+            }
+            return delivered;
+        });
+    }
+
+    /**
+     * Load ID of the block delivered last before resumed, which the next block must link to
+     */
+    private CompletableFuture<Void> loadLastAsync(int height) {
+        return limit(() -> connector.queryBlocksAsync(height, height)).thenCompose(records -> {
+            String[] blocks = records.getBlocks();
+            if (null == blocks || 1 != blocks.length) {
+                return CompletableFuture.failedFuture(new Exception("no block at checkpoint height " + height));
+            }
+            return limit(() -> connector.getBlockAsync(blocks[0]));
+        }).thenAccept(block -> {
+            if (block.getHeight() != height) {
+                throw new CompletionException(new Exception(String.format(
+                        "block %s at height %d, but height %d expected", block.getId(), block.getHeight(), height)));
+            }
+            lastID = block.getId();
+        });
+    }
+
+    /**
+     * Send a request when a permit available, or queue it until a request in flight completes
+     */
+    private <T> CompletableFuture<T> limit(Supplier<CompletableFuture<T>> request) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Runnable sending = () -> {
+            CompletableFuture<T> future;
+            try {
+                future = request.get();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((value, e) -> {
+                release();
+                if (null == e) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(ChainConnector.unwrapCompletion(e));
+                }
+            });
+        };
+        synchronized (this) {
+            if (requests >= maxRequests) {
+                waiting.addLast(sending);
+                return result;
+            }
+            requests++;
+        }
+        sending.run();
+        return result;
+    }
+
+    private void release() {
+        final Runnable next;
+        synchronized (this) {
+            next = waiting.pollFirst();
+            if (null == next) {
+                requests--;
+                return;
+            }
+        }
+        //permit handed over to the next request, sent on executor as stored reads complete in place
+        try {
+            executor.execute(next);
+        } catch (RejectedExecutionException e) {
+            next.run();
+        }
+    }
+
+    private CompletableFuture<List<BlockEntry>> fetchRangeAsync(int begin) {
+        final int end = (int) Math.min(endHeight, (long) begin + RANGE_SIZE - 1);
+        return limit(() -> connector.queryBlocksAsync(begin, end)).thenCompose(records -> {
+            String[] blocks = records.getBlocks();
+            int received = null == blocks ? 0 : blocks.length;
+            if (received != end - begin + 1) {
+                return CompletableFuture.failedFuture(new Exception(String.format(
+                        "%d blocks received for height %d to %d", received, begin, end)));
+            }
+            List<CompletableFuture<BlockEntry>> fetching = new ArrayList<>(blocks.length);
+            for (String blockID : blocks) {
+                fetching.add(fetchBlockAsync(blockID));
+            }
+            return CompletableFuture.allOf(fetching.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+                List<BlockEntry> entries = new ArrayList<>(fetching.size());
+                for (CompletableFuture<BlockEntry> future : fetching) {
+                    entries.add(future.join());
+                }
+                return entries;
+            });
+        });
+    }
+
+    private CompletableFuture<BlockEntry> fetchBlockAsync(String blockID) {
+        return limit(() -> connector.getBlockAsync(blockID)).thenCompose(block -> {
+            if (block.getTransactions() <= 0) {
+                return CompletableFuture.completedFuture(new BlockEntry(block, Collections.emptyList()));
+            }
+            return listTransactionsAsync(blockID, 0, new ArrayList<>())
+                    .thenCompose(transIDs -> fetchTransactionsAsync(blockID, transIDs))
+                    .thenApply(transactions -> new BlockEntry(block, transactions));
+        });
+    }
+
+    private CompletableFuture<List<String>> listTransactionsAsync(String blockID, int start, List<String> transIDs) {
+        return limit(() -> connector.queryTransactionsAsync(blockID, start, Constants.DEFAULT_PAGE_SIZE))
+                .thenCompose(records -> {
+                    String[] page = records.getTransactions();
+                    if (null == page || 0 == page.length) {
+                        return CompletableFuture.completedFuture(transIDs);
+                    }
+                    Collections.addAll(transIDs, page);
+                    if (!records.isHasMore()) {
+                        return CompletableFuture.completedFuture(transIDs);
+                    }
+                    return listTransactionsAsync(blockID, start + page.length, transIDs);
+                });
+    }
+
+    private CompletableFuture<List<TransactionData>> fetchTransactionsAsync(String blockID, List<String> transIDs) {
+        final List<TransactionData> transactions = new ArrayList<>(transIDs.size());
+        if (transIDs.isEmpty()) {
+            return CompletableFuture.completedFuture(transactions);
+        }
+        OrderedPipeline<String, TransactionData> pipeline = new OrderedPipeline<>(transIDs.iterator(),
+                Math.min(Constants.DEFAULT_FETCH_CONCURRENCY, transIDs.size()),
+                transID -> limit(() -> connector.getTransactionAsync(blockID, transID)), executor,
+                (index, transID, transaction, error) -> {
+                    if (null != error) {
+                        throw error;
+                    }
+                    transactions.add(transaction);
+                }, null);
+        return pipeline.start().thenApply(count -> transactions);
+    }
+
+    private void deliver(long index, Integer begin, List<BlockEntry> entries, Exception error) throws Exception {
+        if (null != error) {
+            throw error;
+        }
+        for (BlockEntry entry : entries) {
+            BlockData block = entry.getBlock();
+            if (block.getHeight() != delivered + 1) {
+                throw new Exception(String.format("block %s at height %d, but height %d expected",
+                        block.getId(), block.getHeight(), delivered + 1));
+            }
+            if (null != lastID && !lastID.equals(block.getPreviousBlock())) {
+                throw new Exception(String.format("block %s at height %d links to %s, but previous block is %s",
+                        block.getId(), block.getHeight(), block.getPreviousBlock(), lastID));
+            }
+            consumer.accept(entry);
+            delivered = block.getHeight();
+            lastID = block.getId();
+        }
+        if (null != checkpoint && delivered - saved >= OrderedPipeline.CHECKPOINT_INTERVAL) {
+            checkpoint.save(delivered);
+            saved = delivered;
+        }
+    }
+
+    private void saveProgress() throws Exception {
+        if (null != checkpoint && delivered != saved) {
+            checkpoint.save(delivered);
+            saved = delivered;
+        }
+    }
+}
@@ -2,33 +2,73 @@ package io.taiyi.chain.sdk;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.jayway.jsonpath.JsonPath;
-import net.i2p.crypto.eddsa.EdDSAEngine;
-import net.i2p.crypto.eddsa.EdDSAPrivateKey;
-import net.i2p.crypto.eddsa.spec.EdDSANamedCurveSpec;
-import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
-import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
 import java.net.MalformedURLException;
+import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.security.*;
-import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Connector for accessing the chain platform via gateway.
+ * <p>
+ * Every operation has an asynchronous variant suffixed with "Async", which sends the request without
+ * blocking and returns a {@link CompletableFuture}. The blocking operations wait on the same future.
+ * <p>
+ * A connector is thread-safe and intended to be shared. The session allocated by gateway is published as
+ * an immutable snapshot, each request signs and resolves its address from a single snapshot, so requests
+ * in flight are never mixed with fields of a concurrent reconnect.
+ * <p>
+ * When gateway rejects an expired session, the connector allocates a new one and retries the request once,
+ * concurrent requests share the same reallocation. Enable {@link #setKeepAlive(boolean)} to activate an idle
+ * session in background before it expires.
+ * <p>
+ * Connecting to a cluster keeps a session on each gateway node, and routes every request to a node selected
+ * by {@link BalancePolicy}. A node is ejected after consecutive transport failures, and probed back with
+ * the chain status. Requests failed to connect a node are sent to another one.
+ * <p>
+ * Idempotent reads may be hedged by {@link #setHedgePolicy(HedgePolicy)}, and failed requests retried by
+ * {@link #setRetryPolicy(RetryPolicy)}. Failures reported by gateway are thrown as {@link ChainException}.
+ * <p>
+ * Requests in flight may be bounded by an adaptive {@link ConcurrencyLimiter}, requests over the limit wait
+ * for admission, and the time waited counts against the request timeout.
+ */
 public class ChainConnector {
     private static class requestFormat {
         private String id;
@@ -39,103 +79,7 @@ public class ChainConnector {
         }
     }
 
-    private interface responseStatus {
-        int getErrorCode();
-
-        String getErrorMessage();
-    }
-
-    private static class responseBase implements responseStatus {
-        private int error_code;
-        private String message;
-
-        public int getErrorCode() {
-            return error_code;
-        }
-
-        public String getErrorMessage() {
-            return message;
-        }
-    }
-
-    //    private static class responseStatusWithPayload<T> implements responseStatus {
-//        private int error_code;
-//        private String message;
-//        private T data;
-//        public int getErrorCode(){
-//            return error_code;
-//        }
-//        public String getErrorMessage(){
-//            return message;
-//        }
-//        public T getData(){
-//            return data;
-//        }
-//    }
-    private static class sessionResponse extends responseBase {
-        private SessionData data;
-
-        public SessionData getData() {
-            return data;
-        }
-    }
-
-    private static class statusResponse extends responseBase {
-        private ChainStatus data;
-
-        ChainStatus getData() {
-            return data;
-        }
-    }
-
-    private static class transactionDataResponse extends responseBase {
-        private TransactionData data;
-
-        public TransactionData getData() {
-            return data;
-        }
-    }
-
-    private static class blockDataResponse extends responseBase {
-        private BlockData data;
-
-        public BlockData getData() {
-            return data;
-        }
-    }
-
-    private static class SchemaDataResponse extends responseBase {
-        private DocumentSchema data;
-
-        DocumentSchema getData() {
-            return data;
-        }
-    }
-
-    private static class documentResponse extends responseBase {
-        private Document data;
-
-        public Document getData() {
-            return data;
-        }
-    }
-
-    private static class logRecordsResponse extends responseBase {
-        private LogRecords data;
-
-        public LogRecords getData() {
-            return data;
-        }
-    }
-
-    private static class contractInfoResponse extends responseBase {
-        private ContractInfo data;
-
-        public ContractInfo getData() {
-            return data;
-        }
-    }
-
+    //response payload defines
     private static class contractData {
         private String name;
         private String content;
@@ -149,61 +93,6 @@ public class ChainConnector {
         }
     }
 
-    private static class contractResponse extends responseBase {
-        private contractData data;
-
-        public contractData getData() {
-            return data;
-        }
-    }
-
-    private static class actorsResponse extends responseBase {
-        private List<ActorPrivileges> data;
-
-        public List<ActorPrivileges> getData() {
-            return data;
-        }
-    }
-
-    private static class blockRecordsResponse extends responseBase {
-        private BlockRecords data;
-
-        public BlockRecords getData() {
-            return data;
-        }
-    }
-
-    private static class transactionRecordsResponse extends responseBase {
-        private TransactionRecords data;
-
-        public TransactionRecords getData() {
-            return data;
-        }
-    }
-
-    private static class schemaRecordsResponse extends responseBase {
-        private SchemaRecords data;
-
-        public SchemaRecords getData() {
-            return data;
-        }
-    }
-
-    private static class documentRecordsResponse extends responseBase {
-        private DocumentRecords data;
-
-        public DocumentRecords getData() {
-            return data;
-        }
-    }
-
-    private static class contractRecordsResponse extends responseBase {
-        private ContractRecords data;
-
-        public ContractRecords getData() {
-            return data;
-        }
-    }
     private static class newDocumentData {
         private String id;
 
@@ -211,13 +100,6 @@ public class ChainConnector {
             return id;
         }
     }
-    private static class documentCreatedResponse extends responseBase {
-        private newDocumentData data;
-
-        public newDocumentData getData() {
-            return data;
-        }
-    }
 
     //request defines
     private static class actorsRequest {
@@ -292,18 +174,21 @@ public class ChainConnector {
         }
     }
 
-    private static class initialSignatureFormat {
-        private String access;
-        private String timestamp;
-        private String nonce;
-        private String signature_algorithm;
+    private static class headerNames {
+        private final String session;
+        private final String timestamp;
+        private final String signature;
+        private final String signatureAlgorithm;
+
+        headerNames(String projectName) {
+            session = projectName + "-Session";
+            timestamp = projectName + "-Timestamp";
+            signature = projectName + "-Signature";
+            signatureAlgorithm = projectName + "-SignatureAlgorithm";
+        }
     }
 
-    private static class requestSignatureFormat {
-        private String id;
-        private String method;
-        private String url;
-        private String body;
+    private static class initialSignatureFormat {
         private String access;
         private String timestamp;
         private String nonce;
@@ -311,29 +196,50 @@ public class ChainConnector {
     }
 
     final private static int requiredPrivateKeyLength = 32;
+    final private static Type actorListType = new TypeToken<List<ActorPrivileges>>() {
+    }.getType();
 
     final private String SDK_VERSION = "0.2.2";
-    private String headerNameSession;
-    private String headerNameTimestamp;
-    private String headerNameSignature;
-    private String headerNameSignatureAlgorithm;
+    private volatile headerNames _headerNames;
     private final String _accessID;
-    private final PrivateKey _privateKey;
-    private String _apiBase;
-    private String _domain;
-    private String _nonce;
-    private String _sessionID;
-    private int _timeout;
-    private String _localIP;
-    private boolean _trace = false;
-    private int _requestTimeout = Constants.DEFAULT_TIMEOUT_IN_SECONDS * 1000;
-
+    private final RequestSigner _signer;
+    private final TimestampClock _timestampClock = new TimestampClock();
+    private final SignatureMetrics _signatureMetrics = new SignatureMetrics();
+    private final Session _unconnected;
+    private volatile GatewayNode[] _nodes = new GatewayNode[0];
+    private volatile BalancePolicy _balancePolicy = BalancePolicy.LEAST_OUTSTANDING;
+    private volatile Hedger _hedger;
+    private volatile RetryPolicy _retryPolicy;
+    private volatile ConcurrencyLimiter _limiter;
+    private volatile DocumentCache _documentCache;
+    //chain connected and access ID, keeping entries of shared caches apart
+    private volatile DocumentCache.scope _cacheScope;
+    private volatile BlockCache _blockCache;
+    private volatile LocalBlockStore _blockStore;
+    private final AtomicReference<ScheduledFuture<?>> _keepAliveTask = new AtomicReference<>();
+    private volatile boolean _keepAlive = false;
+    private volatile boolean _trace = false;
+    private volatile int _requestTimeout = Constants.DEFAULT_TIMEOUT_IN_SECONDS * 1000;
+
+    private final ChainTransport _transport;
     private final HttpClient _client;
+    private volatile Executor _executor;
 
     private final Gson compactJSONMarshaller = new GsonBuilder().disableHtmlEscaping().setLenient().create();
+    private final ResponseDecoder responseDecoder = new ResponseDecoder(compactJSONMarshaller);
 
     public static ChainConnector NewConnectorFromAccess(AccessKey key) throws Exception {
-        String id = key.getPrivateData().getId();
+        return NewConnector(key.getPrivateData().getId(), decodePrivateKey(key));
+    }
+
+    /**
+     * Decode private key of an access key
+     *
+     * @param key access key
+     * @return private key
+     * @throws Exception if the key is not encoded properly
+     */
+    static byte[] decodePrivateKey(AccessKey key) throws Exception {
         String encodeMethod = key.getPrivateData().getEncodeMethod();
         String privateKey = key.getPrivateData().getPrivateKey();
         if (Constants.DEFAULT_KEY_ENCODE_METHOD.equals(encodeMethod)) {
@@ -344,7 +250,7 @@ public class ChainConnector {
             if (decoded.length < requiredPrivateKeyLength) {
                 throw new Exception("insufficient private key length");
             }
-            return NewConnector(id, Arrays.copyOfRange(decoded, 0, requiredPrivateKeyLength));
+            return Arrays.copyOfRange(decoded, 0, requiredPrivateKeyLength);
         } else {
             throw new Exception("unsupported encode method: " + encodeMethod);
         }
@@ -354,25 +260,59 @@ public class ChainConnector {
         return new ChainConnector(accessID, privateKey);
     }
 
+    /**
+     * Create connector signing requests with a custom signer
+     *
+     * @param accessID access ID allocated by the chain platform
+     * @param signer   signer of requests
+     * @return new connector
+     */
+    public static ChainConnector NewConnector(String accessID, RequestSigner signer) {
+        return new ChainConnector(accessID, signer);
+    }
+
     public ChainConnector(String accessID, byte[] privateKey) {
+        this(accessID, RequestSigner.newEd25519Signer(privateKey));
+    }
+
+    public ChainConnector(String accessID, RequestSigner signer) {
+        this(accessID, signer, ChainTransport.newBuilder().build());
+    }
+
+    /**
+     * Create connector sending requests via a shared transport
+     *
+     * @param accessID  access ID allocated by the chain platform
+     * @param signer    signer of requests
+     * @param transport transport shared with other connectors
+     */
+    public ChainConnector(String accessID, RequestSigner signer, ChainTransport transport) {
+        if (null == signer) {
+            throw new IllegalArgumentException("signer required");
+        }
+        if (null == transport) {
+            throw new IllegalArgumentException("transport required");
+        }
         this._accessID = accessID;
-        this._apiBase = "";
-        this._domain = "";
-        this._nonce = "";
-        this._sessionID = "";
-        this._timeout = 0;
-        this._localIP = "";
-        this._client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
-        _privateKey = generatePrivateKey(privateKey);
+        this._transport = transport;
+        this._client = transport.getClient();
+        this._executor = transport.getDefaultExecutor();
+        _signer = signer;
+        _unconnected = new Session(accessID, signer.getAlgorithm());
+        _cacheScope = new DocumentCache.scope("", accessID);
         setProject(Constants.DEFAULT_PROJECT_NAME);
     }
 
+    ChainTransport getTransport() {
+        return _transport;
+    }
+
     public String getVersion() {
         return SDK_VERSION;
     }
 
     public String getSessionID() {
-        return this._sessionID;
+        return primarySession().getSessionID();
     }
 
     public String getAccessID() {
@@ -380,7 +320,16 @@ public class ChainConnector {
     }
 
     public String getLocalIP() {
-        return this._localIP;
+        return primarySession().getLocalIP();
+    }
+
+    /**
+     * Get metrics of request signing
+     *
+     * @return signature counters of this connector
+     */
+    public SignatureMetrics getSignatureMetrics() {
+        return this._signatureMetrics;
     }
 
     public void setTrace(boolean flag) {
@@ -392,16 +341,153 @@ public class ChainConnector {
     }
 
     public void setProject(String projectName) {
-        headerNameSession = projectName + "-Session";
-        headerNameTimestamp = projectName + "-Timestamp";
-        headerNameSignature = projectName + "-Signature";
-        headerNameSignatureAlgorithm = projectName + "-SignatureAlgorithm";
+        _headerNames = new headerNames(projectName);
+    }
+    /**
+     * Set executor for parsing responses of asynchronous requests
+     *
+     * @param executor executor running response parsing and callbacks, the common pool by default, or
+     *                 virtual threads when the transport enabled them
+     */
+    public void setExecutor(Executor executor) {
+        if (null == executor) {
+            throw new IllegalArgumentException("executor required");
+        }
+        this._executor = executor;
+    }
+
+    /**
+     * Activate session in background before it expires, disabled by default
+     * <p>
+     * Session is checked at a third of the timeout declared by gateway, and only activated when idle
+     * for that long.
+     *
+     * @param enabled enable keep-alive
+     */
+    public void setKeepAlive(boolean enabled) {
+        this._keepAlive = enabled;
+        if (enabled) {
+            scheduleKeepAlive();
+        } else {
+            cancelKeepAlive();
+        }
+    }
+
+    /**
+     * Set policy of selecting gateway node when connected to a cluster
+     *
+     * @param policy balance policy, least outstanding requests by default
+     */
+    public void setBalancePolicy(BalancePolicy policy) {
+        if (null == policy) {
+            throw new IllegalArgumentException("policy required");
+        }
+        this._balancePolicy = policy;
+    }
+
+    /**
+     * Hedge idempotent reads, including getStatus, getBlock, getTransaction, getDocument and queryDocuments
+     *
+     * @param policy policy of hedging, null to disable, disabled by default
+     */
+    public void setHedgePolicy(HedgePolicy policy) {
+        this._hedger = null == policy ? null : new Hedger(policy);
+    }
+
+    /**
+     * Retry failed requests by policy, such as {@link BackoffRetryPolicy}
+     *
+     * @param policy policy of retrying, null to disable, disabled by default
+     */
+    public void setRetryPolicy(RetryPolicy policy) {
+        this._retryPolicy = policy;
     }
+
+    /**
+     * Limit requests in flight, excluding session allocation, keep-alive and probing
+     *
+     * @param limiter limiter of concurrent requests, null to disable, disabled by default
+     */
+    public void setConcurrencyLimiter(ConcurrencyLimiter limiter) {
+        this._limiter = limiter;
+    }
+
+    /**
+     * @return limiter of concurrent requests, null when disabled
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return _limiter;
+    }
+
+    /**
+     * Cache documents read by getDocument, and invalidate them on update or removal by this connector
+     *
+     * @param cache cache of documents, null to disable, disabled by default
+     */
+    public void setDocumentCache(DocumentCache cache) {
+        this._documentCache = cache;
+    }
+
+    /**
+     * @return cache of documents, null when disabled
+     */
+    public DocumentCache getDocumentCache() {
+        return _documentCache;
+    }
+
+    DocumentCache.scope getCacheScope() {
+        return _cacheScope;
+    }
+
+    /**
+     * Cache blocks and transactions read by getBlock and getTransaction
+     *
+     * @param cache cache of blocks and transactions, null to disable, disabled by default
+     */
+    public void setBlockCache(BlockCache cache) {
+        this._blockCache = cache;
+    }
+
+    /**
+     * @return cache of blocks and transactions, null when disabled
+     */
+    public BlockCache getBlockCache() {
+        return _blockCache;
+    }
+
+    /**
+     * Store blocks and transactions read from gateway locally, and read stored ones without request
+     *
+     * @param store local block store, null to disable, disabled by default
+     */
+    public void setBlockStore(LocalBlockStore store) {
+        this._blockStore = store;
+    }
+
+    /**
+     * @return local block store, null when disabled
+     */
+    public LocalBlockStore getBlockStore() {
+        return _blockStore;
+    }
+
+    Hedger getHedger() {
+        return _hedger;
+    }
+
     public void connect(String host, int port) throws Exception {
         connectToDomain(host, port, Constants.DEFAULT_DOMAIN_NAME);
     }
 
+    public CompletableFuture<Void> connectAsync(String host, int port) {
+        return connectToDomainAsync(host, port, Constants.DEFAULT_DOMAIN_NAME);
+    }
+
     public void connectToDomain(String host, int port, String domainName) throws Exception {
+        await(connectToDomainAsync(host, port, domainName));
+    }
+
+    public CompletableFuture<Void> connectToDomainAsync(String host, int port, String domainName) {
         String remoteHost;
         if (host.equals("")) {
             remoteHost = Constants.DEFAULT_DOMAIN_HOST;
@@ -409,61 +495,122 @@ public class ChainConnector {
             remoteHost = host;
         }
         if (domainName.equals("")) {
-            throw new Error("domain name omit");
+            return CompletableFuture.failedFuture(new Error("domain name omit"));
         }
         if (port <= 0 || port > 0xFFFF) {
-            throw new Error("invalid port " + port);
+            return CompletableFuture.failedFuture(new Error("invalid port " + port));
         }
-        _apiBase = "http://" + remoteHost + ":" + port + "/api/v" + Constants.API_VERSION;
-        _domain = domainName;
-        _nonce = newNonce();
-        Date now = new Date();
-        SimpleDateFormat RFC3339 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
-        String timestamp = RFC3339.format(now);
-        String signatureAlgorithm = Constants.SIGNATURE_METHOD_ED25519;
+        return connectToClusterAsync(Collections.singletonList(new GatewayEndpoint(remoteHost, port)), domainName);
+    }
 
-        initialSignatureFormat signaturePayload = new initialSignatureFormat();
-        signaturePayload.access = _accessID;
-        signaturePayload.timestamp = timestamp;
-        signaturePayload.nonce = _nonce;
-        signaturePayload.signature_algorithm = signatureAlgorithm;
-        //generate signature
-        String signature = base64Signature(signaturePayload);
-
-        //generate request payload
-        requestFormat requestPayload = new requestFormat();
-        requestPayload.id = _accessID;
-        requestPayload.nonce = _nonce;
-
-        ArrayList<Pair<String, String>> headers = new ArrayList<>();
-        headers.add(Pair.of(headerNameTimestamp, timestamp));
-        headers.add(Pair.of(headerNameSignatureAlgorithm, signatureAlgorithm));
-        headers.add(Pair.of(headerNameSignature, signature));
-        sessionResponse resp = rawRequest(RequestMethod.POST, "/sessions/", headers,
-                requestPayload, sessionResponse.class);
-
-        _sessionID = resp.getData().getSession();
-        _timeout = resp.getData().getTimeout();
-        _localIP = resp.getData().getAddress();
-        if (this._trace) {
-            System.out.printf("<Chain-DEBUG> [%s]: new session allocated\n", _sessionID);
-            System.out.printf("<Chain-DEBUG> [%s]: session timeout in %d second(s)\n", _sessionID, _timeout);
-            System.out.printf("<Chain-DEBUG> [%s]: local address %s\n", _sessionID, _localIP);
+    /**
+     * Connect to gateway nodes of a cluster, allocate a session on each node
+     * <p>
+     * Succeed when any node connected, the other nodes are ejected and probed later.
+     *
+     * @param endpoints  addresses of gateway nodes
+     * @param domainName name of domain
+     * @throws Exception if no node connected
+     */
+    public void connectToCluster(List<GatewayEndpoint> endpoints, String domainName) throws Exception {
+        await(connectToClusterAsync(endpoints, domainName));
+    }
+
+    public CompletableFuture<Void> connectToClusterAsync(List<GatewayEndpoint> endpoints, String domainName) {
+        if (null == endpoints || endpoints.isEmpty()) {
+            return CompletableFuture.failedFuture(new Error("endpoints omit"));
         }
+        if (domainName.equals("")) {
+            return CompletableFuture.failedFuture(new Error("domain name omit"));
+        }
+        final GatewayNode[] nodes = new GatewayNode[endpoints.size()];
+        final List<CompletableFuture<Throwable>> allocations = new ArrayList<>(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            final GatewayNode node = new GatewayNode(endpoints.get(i), domainName, _unconnected);
+            nodes[i] = node;
+            allocations.add(allocateSessionAsync(node).handle((session, e) -> {
+                if (null != e) {
+                    return unwrapCompletion(e);
+                }
+                node.sessionReference().set(session);
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(allocations.toArray(new CompletableFuture<?>[0])).thenApply(ignore -> {
+            Throwable failure = null;
+            boolean connected = false;
+            for (CompletableFuture<Throwable> allocation : allocations) {
+                Throwable e = allocation.join();
+                if (null == e) {
+                    connected = true;
+                } else if (null == failure) {
+                    failure = e;
+                }
+            }
+            if (!connected) {
+                throw new CompletionException(failure);
+            }
+            //publish all nodes at once
+            _nodes = nodes;
+            _cacheScope = new DocumentCache.scope(chainOf(endpoints, domainName), _accessID);
+            for (int i = 0; i < nodes.length; i++) {
+                Throwable e = allocations.get(i).join();
+                if (null == e) {
+                    onSessionAllocated(nodes[i], nodes[i].getSession());
+                } else {
+                    if (this._trace) {
+                        System.out.printf("<Chain-DEBUG> gateway %s unavailable: %s\n", nodes[i].getEndpoint(), e.getMessage());
+                    }
+                    nodes[i].eject();
+                    scheduleProbe(nodes[i]);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return domain and gateway endpoints of a chain, in the same form for any order of endpoints
+     */
+    private static String chainOf(List<GatewayEndpoint> endpoints, String domainName) {
+        String[] addresses = new String[endpoints.size()];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = endpoints.get(i).toString();
+        }
+        Arrays.sort(addresses);
+        return domainName + "@" + String.join(",", addresses);
     }
 
     public void activate() throws Exception {
-        final String url = mapToAPI("/sessions/");
-        doRequest(RequestMethod.PUT, url);
-        if (this._trace) {
-            System.out.printf("<Chain-DEBUG> [%s]: keep alive\n", _sessionID);
+        await(activateAsync());
+    }
+
+    public CompletableFuture<Void> activateAsync() {
+        GatewayNode[] nodes = _nodes;
+        if (0 == nodes.length) {
+            return this.<Void>sendAsync(null, _unconnected, RequestMethod.PUT, _unconnected.mapToAPI("/sessions/"),
+                    null, null);
         }
+        List<CompletableFuture<Void>> activations = new ArrayList<>(nodes.length);
+        for (GatewayNode node : nodes) {
+            if (node.isAvailable()) {
+                activations.add(activateNodeAsync(node));
+            }
+        }
+        if (activations.isEmpty()) {
+            //no node available, report the failure of any
+            return activateNodeAsync(nodes[ThreadLocalRandom.current().nextInt(nodes.length)]);
+        }
+        return CompletableFuture.allOf(activations.toArray(new CompletableFuture<?>[0]));
     }
 
     public ChainStatus getStatus() throws Exception {
-        final String url = mapToDomain("/status");
-        statusResponse resp = fetchResponse(RequestMethod.GET, url, statusResponse.class);
-        return resp.getData();
+        return await(getStatusAsync());
+    }
+
+    public CompletableFuture<ChainStatus> getStatusAsync() {
+        final String path = "/status";
+        return fetchIdempotentAsync(RequestMethod.GET, path, null, ChainStatus.class);
     }
 
     /**
@@ -474,23 +621,90 @@ public class ChainConnector {
      * @return list of block records
      */
     public BlockRecords queryBlocks(int beginHeight, int endHeight) throws Exception {
+        return await(queryBlocksAsync(beginHeight, endHeight));
+    }
+
+    public CompletableFuture<BlockRecords> queryBlocksAsync(int beginHeight, int endHeight) {
         if (endHeight < beginHeight) {
-            throw new Exception("end height " + endHeight + " must greater than begin height " + beginHeight);
-        }
-        String url = this.mapToDomain("/blocks/");
+            return CompletableFuture.failedFuture(new Exception("end height " + endHeight + " must greater than begin height " + beginHeight));
+        }
+        final LocalBlockStore store = _blockStore;
+        if (null != store && store.containsHeights(beginHeight, endHeight)) {
+            //blocks read locally, height of chain still asked from gateway, as the store may lag behind
+            String[] blocks = new String[endHeight - beginHeight + 1];
+            for (int height = beginHeight; height <= endHeight; height++) {
+                blocks[height - beginHeight] = store.getBlockID(height);
+            }
+            return getStatusAsync().thenApply(status -> {
+                BlockRecords records = new BlockRecords();
+                records.setBlocks(blocks);
+                records.setFrom(beginHeight);
+                records.setTo(endHeight);
+                records.setHeight(status.getBlockHeight());
+                return records;
+            });
+        }
+        String path = "/blocks/";
         blockQueryRequest condition = new blockQueryRequest(beginHeight, endHeight);
-        blockRecordsResponse resp = fetchResponseWithPayload(RequestMethod.POST, url, condition, blockRecordsResponse.class);
-        return resp.getData();
+        return fetchResponseWithPayloadAsync(RequestMethod.POST, path, condition, BlockRecords.class);
     }
 
     public BlockData getBlock(String blockID) throws Exception {
+        return await(getBlockAsync(blockID));
+    }
+
+    public CompletableFuture<BlockData> getBlockAsync(String blockID) {
         if (blockID == null || blockID.isEmpty()) {
-            throw new Exception("block ID required");
+            return CompletableFuture.failedFuture(new Exception("block ID required"));
         }
 
-        final String url = mapToDomain("/blocks/" + blockID);
-        blockDataResponse resp = fetchResponse(RequestMethod.GET, url, blockDataResponse.class);
-        return resp.getData();
+        final String path = "/blocks/" + blockID;
+        final BlockCache cache = _blockCache;
+        final LocalBlockStore store = _blockStore;
+        if (null != cache) {
+            BlockData cached = cache.getBlock(blockID);
+            if (null != cached) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        if (null != store) {
+            BlockData stored = store.getBlock(blockID);
+            if (null != stored) {
+                return CompletableFuture.completedFuture(stored);
+            }
+        }
+        CompletableFuture<BlockData> future = fetchIdempotentAsync(RequestMethod.GET, path, null, BlockData.class);
+        if (null != store) {
+            future = future.thenCompose(block -> storeAsync(block, store::putBlock));
+        }
+        if (null != cache) {
+            future = future.thenApply(block -> {
+                cache.putBlock(blockID, block);
+                return block;
+            });
+        }
+        return future;
+    }
+
+    private interface storeFunction<T> {
+        void store(T data) throws IOException;
+    }
+
+    /**
+     * Store fetched data locally, failing the read only when a block conflicts with stored ones
+     */
+    private <T> CompletableFuture<T> storeAsync(T data, storeFunction<T> function) {
+        try {
+            function.store(data);
+        } catch (BlockConflictException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (IOException e) {
+            //data fetched is still valid, only not stored
+            if (this._trace) {
+                System.out.printf("<Chain-DEBUG> store fetched data failed: %s\n", e.getMessage());
+            }
+        }
+        return CompletableFuture.completedFuture(data);
     }
 
     /**
@@ -503,32 +717,119 @@ public class ChainConnector {
      * @throws Exception on error
      */
     public TransactionRecords queryTransactions(String blockID, int start, int maxRecord) throws Exception {
+        return await(queryTransactionsAsync(blockID, start, maxRecord));
+    }
+
+    public CompletableFuture<TransactionRecords> queryTransactionsAsync(String blockID, int start, int maxRecord) {
         if (blockID == null || blockID.isEmpty()) {
-            throw new IllegalArgumentException("Block ID is required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Block ID is required"));
+        }
+        final LocalBlockStore store = _blockStore;
+        if (null != store) {
+            String[] stored = store.getTransactionList(blockID);
+            if (null != stored) {
+                int from = Math.max(0, Math.min(start, stored.length));
+                int to = Math.min(stored.length, from + Math.max(0, maxRecord));
+                TransactionRecords records = new TransactionRecords();
+                records.setTransactions(Arrays.copyOfRange(stored, from, to));
+                records.setOffset(start);
+                records.setLimit(maxRecord);
+                records.setTotal(stored.length);
+                records.setHasMore(to < stored.length);
+                return CompletableFuture.completedFuture(records);
+            }
         }
-        String url = mapToDomain("/blocks/" + blockID + "/transactions/");
+        String path = "/blocks/" + blockID + "/transactions/";
         paginationRequest condition = new paginationRequest(start, maxRecord);
-        transactionRecordsResponse resp = fetchResponseWithPayload(RequestMethod.POST, url, condition, transactionRecordsResponse.class);
-        return resp.getData();
+        CompletableFuture<TransactionRecords> future = fetchResponseWithPayloadAsync(RequestMethod.POST, path,
+                condition, TransactionRecords.class);
+        if (null != store) {
+            future = future.thenCompose(records -> storeAsync(records,
+                    fetched -> store.putTransactionRecords(blockID, fetched)));
+        }
+        return future;
     }
 
     public TransactionData getTransaction(String blockID, String transID) throws Exception {
+        return await(getTransactionAsync(blockID, transID));
+    }
+
+    public CompletableFuture<TransactionData> getTransactionAsync(String blockID, String transID) {
         if (blockID == null || blockID.isEmpty()) {
-            throw new Exception("block ID required");
+            return CompletableFuture.failedFuture(new Exception("block ID required"));
         }
         if (transID == null || transID.isEmpty()) {
-            throw new Exception("transaction ID required");
+            return CompletableFuture.failedFuture(new Exception("transaction ID required"));
+        }
+        String path = "/blocks/" + blockID + "/transactions/" + transID;
+        final BlockCache cache = _blockCache;
+        final LocalBlockStore store = _blockStore;
+        if (null != cache) {
+            TransactionData cached = cache.getTransaction(blockID, transID);
+            if (null != cached) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        if (null != store) {
+            TransactionData stored = store.getTransaction(blockID, transID);
+            if (null != stored) {
+                return CompletableFuture.completedFuture(stored);
+            }
+        }
+        CompletableFuture<TransactionData> future = fetchIdempotentAsync(RequestMethod.GET, path, null,
+                TransactionData.class);
+        if (null != store) {
+            future = future.thenCompose(transaction -> storeAsync(transaction, store::putTransaction));
+        }
+        if (null != cache) {
+            future = future.thenApply(transaction -> {
+                cache.putTransaction(blockID, transID, transaction);
+                return transaction;
+            });
+        }
+        return future;
+    }
+
+    /**
+     * Walk blocks of a height range with their transactions, and resume from checkpoint
+     * <p>
+     * Ranges of 20 heights are fetched concurrently, at most concurrency ranges ahead of the consumer and
+     * concurrency * {@link Constants#DEFAULT_FETCH_CONCURRENCY} requests in flight, and blocks are delivered
+     * in strictly ascending height, each checked to link to the previous one. The highest height delivered
+     * is saved to checkpoint, and a resumed backfill begins after it, checking the link to the block at the
+     * saved height. With a block store or cache set, stored blocks and transactions are read without requests.
+     *
+     * @param beginHeight begin block height, start from 1
+     * @param endHeight   end block height, included
+     * @param concurrency max ranges of heights in flight
+     * @param checkpoint  highest height delivered saved periodically, null to disable
+     * @param consumer    receive blocks in ascending height, never invoked concurrently
+     * @return highest height delivered
+     */
+    public long backfillBlocks(int beginHeight, int endHeight, int concurrency, Checkpoint checkpoint,
+                               Consumer<BlockEntry> consumer) throws Exception {
+        return await(backfillBlocksAsync(beginHeight, endHeight, concurrency, checkpoint, consumer));
+    }
+
+    public CompletableFuture<Long> backfillBlocksAsync(int beginHeight, int endHeight, int concurrency,
+                                                       Checkpoint checkpoint, Consumer<BlockEntry> consumer) {
+        ChainBackfill backfill;
+        try {
+            backfill = new ChainBackfill(this, beginHeight, endHeight, concurrency, checkpoint, consumer, _executor);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        String url = mapToDomain("/blocks/" + blockID + "/transactions/" + transID);
-        transactionDataResponse resp = fetchResponse(RequestMethod.GET, url, transactionDataResponse.class);
-        return resp.getData();
+        return backfill.start();
     }
 
     public SchemaRecords querySchemas(int queryStart, int maxRecord) throws Exception {
-        final String url = mapToDomain("/schemas/");
+        return await(querySchemasAsync(queryStart, maxRecord));
+    }
+
+    public CompletableFuture<SchemaRecords> querySchemasAsync(int queryStart, int maxRecord) {
+        final String path = "/schemas/";
         final paginationRequest condition = new paginationRequest(queryStart, maxRecord);
-        final schemaRecordsResponse response = fetchResponseWithPayload(RequestMethod.POST, url, condition, schemaRecordsResponse.class);
-        return response.getData();
+        return fetchResponseWithPayloadAsync(RequestMethod.POST, path, condition, SchemaRecords.class);
     }
 
     /**
@@ -538,28 +839,39 @@ public class ChainConnector {
      * @throws Exception if schemaName is null or empty
      */
     public void rebuildIndex(String schemaName) throws Exception {
+        await(rebuildIndexAsync(schemaName));
+    }
+
+    public CompletableFuture<Void> rebuildIndexAsync(String schemaName) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
-        String url = mapToDomain("/schemas/" + schemaName + "/index/");
-        doRequest(RequestMethod.POST, url);
+        String path = "/schemas/" + schemaName + "/index/";
+        return doRequestAsync(RequestMethod.POST, path);
     }
 
     public boolean hasSchema(String schemaName) throws Exception {
+        return await(hasSchemaAsync(schemaName));
+    }
+
+    public CompletableFuture<Boolean> hasSchemaAsync(String schemaName) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
-        String url = mapToDomain("/schemas/" + schemaName);
-        return peekRequest(RequestMethod.HEAD, url);
+        String path = "/schemas/" + schemaName;
+        return peekRequestAsync(RequestMethod.HEAD, path);
     }
 
     public DocumentSchema getSchema(String schemaName) throws Exception {
+        return await(getSchemaAsync(schemaName));
+    }
+
+    public CompletableFuture<DocumentSchema> getSchemaAsync(String schemaName) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
-        String url = mapToDomain("/schemas/" + schemaName);
-        SchemaDataResponse resp = fetchResponse(RequestMethod.GET, url, SchemaDataResponse.class);
-        return resp.getData();
+        String path = "/schemas/" + schemaName;
+        return fetchResponseAsync(RequestMethod.GET, path, DocumentSchema.class);
     }
 
     /**
@@ -570,11 +882,15 @@ public class ChainConnector {
      * @throws Exception if schemaName is null or empty
      */
     public void createSchema(String schemaName, List<DocumentProperty> properties) throws Exception {
+        await(createSchemaAsync(schemaName, properties));
+    }
+
+    public CompletableFuture<Void> createSchemaAsync(String schemaName, List<DocumentProperty> properties) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
-        String url = mapToDomain("/schemas/" + schemaName);
-        doRequestWithPayload(RequestMethod.POST, url, properties);
+        String path = "/schemas/" + schemaName;
+        return doRequestWithPayloadAsync(RequestMethod.POST, path, properties);
     }
 
     /**
@@ -584,11 +900,15 @@ public class ChainConnector {
      * @param properties Properties of schema to update
      */
     public void updateSchema(String schemaName, List<DocumentProperty> properties) throws Exception {
+        await(updateSchemaAsync(schemaName, properties));
+    }
+
+    public CompletableFuture<Void> updateSchemaAsync(String schemaName, List<DocumentProperty> properties) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Error("schema name required");
+            return CompletableFuture.failedFuture(new Error("schema name required"));
         }
-        String url = mapToDomain("/schemas/" + schemaName);
-        doRequestWithPayload(RequestMethod.PUT, url, properties);
+        String path = "/schemas/" + schemaName;
+        return doRequestWithPayloadAsync(RequestMethod.PUT, path, properties);
     }
 
 
@@ -599,11 +919,15 @@ public class ChainConnector {
      * @throws Exception if schemaName is null or empty
      */
     public void deleteSchema(String schemaName) throws Exception {
+        await(deleteSchemaAsync(schemaName));
+    }
+
+    public CompletableFuture<Void> deleteSchemaAsync(String schemaName) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
-        String url = mapToDomain("/schemas/" + schemaName);
-        doRequest(RequestMethod.DELETE, url);
+        String path = "/schemas/" + schemaName;
+        return doRequestAsync(RequestMethod.DELETE, path);
     }
 
 
@@ -614,12 +938,15 @@ public class ChainConnector {
      * @returns {LogRecords} list of log records
      */
     public LogRecords getSchemaLog(String schemaName) throws Exception {
+        return await(getSchemaLogAsync(schemaName));
+    }
+
+    public CompletableFuture<LogRecords> getSchemaLogAsync(String schemaName) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
-        final String url = mapToDomain("/schemas/" + schemaName + "/logs/");
-        logRecordsResponse resp = fetchResponse(RequestMethod.GET, url, logRecordsResponse.class);
-        return resp.getData();
+        final String path = "/schemas/" + schemaName + "/logs/";
+        return fetchResponseAsync(RequestMethod.GET, path, LogRecords.class);
     }
 
     /**
@@ -629,12 +956,15 @@ public class ChainConnector {
      * @returns {ActorPrivileges[]} list of actor privileges
      */
     public List<ActorPrivileges> getSchemaActors(String schemaName) throws Exception {
+        return await(getSchemaActorsAsync(schemaName));
+    }
+
+    public CompletableFuture<List<ActorPrivileges>> getSchemaActorsAsync(String schemaName) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
-        final String url = mapToDomain("/schemas/" + schemaName + "/actors/");
-        actorsResponse resp = fetchResponse(RequestMethod.GET, url, actorsResponse.class);
-        return resp.getData();
+        final String path = "/schemas/" + schemaName + "/actors/";
+        return fetchResponseAsync(RequestMethod.GET, path, actorListType);
     }
 
     /**
@@ -645,55 +975,375 @@ public class ChainConnector {
      * @throws IllegalArgumentException if schemaName or actors is null or empty
      * @throws Exception                if request fails
      */
-    public void updateSchemaActors(String schemaName, List<ActorPrivileges> actors) throws Exception {
-        if (schemaName == null || schemaName.isEmpty()) {
-            throw new IllegalArgumentException("Schema name is required");
-        }
-        if (actors == null || actors.isEmpty()) {
-            throw new IllegalArgumentException("Actor privileges list is required");
+    public void updateSchemaActors(String schemaName, List<ActorPrivileges> actors) throws Exception {
+        await(updateSchemaActorsAsync(schemaName, actors));
+    }
+
+    public CompletableFuture<Void> updateSchemaActorsAsync(String schemaName, List<ActorPrivileges> actors) {
+        if (schemaName == null || schemaName.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Schema name is required"));
+        }
+        if (actors == null || actors.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Actor privileges list is required"));
+        }
+        final String path = "/schemas/" + schemaName + "/actors/";
+        final actorsRequest payload = new actorsRequest(actors);
+        return doRequestWithPayloadAsync(RequestMethod.PUT, path, payload);
+    }
+
+    /**
+     * Query documents using the query condition
+     *
+     * @param schemaName schema name
+     * @param condition  query condition
+     * @return document records
+     */
+    public DocumentRecords queryDocuments(String schemaName, QueryCondition condition) throws Exception {
+        return await(queryDocumentsAsync(schemaName, condition));
+    }
+
+    public CompletableFuture<DocumentRecords> queryDocumentsAsync(String schemaName, QueryCondition condition) {
+        if (schemaName == null || schemaName.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("schema name required"));
+        }
+        String path = "/queries/schemas/" + schemaName + "/docs/";
+        return fetchIdempotentAsync(RequestMethod.POST, path, condition, DocumentRecords.class);
+    }
+
+    /**
+     * Scan documents matching condition in partitions concurrently
+     * <p>
+     * The range of an indexed property, between its min and max value, is split into sub-ranges of about
+     * the same width by {@link FilterOperator#GREATER_OR_EQUAL} and {@link FilterOperator#LESS_THAN} filters.
+     * Sub-ranges are scanned concurrently by keyset paging, each prefetching up to two pages, and merged
+     * into a single stream. Documents without a value of the property may be excluded by gateway.
+     *
+     * @param schemaName   schema name
+     * @param condition    query condition without offset or since, the limit is taken as page size
+     * @param propertyName indexed property of type int, float, currency or string
+     * @param partitions   count of partitions expected, fewer when the range is too narrow
+     * @param ordered      documents ordered by the property, in direction of condition when ordered by it
+     * @return lazy stream of documents
+     */
+    public Stream<Document> scanDocuments(String schemaName, QueryCondition condition, String propertyName,
+                                          int partitions, boolean ordered) throws Exception {
+        if (schemaName == null || schemaName.isEmpty()) {
+            throw new IllegalArgumentException("schema name required");
+        }
+        if (propertyName == null || propertyName.isEmpty()) {
+            throw new IllegalArgumentException("property name required");
+        }
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("invalid partitions " + partitions);
+        }
+        QueryCondition base = null == condition ? new QueryCondition() : DocumentPager.copyOf(condition);
+        if (0 != base.getOffset() || (null != base.getSince() && !base.getSince().isEmpty())) {
+            throw new IllegalArgumentException("offset or since not allowed when scanning partitions");
+        }
+        if (base.getLimit() <= 0) {
+            base.setLimit(Constants.DEFAULT_PAGE_SIZE);
+        }
+        final boolean orderedByProperty = propertyName.equals(base.getOrder());
+        if (ordered && !orderedByProperty && null != base.getOrder() && !base.getOrder().isEmpty()) {
+            throw new IllegalArgumentException(String.format("can't order partitions of %s by %s", propertyName,
+                    base.getOrder()));
+        }
+        final boolean descend = orderedByProperty && base.isDescend();
+        if (null == base.getOrder() || base.getOrder().isEmpty()) {
+            base.setOrder(propertyName);
+            base.setDescend(false);
+        }
+        DocumentSchema schema = await(getSchemaAsync(schemaName));
+        DocumentProperty property = null;
+        if (null != schema.getProperties()) {
+            for (DocumentProperty current : schema.getProperties()) {
+                if (propertyName.equals(current.getName())) {
+                    property = current;
+                    break;
+                }
+            }
+        }
+        if (null == property) {
+            throw new IllegalArgumentException(String.format("property %s not found in schema %s", propertyName,
+                    schemaName));
+        }
+        if (!property.isIndexed() || !KeyRange.isSplittable(property.getType())) {
+            throw new IllegalArgumentException(String.format("property %s of type %s can't be partitioned",
+                    propertyName, property.getType()));
+        }
+        //bounds of range
+        QueryCondition first = DocumentPager.copyOf(base);
+        first.setOrder(propertyName);
+        first.setDescend(false);
+        first.setLimit(1);
+        QueryCondition last = DocumentPager.copyOf(first);
+        last.setDescend(true);
+        CompletableFuture<DocumentRecords> lowest = queryDocumentsAsync(schemaName, first);
+        CompletableFuture<DocumentRecords> highest = queryDocumentsAsync(schemaName, last);
+        String lower = propertyValue(await(lowest), propertyName);
+        String upper = propertyValue(await(highest), propertyName);
+        List<QueryCondition> conditions = new ArrayList<>();
+        if (null == lower || null == upper) {
+            conditions.add(base);
+        } else {
+            List<String> boundaries = KeyRange.split(property.getType(), lower, upper, partitions);
+            for (int i = 0; i <= boundaries.size(); i++) {
+                QueryCondition range = DocumentPager.copyOf(base);
+                if (i > 0) {
+                    range.getFilters().add(new ConditionFilter(propertyName, FilterOperator.GREATER_OR_EQUAL,
+                            boundaries.get(i - 1)));
+                }
+                if (i < boundaries.size()) {
+                    range.getFilters().add(new ConditionFilter(propertyName, FilterOperator.LESS_THAN,
+                            boundaries.get(i)));
+                }
+                conditions.add(range);
+            }
+            if (descend) {
+                Collections.reverse(conditions);
+            }
+        }
+        if (this._trace) {
+            System.out.printf("<Chain-DEBUG> scan %s in %d partition(s) of %s between %s and %s\n", schemaName,
+                    conditions.size(), propertyName, lower, upper);
+        }
+        PartitionedScan scan = new PartitionedScan(page -> queryDocumentsAsync(schemaName, page), conditions,
+                DocumentPager.BY_KEYSET, ordered);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(scan::close);
+    }
+
+    /**
+     * @return value of property in the first document as string, null when no document or value
+     */
+    private static String propertyValue(DocumentRecords records, String propertyName) {
+        if (null == records.getDocuments() || records.getDocuments().isEmpty()) {
+            return null;
+        }
+        JsonElement content = JsonParser.parseString(records.getDocuments().get(0).getContent());
+        if (!content.isJsonObject()) {
+            return null;
+        }
+        JsonElement value = content.getAsJsonObject().get(propertyName);
+        if (null == value || !value.isJsonPrimitive()) {
+            return null;
+        }
+        return value.getAsString();
+    }
+
+    /**
+     * Stream documents matching condition across pages by offset
+     *
+     * @see #streamDocuments(String, QueryCondition, PagingMode)
+     */
+    public Stream<Document> streamDocuments(String schemaName, QueryCondition condition) {
+        return streamDocuments(schemaName, condition, PagingMode.OFFSET);
+    }
+
+    /**
+     * Stream documents matching condition across pages
+     * <p>
+     * Pages are fetched lazily, and the next page is requested in background while the current one
+     * consumed, so at most two pages are held. Close the stream to cancel the page in flight when not
+     * fully consumed. Failures of query are thrown as {@link CompletionException} when iterating.
+     * <p>
+     * {@link PagingMode#KEYSET} starts from the "since" of condition, and moves it to the last document of
+     * each page, the order property and direction are kept. The offset of condition must be 0.
+     *
+     * @param schemaName schema name
+     * @param condition  query condition, the limit is taken as page size, {@link Constants#DEFAULT_PAGE_SIZE}
+     *                   when omitted
+     * @param mode       mode of paging
+     * @return lazy stream of documents
+     */
+    public Stream<Document> streamDocuments(String schemaName, QueryCondition condition, PagingMode mode) {
+        if (schemaName == null || schemaName.isEmpty()) {
+            throw new IllegalArgumentException("schema name required");
+        }
+        if (null == mode) {
+            throw new IllegalArgumentException("paging mode required");
+        }
+        QueryCondition first = null == condition ? new QueryCondition() : DocumentPager.copyOf(condition);
+        if (first.getLimit() <= 0) {
+            first.setLimit(Constants.DEFAULT_PAGE_SIZE);
+        }
+        DocumentPager.Paging paging;
+        if (PagingMode.KEYSET == mode) {
+            if (0 != first.getOffset()) {
+                throw new IllegalArgumentException("offset not allowed when paging by keyset");
+            }
+            paging = DocumentPager.BY_KEYSET;
+        } else {
+            paging = DocumentPager.BY_OFFSET;
+        }
+        DocumentPager pager = new DocumentPager(page -> queryDocumentsAsync(schemaName, page), first, paging);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pager,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(pager::close);
+    }
+
+    public boolean hasDocument(String schemaName, String docID) throws Exception {
+        return await(hasDocumentAsync(schemaName, docID));
+    }
+
+    public CompletableFuture<Boolean> hasDocumentAsync(String schemaName, String docID) {
+        if (schemaName == null || schemaName.isEmpty()) {
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
+        }
+        if (docID == null || docID.isEmpty()) {
+            return CompletableFuture.failedFuture(new Exception("document ID required"));
+        }
+        final DocumentCache cache = _documentCache;
+        if (null != cache && !cache.isValidated() && cache.contains(_cacheScope, schemaName, docID)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        String path = "/schemas/" + schemaName + "/docs/" + docID;
+        return peekRequestAsync(RequestMethod.HEAD, path);
+    }
+
+    public String getDocument(String schemaName, String docID) throws Exception {
+        return await(getDocumentAsync(schemaName, docID));
+    }
+
+    public CompletableFuture<String> getDocumentAsync(String schemaName, String docID) {
+        if (schemaName == null || schemaName.isEmpty()) {
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
+        }
+        if (docID == null || docID.isEmpty()) {
+            return CompletableFuture.failedFuture(new Exception("document ID required"));
+        }
+        return readDocumentAsync(schemaName, docID);
+    }
+
+    /**
+     * Read content of document through cache when configured, cancelling it aborts the fetch in flight
+     */
+    private CompletableFuture<String> readDocumentAsync(String schemaName, String docID) {
+        final DocumentCache cache = _documentCache;
+        if (null == cache) {
+            return fetchDocumentAsync(schemaName, docID);
+        }
+        final DocumentCache.scope owner = _cacheScope;
+        if (!cache.isValidated()) {
+            DocumentCache.entry cached = cache.get(owner, schemaName, docID);
+            if (null != cached) {
+                return CompletableFuture.completedFuture(cached.getContent());
+            }
+            return fillDocumentAsync(cache, owner, schemaName, docID, DocumentCache.UNKNOWN_VERSION);
+        }
+        final CompletableFuture<LogRecords> validating = getDocumentLogsAsync(schemaName, docID);
+        final AtomicReference<CompletableFuture<String>> filling = new AtomicReference<>();
+        final CompletableFuture<String> result = validating.thenCompose(logs -> {
+            DocumentCache.entry cached = cache.get(owner, schemaName, docID);
+            if (null != cached && cached.getVersion() == logs.getLatestVersion()) {
+                return CompletableFuture.completedFuture(cached.getContent());
+            }
+            //version taken before fetching, a newer content is only validated again
+            CompletableFuture<String> fetching = fillDocumentAsync(cache, owner, schemaName, docID,
+                    logs.getLatestVersion());
+            filling.set(fetching);
+            return fetching;
+        });
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) {
+                cancelAttempt(validating);
+                cancelAttempt(filling.get());
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<String> fetchDocumentAsync(String schemaName, String docID) {
+        final String path = "/schemas/" + schemaName + "/docs/" + docID;
+        CompletableFuture<Document> fetching = fetchIdempotentAsync(RequestMethod.GET, path, null, Document.class);
+        return cancelWith(fetching.thenApply(Document::getContent), fetching);
+    }
+
+    private CompletableFuture<String> fillDocumentAsync(DocumentCache cache, DocumentCache.scope owner,
+                                                        String schemaName, String docID, int version) {
+        final long ticket = cache.beginFill(owner, schemaName, docID);
+        CompletableFuture<String> fetching = fetchDocumentAsync(schemaName, docID);
+        //ended on failure too, content is null then
+        return cancelWith(fetching.whenComplete((content, e) ->
+                cache.fill(ticket, owner, schemaName, docID, content, version)), fetching);
+    }
+
+    /**
+     * Invalidate cached document before and after a change, so reads racing with it are not cached
+     */
+    private <T> CompletableFuture<T> invalidateDocument(String schemaName, String docID,
+                                                        Supplier<CompletableFuture<T>> change) {
+        final DocumentCache cache = _documentCache;
+        if (null == cache) {
+            return change.get();
         }
-        final String url = mapToDomain("/schemas/" + schemaName + "/actors/");
-        final actorsRequest payload = new actorsRequest(actors);
-        doRequestWithPayload(RequestMethod.PUT, url, payload);
+        final DocumentCache.scope owner = _cacheScope;
+        cache.invalidate(owner, schemaName, docID);
+        CompletableFuture<T> changing = change.get();
+        return cancelWith(changing.whenComplete((value, e) -> cache.invalidate(owner, schemaName, docID)), changing);
     }
 
     /**
-     * Query documents using the query condition
+     * Get documents by IDs with concurrent requests
      *
      * @param schemaName schema name
-     * @param condition  query condition
-     * @return document records
+     * @param docIDs     document IDs
+     * @return documents found in the order of IDs, and IDs not found
      */
-    public DocumentRecords queryDocuments(String schemaName, QueryCondition condition) throws Exception {
-        if (schemaName == null || schemaName.isEmpty()) {
-            throw new IllegalArgumentException("schema name required");
-        }
-        String url = mapToDomain("/queries/schemas/" + schemaName + "/docs/");
-        final documentRecordsResponse resp = fetchResponseWithPayload(RequestMethod.POST, url, condition, documentRecordsResponse.class);
-        return resp.getData();
+    public DocumentBatch getDocuments(String schemaName, Collection<String> docIDs) throws Exception {
+        return await(getDocumentsAsync(schemaName, docIDs));
     }
 
-    public boolean hasDocument(String schemaName, String docID) throws Exception {
-        if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
-        }
-        if (docID == null || docID.isEmpty()) {
-            throw new Exception("document ID required");
-        }
-        String url = mapToDomain("/schemas/" + schemaName + "/docs/" + docID);
-        return peekRequest(RequestMethod.HEAD, url);
+    public CompletableFuture<DocumentBatch> getDocumentsAsync(String schemaName, Collection<String> docIDs) {
+        return getDocumentsAsync(schemaName, docIDs, Constants.DEFAULT_FETCH_CONCURRENCY);
     }
 
-    public String getDocument(String schemaName, String docID) throws Exception {
+    /**
+     * Get documents by IDs with concurrent requests
+     * <p>
+     * Documents are read through the document cache when configured, the others fetched as idempotent
+     * reads, at most concurrency at a time, multiplexed on the connections of transport. A missing document
+     * is reported in the batch, other failures fail the whole batch and cancel the fetches in flight.
+     *
+     * @param schemaName  schema name
+     * @param docIDs      document IDs
+     * @param concurrency max documents fetched concurrently
+     * @return documents found in the order of IDs, and IDs not found
+     */
+    public CompletableFuture<DocumentBatch> getDocumentsAsync(String schemaName, Collection<String> docIDs,
+                                                              int concurrency) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
-        if (docID == null || docID.isEmpty()) {
-            throw new Exception("document ID required");
+        if (null == docIDs) {
+            return CompletableFuture.failedFuture(new Exception("document IDs required"));
+        }
+        for (String docID : docIDs) {
+            if (docID == null || docID.isEmpty()) {
+                return CompletableFuture.failedFuture(new Exception("document ID required"));
+            }
         }
-        final String url = mapToDomain("/schemas/" + schemaName + "/docs/" + docID);
-        documentResponse resp = fetchResponse(RequestMethod.GET, url, documentResponse.class);
-        return resp.getData().getContent();
+        final List<Document> documents = new ArrayList<>(docIDs.size());
+        final List<String> missing = new ArrayList<>();
+        OrderedPipeline<String, Document> pipeline;
+        try {
+            pipeline = new OrderedPipeline<>(docIDs.iterator(), Math.min(concurrency, Math.max(1, docIDs.size())),
+                    docID -> {
+                        CompletableFuture<String> reading = readDocumentAsync(schemaName, docID);
+                        return cancelWith(reading.thenApply(content -> new Document(docID, content)), reading);
+                    },
+                    _executor, (index, docID, document, error) -> {
+                        if (null == error) {
+                            documents.add(document);
+                        } else if (error instanceof NotFoundException) {
+                            missing.add(docID);
+                        } else {
+                            throw error;
+                        }
+                    }, null);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return pipeline.start().thenApply(count -> new DocumentBatch(documents, missing));
     }
 
     /**
@@ -705,13 +1355,77 @@ public class ChainConnector {
      * @return document ID
      */
     public String addDocument(String schemaName, String docID, String docContent) throws Exception {
+        return await(addDocumentAsync(schemaName, docID, docContent));
+    }
+
+    public CompletableFuture<String> addDocumentAsync(String schemaName, String docID, String docContent) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
-        String url = this.mapToDomain("/schemas/" + schemaName + "/docs/");
+        String path = "/schemas/" + schemaName + "/docs/";
         documentRequest payload = new documentRequest(docID, docContent);
-        documentCreatedResponse resp = this.fetchResponseWithPayload(RequestMethod.POST, url, payload, documentCreatedResponse.class);
-        return resp.getData().getId();
+        return this.fetchResponseWithPayloadAsync(RequestMethod.POST, path, payload, newDocumentData.class)
+                .thenApply(newDocumentData::getId);
+    }
+
+    /**
+     * Add documents to schema with pipelined requests
+     *
+     * @param schemaName  schema name
+     * @param documents   documents to add, document ID is optional
+     * @param concurrency max documents in flight
+     * @return results in input order
+     */
+    public List<BulkResult> bulkAddDocuments(String schemaName, Iterator<Document> documents, int concurrency)
+            throws Exception {
+        return await(bulkAddDocumentsAsync(schemaName, documents, concurrency));
+    }
+
+    public CompletableFuture<List<BulkResult>> bulkAddDocumentsAsync(String schemaName, Iterator<Document> documents,
+                                                                     int concurrency) {
+        final List<BulkResult> results = new ArrayList<>();
+        return bulkAddDocumentsAsync(schemaName, documents, concurrency, null, results::add)
+                .thenApply(count -> results);
+    }
+
+    /**
+     * Add documents to schema with pipelined requests, and resume from checkpoint
+     * <p>
+     * Documents are serialized, signed and sent in parallel, at most concurrency documents ahead of the
+     * first one not completed. A failed document is reported in its result and does not stop the others.
+     * Documents completed in checkpoint are skipped, so the same input should be supplied when resumed.
+     *
+     * @param schemaName  schema name
+     * @param documents   documents to add, document ID is optional
+     * @param concurrency max documents in flight
+     * @param checkpoint  progress saved periodically, null to disable
+     * @param consumer    receive results in input order, never invoked concurrently
+     * @return count of documents completed, including those skipped
+     */
+    public long bulkAddDocuments(String schemaName, Iterator<Document> documents, int concurrency,
+                                 Checkpoint checkpoint, Consumer<BulkResult> consumer) throws Exception {
+        return await(bulkAddDocumentsAsync(schemaName, documents, concurrency, checkpoint, consumer));
+    }
+
+    public CompletableFuture<Long> bulkAddDocumentsAsync(String schemaName, Iterator<Document> documents,
+                                                         int concurrency, Checkpoint checkpoint,
+                                                         Consumer<BulkResult> consumer) {
+        if (schemaName == null || schemaName.isEmpty()) {
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
+        }
+        if (null == consumer) {
+            return CompletableFuture.failedFuture(new Exception("consumer required"));
+        }
+        OrderedPipeline<Document, String> pipeline;
+        try {
+            pipeline = new OrderedPipeline<>(documents, concurrency,
+                    document -> addDocumentAsync(schemaName, document.getId(), document.getContent()), _executor,
+                    (index, document, docID, error) -> consumer.accept(new BulkResult(index, docID, error)),
+                    checkpoint);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return pipeline.start();
     }
 
     /**
@@ -723,15 +1437,19 @@ public class ChainConnector {
      * @throws IllegalArgumentException if schemaName or docID is null or empty
      */
     public void updateDocument(String schemaName, String docID, String docContent) throws Exception {
+        await(updateDocumentAsync(schemaName, docID, docContent));
+    }
+
+    public CompletableFuture<Void> updateDocumentAsync(String schemaName, String docID, String docContent) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new IllegalArgumentException("schema name required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("schema name required"));
         }
         if (docID == null || docID.isEmpty()) {
-            throw new IllegalArgumentException("document ID required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("document ID required"));
         }
-        String url = mapToDomain("/schemas/" + schemaName + "/docs/" + docID);
+        String path = "/schemas/" + schemaName + "/docs/" + docID;
         contentRequest payload = new contentRequest(docContent);
-        doRequestWithPayload(RequestMethod.PUT, url, payload);
+        return invalidateDocument(schemaName, docID, () -> doRequestWithPayloadAsync(RequestMethod.PUT, path, payload));
     }
 
     /**
@@ -744,18 +1462,23 @@ public class ChainConnector {
      */
     public void updateDocumentProperty(String schemaName, String docID, String propertyName, PropertyType valueType,
                                        Object value) throws Exception {
+        await(updateDocumentPropertyAsync(schemaName, docID, propertyName, valueType, value));
+    }
+
+    public CompletableFuture<Void> updateDocumentPropertyAsync(String schemaName, String docID, String propertyName,
+                                                               PropertyType valueType, Object value) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
         if (docID == null || docID.isEmpty()) {
-            throw new Exception("document ID required");
+            return CompletableFuture.failedFuture(new Exception("document ID required"));
         }
         if (propertyName == null || propertyName.isEmpty()) {
-            throw new Exception("property name required");
+            return CompletableFuture.failedFuture(new Exception("property name required"));
         }
-        String url = mapToDomain("/schemas/" + schemaName + "/docs/" + docID + "/properties/" + propertyName);
+        String path = "/schemas/" + schemaName + "/docs/" + docID + "/properties/" + propertyName;
         propertyRequest payload = new propertyRequest(valueType, value);
-        doRequestWithPayload(RequestMethod.PUT, url, payload);
+        return invalidateDocument(schemaName, docID, () -> doRequestWithPayloadAsync(RequestMethod.PUT, path, payload));
     }
 
 
@@ -767,40 +1490,50 @@ public class ChainConnector {
      * @throws Exception if any error occurs
      */
     public void removeDocument(String schemaName, String docID) throws Exception {
+        await(removeDocumentAsync(schemaName, docID));
+    }
+
+    public CompletableFuture<Void> removeDocumentAsync(String schemaName, String docID) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
         if (docID == null || docID.isEmpty()) {
-            throw new Exception("document ID required");
+            return CompletableFuture.failedFuture(new Exception("document ID required"));
         }
-        String url = mapToDomain("/schemas/" + schemaName + "/docs/" + docID);
-        doRequest(RequestMethod.DELETE, url);
+        String path = "/schemas/" + schemaName + "/docs/" + docID;
+        return invalidateDocument(schemaName, docID, () -> doRequestAsync(RequestMethod.DELETE, path));
     }
 
     public LogRecords getDocumentLogs(String schemaName, String docID) throws Exception {
+        return await(getDocumentLogsAsync(schemaName, docID));
+    }
+
+    public CompletableFuture<LogRecords> getDocumentLogsAsync(String schemaName, String docID) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
         if (docID == null || docID.isEmpty()) {
-            throw new Exception("document ID required");
+            return CompletableFuture.failedFuture(new Exception("document ID required"));
         }
 
-        final String url = mapToDomain("/schemas/" + schemaName + "/docs/" + docID + "/logs/");
-        logRecordsResponse resp = fetchResponse(RequestMethod.GET, url, logRecordsResponse.class);
-        return resp.getData();
+        final String path = "/schemas/" + schemaName + "/docs/" + docID + "/logs/";
+        return fetchResponseAsync(RequestMethod.GET, path, LogRecords.class);
     }
 
     public List<ActorPrivileges> getDocumentActors(String schemaName, String docID) throws Exception {
+        return await(getDocumentActorsAsync(schemaName, docID));
+    }
+
+    public CompletableFuture<List<ActorPrivileges>> getDocumentActorsAsync(String schemaName, String docID) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new Exception("schema name required");
+            return CompletableFuture.failedFuture(new Exception("schema name required"));
         }
         if (docID == null || docID.isEmpty()) {
-            throw new Exception("document ID required");
+            return CompletableFuture.failedFuture(new Exception("document ID required"));
         }
 
-        final String url = mapToDomain("/schemas/" + schemaName + "/docs/" + docID + "/actors/");
-        actorsResponse resp = fetchResponse(RequestMethod.GET, url, actorsResponse.class);
-        return resp.getData();
+        final String path = "/schemas/" + schemaName + "/docs/" + docID + "/actors/";
+        return fetchResponseAsync(RequestMethod.GET, path, actorListType);
     }
 
     /**
@@ -811,26 +1544,33 @@ public class ChainConnector {
      * @param actors     list of actor privileges
      */
     public void updateDocumentActors(String schemaName, String docID, List<ActorPrivileges> actors) throws Exception {
+        await(updateDocumentActorsAsync(schemaName, docID, actors));
+    }
+
+    public CompletableFuture<Void> updateDocumentActorsAsync(String schemaName, String docID, List<ActorPrivileges> actors) {
         if (schemaName == null || schemaName.isEmpty()) {
-            throw new IllegalArgumentException("Schema name is required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Schema name is required"));
         }
         if (docID == null || docID.isEmpty()) {
-            throw new IllegalArgumentException("Document ID is required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Document ID is required"));
         }
         if (actors == null || actors.isEmpty()) {
-            throw new IllegalArgumentException("Actor privileges list is required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Actor privileges list is required"));
         }
-        final String url = mapToDomain("/schemas/" + schemaName + "/docs/" + docID + "/actors/");
+        final String path = "/schemas/" + schemaName + "/docs/" + docID + "/actors/";
         final actorsRequest payload = new actorsRequest(actors);
-        doRequestWithPayload(RequestMethod.PUT, url, payload);
+        return doRequestWithPayloadAsync(RequestMethod.PUT, path, payload);
     }
 
     public ContractRecords queryContracts(int queryStart, int maxRecord) throws Exception {
-        final String url = mapToDomain("/contracts/");
+        return await(queryContractsAsync(queryStart, maxRecord));
+    }
+
+    public CompletableFuture<ContractRecords> queryContractsAsync(int queryStart, int maxRecord) {
+        final String path = "/contracts/";
 
         final paginationRequest condition = new paginationRequest(queryStart, maxRecord);
-        final contractRecordsResponse response = fetchResponseWithPayload(RequestMethod.POST, url, condition, contractRecordsResponse.class);
-        return response.getData();
+        return fetchResponseWithPayloadAsync(RequestMethod.POST, path, condition, ContractRecords.class);
     }
 
     /**
@@ -841,21 +1581,28 @@ public class ChainConnector {
      * @throws Exception if contract name is not provided
      */
     public boolean hasContract(String contractName) throws Exception {
+        return await(hasContractAsync(contractName));
+    }
+
+    public CompletableFuture<Boolean> hasContractAsync(String contractName) {
         if (contractName == null || contractName.isEmpty()) {
-            throw new Exception("contract name required");
+            return CompletableFuture.failedFuture(new Exception("contract name required"));
         }
-        String url = mapToDomain("/contracts/" + contractName);
-        return peekRequest(RequestMethod.HEAD, url);
+        String path = "/contracts/" + contractName;
+        return peekRequestAsync(RequestMethod.HEAD, path);
     }
 
     public ContractDefine getContract(String contractName) throws Exception {
+        return await(getContractAsync(contractName));
+    }
+
+    public CompletableFuture<ContractDefine> getContractAsync(String contractName) {
         if (contractName == null || contractName.isEmpty()) {
-            throw new Exception("contract name required");
+            return CompletableFuture.failedFuture(new Exception("contract name required"));
         }
-        String url = this.mapToDomain("/contracts/" + contractName);
-        contractResponse resp = this.fetchResponse(RequestMethod.GET, url, contractResponse.class);
-        ContractDefine define = compactJSONMarshaller.fromJson(resp.getData().getContent(), ContractDefine.class);
-        return define;
+        String path = "/contracts/" + contractName;
+        return this.fetchResponseAsync(RequestMethod.GET, path, contractData.class)
+                .thenApply(data -> compactJSONMarshaller.fromJson(data.getContent(), ContractDefine.class));
     }
 
     /**
@@ -865,20 +1612,28 @@ public class ChainConnector {
      * @param {ContractDefine} define contract define
      */
     public void deployContract(String contractName, ContractDefine define) throws Exception {
+        await(deployContractAsync(contractName, define));
+    }
+
+    public CompletableFuture<Void> deployContractAsync(String contractName, ContractDefine define) {
         if (contractName == null || contractName.isEmpty()) {
-            throw new IllegalArgumentException("contract name required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("contract name required"));
         }
-        String url = mapToDomain("/contracts/" + contractName);
+        String path = "/contracts/" + contractName;
         contentRequest payload = new contentRequest(compactJSONMarshaller.toJson(define));
-        doRequestWithPayload(RequestMethod.PUT, url, payload);
+        return doRequestWithPayloadAsync(RequestMethod.PUT, path, payload);
     }
 
     public void withdrawContract(String contractName) throws Exception {
+        await(withdrawContractAsync(contractName));
+    }
+
+    public CompletableFuture<Void> withdrawContractAsync(String contractName) {
         if (contractName == null || contractName.isEmpty()) {
-            throw new Exception("contract name required");
+            return CompletableFuture.failedFuture(new Exception("contract name required"));
         }
-        String url = mapToDomain("/contracts/" + contractName);
-        doRequest(RequestMethod.DELETE, url);
+        String path = "/contracts/" + contractName;
+        return doRequestAsync(RequestMethod.DELETE, path);
     }
 
     /**
@@ -888,12 +1643,16 @@ public class ChainConnector {
      * @param {List<String>} parameters parameters for invoking contract
      */
     public void callContract(String contractName, List<String> parameters) throws Exception {
+        await(callContractAsync(contractName, parameters));
+    }
+
+    public CompletableFuture<Void> callContractAsync(String contractName, List<String> parameters) {
         if (contractName == null || contractName.isEmpty()) {
-            throw new Exception("contract name required");
+            return CompletableFuture.failedFuture(new Exception("contract name required"));
         }
-        String url = this.mapToDomain("/contracts/" + contractName + "/sessions/");
+        String path = "/contracts/" + contractName + "/sessions/";
         parametersRequest payload = new parametersRequest(parameters);
-        doRequestWithPayload(RequestMethod.POST, url, payload);
+        return doRequestWithPayloadAsync(RequestMethod.POST, path, payload);
     }
 
     /**
@@ -902,12 +1661,16 @@ public class ChainConnector {
      * @param contractName contract name
      */
     public void enableContractTrace(String contractName) throws Exception {
+        await(enableContractTraceAsync(contractName));
+    }
+
+    public CompletableFuture<Void> enableContractTraceAsync(String contractName) {
         if (contractName == null || contractName.isEmpty()) {
-            throw new IllegalArgumentException("contract name required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("contract name required"));
         }
-        String url = mapToDomain("/contracts/" + contractName + "/trace/");
+        String path = "/contracts/" + contractName + "/trace/";
         flagRequest payload = new flagRequest(true);
-        doRequestWithPayload(RequestMethod.PUT, url, payload);
+        return doRequestWithPayloadAsync(RequestMethod.PUT, path, payload);
     }
 
     /**
@@ -916,12 +1679,16 @@ public class ChainConnector {
      * @param contractName contract name
      */
     public void disableContractTrace(String contractName) throws Exception {
+        await(disableContractTraceAsync(contractName));
+    }
+
+    public CompletableFuture<Void> disableContractTraceAsync(String contractName) {
         if (contractName == null || contractName.isEmpty()) {
-            throw new IllegalArgumentException("contract name required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("contract name required"));
         }
-        String url = mapToDomain("/contracts/" + contractName + "/trace/");
+        String path = "/contracts/" + contractName + "/trace/";
         flagRequest payload = new flagRequest(false);
-        doRequestWithPayload(RequestMethod.PUT, url, payload);
+        return doRequestWithPayloadAsync(RequestMethod.PUT, path, payload);
     }
 
     /**
@@ -932,43 +1699,48 @@ public class ChainConnector {
      * @throws Exception if contract name is not provided or API call fails
      */
     public ContractInfo getContractInfo(String contractName) throws Exception {
+        return await(getContractInfoAsync(contractName));
+    }
+
+    public CompletableFuture<ContractInfo> getContractInfoAsync(String contractName) {
         if (contractName == null || contractName.isEmpty()) {
-            throw new Exception("contract name required");
+            return CompletableFuture.failedFuture(new Exception("contract name required"));
         }
-        String url = this.mapToDomain("/contracts/" + contractName + "/info/");
-        contractInfoResponse resp = this.fetchResponse(RequestMethod.GET, url, contractInfoResponse.class);
-        return resp.getData();
+        String path = "/contracts/" + contractName + "/info/";
+        return this.fetchResponseAsync(RequestMethod.GET, path, ContractInfo.class);
     }
 
     public List<ActorPrivileges> getContractActors(String contractName) throws Exception {
+        return await(getContractActorsAsync(contractName));
+    }
+
+    public CompletableFuture<List<ActorPrivileges>> getContractActorsAsync(String contractName) {
         if (contractName == null || contractName.isEmpty()) {
-            throw new Exception("contract name required");
+            return CompletableFuture.failedFuture(new Exception("contract name required"));
         }
 
-        String url = mapToDomain("/contracts/" + contractName + "/actors/");
-        actorsResponse resp = fetchResponse(RequestMethod.GET, url, actorsResponse.class);
-        return resp.getData();
+        String path = "/contracts/" + contractName + "/actors/";
+        return fetchResponseAsync(RequestMethod.GET, path, actorListType);
     }
 
     public void updateContractActors(String contractName, List<ActorPrivileges> actors) throws Exception {
+        await(updateContractActorsAsync(contractName, actors));
+    }
+
+    public CompletableFuture<Void> updateContractActorsAsync(String contractName, List<ActorPrivileges> actors) {
         if (contractName == null || contractName.isEmpty()) {
-            throw new IllegalArgumentException("Contract name is required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Contract name is required"));
         }
         if (actors == null || actors.isEmpty()) {
-            throw new IllegalArgumentException("Actor privileges list is required");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Actor privileges list is required"));
         }
-        final String url = mapToDomain("/contracts/" + contractName + "/actors/");
+        final String path = "/contracts/" + contractName + "/actors/";
         final actorsRequest payload = new actorsRequest(actors);
-        doRequestWithPayload(RequestMethod.PUT, url, payload);
+        return doRequestWithPayloadAsync(RequestMethod.PUT, path, payload);
     }
 
 
     //private methods below
-    private PrivateKey generatePrivateKey(byte[] privateKeyBytes) {
-        EdDSANamedCurveSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
-        return new EdDSAPrivateKey(new EdDSAPrivateKeySpec(privateKeyBytes, spec));
-    }
-
     private String newNonce() {
         final int nonceLength = 16;
         boolean useLetters = true;
@@ -976,28 +1748,522 @@ public class ChainConnector {
         return RandomStringUtils.random(nonceLength, useLetters, useNumbers);
     }
 
-    private String base64Signature(Object obj) throws SignatureException,
-            InvalidKeyException, InvalidAlgorithmParameterException {
-        String payload = compactJSONMarshaller.toJson(obj);
+    /**
+     * Allocate a new session on a gateway node without publishing it
+     */
+    private CompletableFuture<Session> allocateSessionAsync(GatewayNode node) {
+        final String apiBase = node.getEndpoint().getAPIBase();
+        final String nonce = newNonce();
+        final String signatureAlgorithm = _signer.getAlgorithm();
+        String timestamp = _timestampClock.now();
+
+        initialSignatureFormat signaturePayload = new initialSignatureFormat();
+        signaturePayload.access = _accessID;
+        signaturePayload.timestamp = timestamp;
+        signaturePayload.nonce = nonce;
+        signaturePayload.signature_algorithm = signatureAlgorithm;
+        HttpRequest request;
+        try {
+            //generate signature
+            String signature = base64Signature(node.getSession().getSessionID(), signaturePayload);
+
+            //generate request payload
+            requestFormat requestPayload = new requestFormat();
+            requestPayload.id = _accessID;
+            requestPayload.nonce = nonce;
+
+            headerNames names = _headerNames;
+            ArrayList<Pair<String, String>> headers = new ArrayList<>();
+            headers.add(Pair.of(names.timestamp, timestamp));
+            headers.add(Pair.of(names.signatureAlgorithm, signatureAlgorithm));
+            headers.add(Pair.of(names.signature, signature));
+            request = rawRequest(RequestMethod.POST, apiBase + "/sessions/", headers, requestPayload);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return this.<SessionData>getResultAsync(node, null, request, SessionData.class).thenApply(data ->
+                new Session(apiBase, node.getDomain(), _accessID, nonce, signatureAlgorithm, data));
+    }
+
+    private void onSessionAllocated(GatewayNode node, Session session) {
+        if (this._trace) {
+            System.out.printf("<Chain-DEBUG> [%s]: new session allocated on %s\n", session.getSessionID(), node.getEndpoint());
+            System.out.printf("<Chain-DEBUG> [%s]: session timeout in %d second(s)\n", session.getSessionID(), session.getTimeout());
+            System.out.printf("<Chain-DEBUG> [%s]: local address %s\n", session.getSessionID(), session.getLocalIP());
+        }
+        if (_keepAlive) {
+            scheduleKeepAlive();
+        }
+    }
+
+    /**
+     * @return session of the first connected node, or an unconnected session
+     */
+    private Session primarySession() {
+        for (GatewayNode node : _nodes) {
+            Session session = node.getSession();
+            if (session.isConnected()) {
+                return session;
+            }
+        }
+        return _unconnected;
+    }
+
+    /**
+     * Select a node by balance policy from two random candidates
+     *
+     * @param exclude node not selected, or null
+     * @return node selected, an unavailable node when none available, or null when no node to select
+     */
+    private GatewayNode selectNode(GatewayNode exclude) {
+        final GatewayNode[] nodes = _nodes;
+        final int count = nodes.length;
+        if (0 == count) {
+            return null;
+        } else if (1 == count) {
+            return nodes[0] == exclude ? null : nodes[0];
+        }
+        final BalancePolicy policy = _balancePolicy;
+        final int offset = ThreadLocalRandom.current().nextInt(count);
+        GatewayNode selected = null;
+        double selectedScore = 0;
+        int candidates = 0;
+        for (int i = 0; i < count && candidates < 2; i++) {
+            GatewayNode node = nodes[(offset + i) % count];
+            if (node == exclude || !node.isAvailable()) {
+                continue;
+            }
+            candidates++;
+            double score = node.score(policy);
+            if (null == selected || score < selectedScore) {
+                selected = node;
+                selectedScore = score;
+            }
+        }
+        if (null != selected) {
+            return selected;
+        }
+        //all ejected, try any connected
+        for (int i = 0; i < count; i++) {
+            GatewayNode node = nodes[(offset + i) % count];
+            if (node != exclude && node.getSession().isConnected()) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private boolean isCurrentNode(GatewayNode node) {
+        for (GatewayNode current : _nodes) {
+            if (current == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replace a stale session of node, concurrent callers share a single reallocation
+     *
+     * @param node  node of session
+     * @param stale session rejected or expired
+     * @return current session if already replaced, or the new one
+     */
+    private CompletableFuture<Session> renewSessionAsync(GatewayNode node, Session stale) {
+        final AtomicReference<Session> reference = node.sessionReference();
+        final AtomicReference<CompletableFuture<Session>> pendingReference = node.renewingReference();
+        while (true) {
+            Session current = reference.get();
+            if (current != stale) {
+                return CompletableFuture.completedFuture(current);
+            }
+            CompletableFuture<Session> pending = pendingReference.get();
+            if (null != pending) {
+                return pending;
+            }
+            CompletableFuture<Session> renewing = new CompletableFuture<>();
+            if (!pendingReference.compareAndSet(null, renewing)) {
+                continue;
+            }
+            if (reference.get() != stale) {
+                //replaced between check and claim
+                pendingReference.set(null);
+                renewing.complete(reference.get());
+                return renewing;
+            }
+            if (this._trace) {
+                System.out.printf("<Chain-DEBUG> [%s]: session expired, reconnecting\n", stale.getSessionID());
+            }
+            allocateSessionAsync(node).whenComplete((session, e) -> {
+                if (null == e) {
+                    if (reference.compareAndSet(stale, session)) {
+                        onSessionAllocated(node, session);
+                    } else {
+                        session = reference.get();
+                    }
+                }
+                pendingReference.set(null);
+                if (null == e) {
+                    renewing.complete(session);
+                } else {
+                    renewing.completeExceptionally(e);
+                }
+            });
+            return renewing;
+        }
+    }
+
+    /**
+     * Invoke with a node selected and its session, send to another node when failed to connect
+     */
+    private <T> CompletableFuture<T> withSession(BiFunction<GatewayNode, Session, CompletableFuture<T>> call) {
+        return withSession(selectNode(null), call);
+    }
+
+    private <T> CompletableFuture<T> withSession(GatewayNode node,
+                                                 BiFunction<GatewayNode, Session, CompletableFuture<T>> call) {
+        if (null == node) {
+            return call.apply(null, _unconnected);
+        }
+        CompletableFuture<T> first = withNodeSession(node, call);
+        return cancelWith(first.exceptionallyCompose(e -> {
+            Throwable cause = unwrapCompletion(e);
+            GatewayNode other;
+            if (!isUndelivered(cause) || null == (other = selectNode(node))) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            return withNodeSession(other, call);
+        }), first);
+    }
+
+    /**
+     * Invoke an idempotent read, and send a duplicate when not completed in time if hedging enabled
+     */
+    private <T> CompletableFuture<T> hedgedAsync(BiFunction<GatewayNode, Session, CompletableFuture<T>> call) {
+        final Hedger hedger = _hedger;
+        final GatewayNode primaryNode = selectNode(null);
+        if (null == hedger || null == primaryNode) {
+            return withSession(primaryNode, call);
+        }
+        final long delayNanos = hedger.begin();
+        final long begin = System.nanoTime();
+        final CompletableFuture<T> primary = withSession(primaryNode, call);
+        if (delayNanos < 0) {
+            //collecting samples
+            return cancelWith(primary.whenComplete((value, e) -> {
+                if (null == e) {
+                    hedger.record(System.nanoTime() - begin);
+                }
+            }), primary);
+        }
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicReference<CompletableFuture<T>> duplicate = new AtomicReference<>();
+        //attempts in flight, failure reported when all failed
+        final AtomicInteger attempts = new AtomicInteger(1);
+        primary.whenComplete((value, e) -> {
+            if (null == e) {
+                hedger.record(System.nanoTime() - begin);
+                if (result.complete(value)) {
+                    cancelAttempt(duplicate.get());
+                }
+            } else if (0 == attempts.decrementAndGet()) {
+                result.completeExceptionally(unwrapCompletion(e));
+            }
+        });
+        final Executor executor = _executor;
+        //timer thread is shared by all connectors, the duplicate is prepared and signed on executor
+        final ScheduledFuture<?> timer = SessionKeeper.delay(() -> CompletableFuture.runAsync(() -> {
+            if (result.isDone() || !hedger.tryHedge()) {
+                return;
+            }
+            int current;
+            do {
+                current = attempts.get();
+                if (0 == current) {
+                    return;
+                }
+            } while (!attempts.compareAndSet(current, current + 1));
+            GatewayNode node = selectNode(primaryNode);
+            if (null == node) {
+                node = primaryNode;
+            }
+            final long hedgeBegin = System.nanoTime();
+            CompletableFuture<T> hedge = withSession(node, call);
+            duplicate.set(hedge);
+            hedge.whenComplete((value, e) -> {
+                if (null == e) {
+                    hedger.record(System.nanoTime() - hedgeBegin);
+                    if (result.complete(value)) {
+                        hedger.onHedgeWon();
+                        cancelAttempt(primary);
+                    }
+                } else if (0 == attempts.decrementAndGet()) {
+                    result.completeExceptionally(unwrapCompletion(e));
+                }
+            });
+            if (result.isDone()) {
+                cancelAttempt(hedge);
+            }
+        }, executor), Math.max(1, delayNanos / 1_000_000));
+        result.whenComplete((value, e) -> {
+            timer.cancel(false);
+            if (result.isCancelled()) {
+                cancelAttempt(primary);
+                cancelAttempt(duplicate.get());
+            }
+        });
+        return result;
+    }
+
+    private static void cancelAttempt(CompletableFuture<?> attempt) {
+        if (null != attempt && !attempt.isDone()) {
+            attempt.cancel(true);
+        }
+    }
+
+    /**
+     * Cancel the inner future when the outer one cancelled, such as aborting HTTP exchange of a dependent stage
+     */
+    private static <T> CompletableFuture<T> cancelWith(CompletableFuture<T> outer, CompletableFuture<?> inner) {
+        outer.whenComplete((value, e) -> {
+            if (outer.isCancelled()) {
+                inner.cancel(true);
+            }
+        });
+        return outer;
+    }
+
+    /**
+     * Invoke with the current session of node, renew it before sending when expired, or when gateway
+     * rejects it and retry once
+     */
+    private <T> CompletableFuture<T> withNodeSession(GatewayNode node,
+                                                     BiFunction<GatewayNode, Session, CompletableFuture<T>> call) {
+        final Session session = node.getSession();
+        if (!session.isConnected()) {
+            return call.apply(node, session);
+        }
+        if (session.isExpired()) {
+            return renewSessionAsync(node, session).thenCompose(renewed -> call.apply(node, renewed));
+        }
+        CompletableFuture<T> first = call.apply(node, session);
+        return cancelWith(first.exceptionallyCompose(e -> {
+            Throwable cause = unwrapCompletion(e);
+            if (!(cause instanceof SessionRejectedException)) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            return renewSessionAsync(node, session).thenCompose(renewed -> call.apply(node, renewed));
+        }), first);
+    }
+
+    private static boolean isIdempotent(RequestMethod method) {
+        return RequestMethod.GET == method || RequestMethod.HEAD == method || RequestMethod.PUT == method ||
+                RequestMethod.DELETE == method;
+    }
+
+    /**
+     * Invoke attempts of a request until succeed or given up by retry policy
+     *
+     * @param idempotent request is idempotent
+     * @param attempt    send an attempt of request
+     */
+    private <T> CompletableFuture<T> withRetry(boolean idempotent, Supplier<CompletableFuture<T>> attempt) {
+        final RetryPolicy policy = _retryPolicy;
+        if (null == policy) {
+            return attempt.get();
+        }
+        policy.onRequest();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        runAttempt(policy, idempotent, attempt, 1, result, current);
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) {
+                cancelAttempt(current.get());
+            }
+        });
+        return result;
+    }
+
+    private <T> void runAttempt(RetryPolicy policy, boolean idempotent, Supplier<CompletableFuture<T>> attempt,
+                                int attempts, CompletableFuture<T> result,
+                                AtomicReference<CompletableFuture<T>> current) {
+        CompletableFuture<T> sending = attempt.get();
+        current.set(sending);
+        sending.whenComplete((value, e) -> {
+            if (null == e) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrapCompletion(e);
+            if (result.isDone()) {
+                return;
+            }
+            long delay = policy.retryDelay(attempts, cause, idempotent || isUndelivered(cause));
+            if (delay < 0) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (this._trace) {
+                System.out.printf("<Chain-DEBUG> attempt %d failed: %s, retry in %d ms\n", attempts,
+                        cause.getMessage(), delay);
+            }
+            //timer thread is shared by all connectors, the attempt is prepared and signed on executor
+            final Executor executor = _executor;
+            SessionKeeper.delay(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    executor.execute(() -> {
+                        if (!result.isDone()) {
+                            runAttempt(policy, idempotent, attempt, attempts + 1, result, current);
+                        }
+                    });
+                } catch (RejectedExecutionException rejected) {
+                    rejected.addSuppressed(cause);
+                    result.completeExceptionally(rejected);
+                }
+            }, delay);
+        });
+    }
+
+    static Throwable unwrapCompletion(Throwable e) {
+        if (e instanceof CompletionException && null != e.getCause()) {
+            return e.getCause();
+        }
+        return e;
+    }
+
+    /**
+     * @return true when request never reached gateway
+     */
+    private static boolean isUndelivered(Throwable e) {
+        return e instanceof ConnectException || e instanceof HttpConnectTimeoutException;
+    }
+
+    private CompletableFuture<Void> activateNodeAsync(GatewayNode node) {
+        return withNodeSession(node, (target, session) -> this.<Void>sendAsync(target, session, RequestMethod.PUT,
+                session.mapToAPI("/sessions/"), null, null).thenRun(() -> {
+            if (this._trace) {
+                System.out.printf("<Chain-DEBUG> [%s]: keep alive\n", session.getSessionID());
+            }
+        }));
+    }
+
+    private void scheduleProbe(GatewayNode node) {
+        long delay = node.nextProbeDelay();
+        if (this._trace) {
+            System.out.printf("<Chain-DEBUG> gateway %s ejected, probe in %d ms\n", node.getEndpoint(), delay);
+        }
+        SessionKeeper.delay(() -> probe(node), delay);
+    }
+
+    /**
+     * Check chain status on an ejected node, allocate session first when not connected yet
+     */
+    private void probe(GatewayNode node) {
+        if (!isCurrentNode(node)) {
+            //connected to another cluster
+            return;
+        }
+        final Session session = node.getSession();
+        CompletableFuture<Session> connecting;
+        if (session.isConnected()) {
+            connecting = CompletableFuture.completedFuture(session);
+        } else {
+            connecting = allocateSessionAsync(node).thenApply(allocated -> {
+                if (node.sessionReference().compareAndSet(session, allocated)) {
+                    onSessionAllocated(node, allocated);
+                }
+                return node.getSession();
+            });
+        }
+        connecting.thenCompose(ignore -> withNodeSession(node, (target, current) ->
+                        this.<ChainStatus>sendAsync(target, current, RequestMethod.GET, current.mapToDomain("/status"),
+                                null, ChainStatus.class)))
+                .whenComplete((status, e) -> {
+                    if (null == e) {
+                        if (this._trace) {
+                            System.out.printf("<Chain-DEBUG> gateway %s recovered\n", node.getEndpoint());
+                        }
+                    } else if (node.isEjected()) {
+                        scheduleProbe(node);
+                    } else if (node.eject()) {
+                        //answered but status unavailable
+                        scheduleProbe(node);
+                    }
+                });
+    }
+
+    private void scheduleKeepAlive() {
+        long periodMillis = 0;
+        for (GatewayNode node : _nodes) {
+            Session session = node.getSession();
+            if (session.isConnected() && session.getTimeout() > 0) {
+                long period = Math.max(session.getTimeout() * 1000L / 3, 100);
+                periodMillis = 0 == periodMillis ? period : Math.min(periodMillis, period);
+            }
+        }
+        if (0 == periodMillis) {
+            return;
+        }
+        ScheduledFuture<?> previous = _keepAliveTask.getAndSet(SessionKeeper.schedule(this, periodMillis));
+        if (null != previous) {
+            previous.cancel(false);
+        }
+        if (!_keepAlive) {
+            //disabled concurrently
+            cancelKeepAlive();
+        }
+    }
+
+    private void cancelKeepAlive() {
+        ScheduledFuture<?> task = _keepAliveTask.getAndSet(null);
+        if (null != task) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * Invoked by {@link SessionKeeper}, activate sessions of nodes idle for a period
+     */
+    void keepAlive(long periodMillis) {
+        for (GatewayNode node : _nodes) {
+            final Session session = node.getSession();
+            if (!session.isConnected() || node.isEjected() || session.getIdleMillis() < periodMillis) {
+                continue;
+            }
+            activateNodeAsync(node).exceptionally(e -> {
+                if (this._trace) {
+                    System.out.printf("<Chain-DEBUG> [%s]: keep alive fail: %s\n", session.getSessionID(), e.getMessage());
+                }
+                return null;
+            });
+        }
+    }
+
+    private String base64Signature(String sessionID, Object obj) throws GeneralSecurityException {
+        byte[] contentBytes = compactJSONMarshaller.toJson(obj).getBytes(StandardCharsets.UTF_8);
+        return base64Signature(sessionID, contentBytes, contentBytes.length);
+    }
+
+    private String base64Signature(String sessionID, byte[] content, int length) throws GeneralSecurityException {
         if (_trace) {
-            System.out.printf("<Chain-DEBUG> [%s]: signature payload\n%s\n", _sessionID, compactJSONMarshaller.toJson(payload));
-        }
-        byte[] contentBytes = payload.getBytes(StandardCharsets.UTF_8);
-        EdDSAEngine engine = new EdDSAEngine();
-        engine.initSign(_privateKey);
-        engine.setParameter(EdDSAEngine.ONE_SHOT_MODE);
-        engine.update(contentBytes);
-        byte[] signed = engine.sign();
+            String payload = new String(content, 0, length, StandardCharsets.UTF_8);
+            System.out.printf("<Chain-DEBUG> [%s]: signature payload\n%s\n", sessionID, compactJSONMarshaller.toJson(payload));
+        }
+        long begin = System.nanoTime();
+        byte[] signed = _signer.sign(content, 0, length);
+        _signatureMetrics.record(System.nanoTime() - begin);
         String signature = Base64.getEncoder().encodeToString(signed);
         if (this._trace) {
-            System.out.printf("<Chain-DEBUG> [%s]: signature: \n%s\n", _sessionID, signature);
+            System.out.printf("<Chain-DEBUG> [%s]: signature: \n%s\n", sessionID, signature);
         }
         return signature;
     }
 
-    private <T extends responseStatus> T rawRequest(RequestMethod method, String path, List<Pair<String, String>> headers,
-                                                    Object payload, Class<T> classofT) throws Exception {
-        final String url = mapToAPI(path);
+    private HttpRequest rawRequest(RequestMethod method, String url, List<Pair<String, String>> headers,
+                                   Object payload) throws Exception {
         HttpRequest.Builder builder = HttpRequest.newBuilder(new URI(url));
         builder.timeout(Duration.ofMillis(_requestTimeout));
         builder.setHeader(Constants.HEADER_CONTENT_TYPE, Constants.CONTENT_TYPE_JSON);
@@ -1012,133 +2278,295 @@ public class ChainConnector {
             builder.header(header.getKey(), header.getValue());
         }
         builder.headers("Pragma", "no-cache", "Cache-Control", "no-cache");
-        HttpRequest request = builder.build();
-        return getResult(request, classofT);
+        return builder.build();
+    }
+
+    private CompletableFuture<Void> doRequestAsync(RequestMethod method, String path) {
+        return doRequestWithPayloadAsync(method, path, null);
     }
 
-    private void doRequest(RequestMethod method, String url) throws Exception {
-        HttpRequest request = prepareRequest(method, url, null);
-        validateResult(request);
+    private CompletableFuture<Void> doRequestWithPayloadAsync(RequestMethod method, String path, Object payload) {
+        return fetchResponseWithPayloadAsync(method, path, payload, null);
     }
 
-    private void doRequestWithPayload(RequestMethod method, String url, Object payload) throws Exception {
-        HttpRequest request = prepareRequest(method, url, payload);
-        validateResult(request);
+    private <T> CompletableFuture<T> fetchResponseAsync(RequestMethod method, String path, Class<T> classOfT) {
+        return fetchResponseWithPayloadAsync(method, path, null, (Type) classOfT);
     }
 
-    private <T extends responseStatus> T fetchResponse(RequestMethod method, String url, Class<T> classofT) throws Exception {
-        HttpRequest request = prepareRequest(method, url, null);
-        return getResult(request, classofT);
+    private <T> CompletableFuture<T> fetchResponseAsync(RequestMethod method, String path, Type typeOfT) {
+        return fetchResponseWithPayloadAsync(method, path, null, typeOfT);
     }
 
-    private <T extends responseStatus> T fetchResponseWithPayload(RequestMethod method, String url, Object payload, Class<T> classofT) throws Exception {
-        HttpRequest request = prepareRequest(method, url, payload);
-        return getResult(request, classofT);
+    private <T> CompletableFuture<T> fetchResponseWithPayloadAsync(RequestMethod method, String path,
+                                                                   Object payload, Class<T> classOfT) {
+        return fetchResponseWithPayloadAsync(method, path, payload, (Type) classOfT);
     }
 
-    private void validateResult(HttpRequest request) throws Exception {
-        parseResponse(request, responseBase.class);
+    /**
+     * Send request to a path relative to the current domain, address and credentials
+     * are taken from the same session snapshot
+     */
+    private <T> CompletableFuture<T> fetchResponseWithPayloadAsync(RequestMethod method, String path,
+                                                                   Object payload, Type typeOfT) {
+        final String requestClass = requestClassOf(method, path);
+        return withRetry(isIdempotent(method), () -> withSession((node, session) -> limitedAsync(requestClass,
+                timeout -> sendAsync(node, session, method, session.mapToDomain(path), payload, typeOfT, timeout))));
     }
 
-    private <T extends responseStatus> T getResult(HttpRequest request, Class<T> classofT) throws Exception {
-        return parseResponse(request, classofT);
+    /**
+     * Send an idempotent request, hedged when enabled
+     */
+    private <T> CompletableFuture<T> fetchIdempotentAsync(RequestMethod method, String path, Object payload,
+                                                          Class<T> classOfT) {
+        final String requestClass = requestClassOf(method, path);
+        return withRetry(true, () -> hedgedAsync((node, session) -> limitedAsync(requestClass, timeout ->
+                sendAsync(node, session, method, session.mapToDomain(path), payload, (Type) classOfT, timeout))));
     }
 
-    private <T extends responseStatus> T parseResponse(HttpRequest request, Class<T> classofT) throws Exception {
-        HttpResponse<String> resp = fetch(request);
-        if (200 != resp.statusCode()) {
-            throw new Exception(String.format("fetch result failed with status %d", resp.statusCode()));
+    /**
+     * Class of request for the concurrency limiter, by method, resource and depth of path, such as
+     * "GET blocks/2" for a block and "GET blocks/4" for a transaction, so IDs in path make no new class
+     */
+    static String requestClassOf(RequestMethod method, String path) {
+        int begin = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', begin);
+        String resource = end < 0 ? path.substring(begin) : path.substring(begin, end);
+        int depth = 0;
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                depth++;
+            }
         }
-        var responseContent = resp.body();
-        //check
-        int errorCode = JsonPath.read(responseContent, "$.error_code");
-        if (0 != errorCode){
-            String errorMessage = JsonPath.read(responseContent, "$.message");
-            throw new Exception(String.format("fetch failed: %s", errorMessage));
+        return method + " " + resource + "/" + depth;
+    }
+
+    /**
+     * Send when admitted by the concurrency limiter, the time queued is deducted from the request timeout
+     *
+     * @param requestClass class of request, round trips only compared within the same class
+     * @param send         send request with the remaining timeout in milliseconds
+     */
+    private <T> CompletableFuture<T> limitedAsync(String requestClass, LongFunction<CompletableFuture<T>> send) {
+        final ConcurrencyLimiter limiter = _limiter;
+        final long timeout = _requestTimeout;
+        if (null == limiter) {
+            return send.apply(timeout);
+        }
+        final long begin = System.nanoTime();
+        final CompletableFuture<ConcurrencyLimiter.Permit> admission = limiter.acquireAsync(requestClass, timeout);
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicReference<CompletableFuture<T>> sending = new AtomicReference<>();
+        admission.whenComplete((permit, e) -> {
+            if (null != e) {
+                result.completeExceptionally(unwrapCompletion(e));
+                return;
+            }
+            final long remaining = timeout - (System.nanoTime() - begin) / 1_000_000;
+            if (remaining <= 0) {
+                permit.release();
+                result.completeExceptionally(new TimeoutException(
+                        String.format("queued over %d ms for concurrency limit", timeout)));
+                return;
+            }
+            CompletableFuture<T> attempt = send.apply(remaining);
+            sending.set(attempt);
+            attempt.whenComplete((value, failure) -> {
+                if (null == failure) {
+                    permit.onSuccess();
+                    result.complete(value);
+                    return;
+                }
+                Throwable cause = unwrapCompletion(failure);
+                if (ConcurrencyLimiter.isOverload(cause)) {
+                    permit.onDropped();
+                } else {
+                    permit.release();
+                }
+                result.completeExceptionally(cause);
+            });
+            if (result.isCancelled()) {
+                cancelAttempt(attempt);
+            }
+        });
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) {
+                admission.cancel(false);
+                cancelAttempt(sending.get());
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> sendAsync(GatewayNode node, Session session, RequestMethod method, String url,
+                                               Object payload, Type typeOfT) {
+        return sendAsync(node, session, method, url, payload, typeOfT, _requestTimeout);
+    }
+
+    private <T> CompletableFuture<T> sendAsync(GatewayNode node, Session session, RequestMethod method, String url,
+                                               Object payload, Type typeOfT, long timeoutMillis) {
+        HttpRequest request;
+        try {
+            request = prepareRequest(session, method, url, payload, timeoutMillis);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
         }
-        return compactJSONMarshaller.fromJson(resp.body(), classofT);
+        return getResultAsync(node, session, request, typeOfT);
+    }
+
+    /**
+     * Send request without blocking, the response is parsed on the connector executor
+     * instead of the selector thread of the HTTP client
+     */
+    private <T> CompletableFuture<T> getResultAsync(GatewayNode node, Session session, HttpRequest request,
+                                                    Type typeOfT) {
+        CompletableFuture<HttpResponse<byte[]>> exchange = exchangeAsync(node, request,
+                HttpResponse.BodyHandlers.ofByteArray());
+        return cancelWith(exchange.thenApplyAsync(resp -> {
+            try {
+                T result = parseResponse(resp, typeOfT);
+                if (null != session) {
+                    session.touch();
+                }
+                return result;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, _executor), exchange);
+    }
+
+    private <T> T parseResponse(HttpResponse<byte[]> resp, Type typeOfT) throws Exception {
+        return responseDecoder.decode(resp.statusCode(), resp.body(), typeOfT);
+    }
+
+    private CompletableFuture<Boolean> peekRequestAsync(RequestMethod method, String path) {
+        final String requestClass = requestClassOf(method, path);
+        return withRetry(true, () -> withSession((node, session) -> limitedAsync(requestClass, timeout -> {
+            HttpRequest request;
+            try {
+                request = prepareRequest(session, method, session.mapToDomain(path), null, timeout);
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<HttpResponse<Void>> exchange = exchangeAsync(node, request,
+                    HttpResponse.BodyHandlers.discarding());
+            return cancelWith(exchange.thenApply(resp -> {
+                if (401 == resp.statusCode()) {
+                    throw new CompletionException(new SessionRejectedException(
+                            String.format("fetch result failed with status %d", resp.statusCode()), 0, resp.statusCode()));
+                }
+                return 200 == resp.statusCode();
+            }), exchange);
+        })));
     }
 
-    private Boolean peekRequest(RequestMethod method, String url) throws IOException,
-            NoSuchAlgorithmException, URISyntaxException, InterruptedException, SignatureException,
-            InvalidKeyException, InvalidAlgorithmParameterException {
-        HttpRequest request = prepareRequest(method, url, null);
-        HttpResponse<String> resp = fetch(request);
-        return 200 == resp.statusCode();
+    /**
+     * Send request to a node, and account the result in health of node
+     */
+    private <R> CompletableFuture<HttpResponse<R>> exchangeAsync(GatewayNode node, HttpRequest request,
+                                                                 HttpResponse.BodyHandler<R> handler) {
+        if (null == node) {
+            return _client.sendAsync(request, handler);
+        }
+        final long begin = node.begin();
+        CompletableFuture<HttpResponse<R>> sending = _client.sendAsync(request, handler);
+        return cancelWith(sending.whenComplete((resp, e) -> {
+            if (null == e && resp.statusCode() < 500) {
+                node.succeed(begin);
+            } else if (sending.isCancelled() || unwrapCompletion(e) instanceof CancellationException) {
+                node.release();
+            } else if (node.fail()) {
+                scheduleProbe(node);
+            }
+        }), sending);
     }
 
-    private HttpResponse<String> fetch(HttpRequest request) throws IOException, InterruptedException {
-        return _client.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Wait for an asynchronous result, failure is unwrapped and thrown as the original exception
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
     }
 
-    private HttpRequest prepareRequest(RequestMethod method, String url, Object payload) throws MalformedURLException,
-            NoSuchAlgorithmException, URISyntaxException, UnsupportedEncodingException, SignatureException,
-            InvalidKeyException, InvalidAlgorithmParameterException {
+    private HttpRequest prepareRequest(Session session, RequestMethod method, String url, Object payload,
+                                       long timeoutMillis)
+            throws MalformedURLException, URISyntaxException, UnsupportedEncodingException, GeneralSecurityException {
         URL urlObject = new URL(url);
-        Date now = new Date();
-
-        SimpleDateFormat RFC3339 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
-        String timestamp = RFC3339.format(now);
-        requestSignatureFormat signaturePayload = new requestSignatureFormat();
-        signaturePayload.id = _sessionID;
-        signaturePayload.method = method.toString().toUpperCase();
-        signaturePayload.url = urlObject.getPath();
-        signaturePayload.access = _accessID;
-        signaturePayload.timestamp = timestamp;
-        signaturePayload.nonce = _nonce;
-        signaturePayload.signature_algorithm = Constants.SIGNATURE_METHOD_ED25519;
+        String timestamp = _timestampClock.now();
+        final String methodName = method.toString();
+        final String sessionID = session.getSessionID();
+        final boolean trace = _trace;
 
         HttpRequest.Builder builder = HttpRequest.newBuilder().uri(new URI(url));
-        builder.timeout(Duration.ofMillis(_requestTimeout));
-        String bodyPayload;
+        builder.timeout(Duration.ofMillis(timeoutMillis));
+        final boolean hashRequired = method == RequestMethod.POST || method == RequestMethod.PUT ||
+                method == RequestMethod.DELETE || method == RequestMethod.PATCH;
+        //serialize body into UTF-8 bytes and hash in a single pass, the same bytes are sent
+        PayloadBuffer body = null;
+        byte[] hash = null;
+        if (null != payload || hashRequired) {
+            body = new PayloadBuffer();
+            HashingBodyWriter writer = new HashingBodyWriter(body);
+            if (null != payload) {
+                compactJSONMarshaller.toJson(payload, writer);
+            }
+            hash = writer.finish();
+        }
         if (null != payload) {
             //has payload
             builder.setHeader(Constants.HEADER_CONTENT_TYPE, Constants.CONTENT_TYPE_JSON);
-            bodyPayload = compactJSONMarshaller.toJson(payload);
-            if (_trace){
-                System.out.printf("<Chain-DEBUG> [%s]: request payload: \n%s\n", _sessionID, bodyPayload);
+            if (trace){
+                System.out.printf("<Chain-DEBUG> [%s]: request payload: \n%s\n", sessionID,
+                        new String(body.array(), 0, body.size(), StandardCharsets.UTF_8));
             }
-            builder.method(signaturePayload.method, HttpRequest.BodyPublishers.ofString(bodyPayload));
+            builder.method(methodName, HttpRequest.BodyPublishers.ofByteArray(body.array(), 0, body.size()));
         } else {
-            bodyPayload = "";
-            builder.method(signaturePayload.method, HttpRequest.BodyPublishers.noBody());
+            builder.method(methodName, HttpRequest.BodyPublishers.noBody());
         }
 
-        if (method == RequestMethod.POST || method == RequestMethod.PUT || method == RequestMethod.DELETE || method == RequestMethod.PATCH) {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-//            byte[] hash = digest.digest(bodyPayload.getBytes(StandardCharsets.UTF_8));
-            byte[] rawInput = bodyPayload.getBytes();
-            if (_trace) {
-                System.out.printf("<Chain-DEBUG> [%s]: body payload\n%s\n", _sessionID, Hex.encodeHexString(rawInput));
+        String bodyHash;
+        if (hashRequired) {
+            if (trace) {
+                System.out.printf("<Chain-DEBUG> [%s]: body payload\n%s\n", sessionID,
+                        Hex.encodeHexString(Arrays.copyOf(body.array(), body.size())));
+                System.out.printf("<Chain-DEBUG> [%s]: body hash\n%s\n", sessionID, Hex.encodeHexString(hash));
             }
-            byte[] hash = digest.digest(rawInput);
-            if (_trace) {
-                System.out.printf("<Chain-DEBUG> [%s]: body hash\n%s\n", _sessionID, Hex.encodeHexString(hash));
-            }
-            signaturePayload.body = new String(Base64.getEncoder().encode(hash), StandardCharsets.US_ASCII);
+            bodyHash = new String(Base64.getEncoder().encode(hash), StandardCharsets.US_ASCII);
         } else {
-            signaturePayload.body = "";
+            bodyHash = "";
+        }
+        String signature;
+        PayloadBuffer signaturePayload = PayloadBuffer.acquire();
+        try {
+            session.getPayloadWriter().write(signaturePayload, methodName, urlObject.getPath(), bodyHash, timestamp);
+            signature = base64Signature(sessionID, signaturePayload.array(), signaturePayload.size());
+        } finally {
+            PayloadBuffer.release(signaturePayload);
         }
-        String signature = base64Signature(signaturePayload);
+        headerNames names = _headerNames;
         builder.headers(
                 "Pragma", "no-cache",
                 "Cache-Control", "no-cache",
-                headerNameSession, _sessionID,
-                headerNameTimestamp, timestamp,
-                headerNameSignatureAlgorithm, Constants.SIGNATURE_METHOD_ED25519,
-                headerNameSignature, signature);
+                names.session, sessionID,
+                names.timestamp, timestamp,
+                names.signatureAlgorithm, _signer.getAlgorithm(),
+                names.signature, signature);
 
         return builder.build();
     }
 
-    private String mapToAPI(String path) {
-        return _apiBase + path;
-    }
-
-    private String mapToDomain(String path) {
-        return _apiBase + "/domains/" + _domain + path;
-    }
-
     private static boolean isHex(String str) {
         final String HEX_PATTERN = "^[0-9a-fA-F]+$";
         if (0 != (str.length() % 2)) {
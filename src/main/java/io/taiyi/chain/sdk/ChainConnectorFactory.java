@@ -0,0 +1,77 @@
+package io.taiyi.chain.sdk;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Create connectors sharing one transport.
+ * <p>
+ * Use a factory when serving many access keys, such as a connector per tenant. All connectors send
+ * requests over the connections of the same {@link ChainTransport}, instead of starting an HTTP client
+ * for each of them. Settings of the factory apply to connectors created afterwards.
+ */
+public class ChainConnectorFactory {
+    private final ChainTransport transport;
+    private String project = Constants.DEFAULT_PROJECT_NAME;
+    private int timeoutInSeconds = Constants.DEFAULT_TIMEOUT_IN_SECONDS;
+    private Executor executor;
+    private boolean trace = false;
+    private boolean keepAlive = false;
+
+    public ChainConnectorFactory() {
+        this(ChainTransport.newBuilder().build());
+    }
+
+    public ChainConnectorFactory(ChainTransport transport) {
+        if (null == transport) {
+            throw new IllegalArgumentException("transport required");
+        }
+        this.transport = transport;
+    }
+
+    public ChainTransport getTransport() {
+        return transport;
+    }
+
+    public synchronized void setProject(String projectName) {
+        this.project = projectName;
+    }
+
+    public synchronized void setTimeout(int timeoutInSeconds) {
+        this.timeoutInSeconds = timeoutInSeconds;
+    }
+
+    public synchronized void setExecutor(Executor executor) {
+        if (null == executor) {
+            throw new IllegalArgumentException("executor required");
+        }
+        this.executor = executor;
+    }
+
+    public synchronized void setTrace(boolean flag) {
+        this.trace = flag;
+    }
+
+    public synchronized void setKeepAlive(boolean enabled) {
+        this.keepAlive = enabled;
+    }
+
+    public ChainConnector NewConnectorFromAccess(AccessKey key) throws Exception {
+        return NewConnector(key.getPrivateData().getId(), ChainConnector.decodePrivateKey(key));
+    }
+
+    public ChainConnector NewConnector(String accessID, byte[] privateKey) {
+        return NewConnector(accessID, RequestSigner.newEd25519Signer(privateKey));
+    }
+
+    public synchronized ChainConnector NewConnector(String accessID, RequestSigner signer) {
+        ChainConnector connector = new ChainConnector(accessID, signer, transport);
+        connector.setProject(project);
+        connector.setTimeout(timeoutInSeconds);
+        if (null != executor) {
+            connector.setExecutor(executor);
+        }
+        connector.setTrace(trace);
+        connector.setKeepAlive(keepAlive);
+        return connector;
+    }
+}
@@ -0,0 +1,31 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Failure reported by gateway, with the error code of response and the HTTP status
+ */
+public class ChainException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final int errorCode;
+    private final int statusCode;
+
+    public ChainException(String message, int errorCode, int statusCode) {
+        super(message);
+        this.errorCode = errorCode;
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * @return error code in response, 0 when not answered with an error code
+     */
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * @return HTTP status of response
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
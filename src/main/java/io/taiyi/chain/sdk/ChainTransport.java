@@ -0,0 +1,137 @@
+package io.taiyi.chain.sdk;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * HTTP transport shared by connectors.
+ * <p>
+ * A transport owns one {@link HttpClient}, including its selector thread and connection pool. Connectors
+ * created with the same transport multiplex their requests over the same connections, while each of them
+ * keeps its own session and key.
+ * <p>
+ * A transport with virtual threads runs the HTTP client, and by default the response parsing of its
+ * connectors, on virtual threads. Blocking calls of connectors then cost no platform thread when invoked
+ * from virtual threads, so services keep the synchronous API without sizing thread pools.
+ */
+public final class ChainTransport {
+    private static class virtualThreads {
+        //shared by all transports, a virtual thread is created for each task
+        private static final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("chain-virtual-", 0).factory());
+    }
+
+    private final HttpClient client;
+    private final boolean virtualThreadsEnabled;
+
+    private ChainTransport(HttpClient client, boolean virtualThreadsEnabled) {
+        this.client = client;
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * @return true when running on virtual threads
+     */
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    /**
+     * @return default executor of connectors for parsing responses and fan-out requests
+     */
+    Executor getDefaultExecutor() {
+        if (virtualThreadsEnabled) {
+            return virtualThreads.executor;
+        }
+        return ForkJoinPool.commonPool();
+    }
+
+    public static final class Builder {
+        private Executor executor;
+        private Duration connectTimeout;
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private boolean virtualThreadsEnabled = false;
+
+        private Builder() {
+        }
+
+        /**
+         * Set executor of the HTTP client for sending requests and receiving responses
+         *
+         * @param executor executor, a cached thread pool of HttpClient by default
+         * @return this builder
+         */
+        public Builder setExecutor(Executor executor) {
+            if (null == executor) {
+                throw new IllegalArgumentException("executor required");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Set timeout for establishing connections
+         *
+         * @param timeout connect timeout, no timeout by default
+         * @return this builder
+         */
+        public Builder setConnectTimeout(Duration timeout) {
+            if (null == timeout || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("invalid connect timeout " + timeout);
+            }
+            this.connectTimeout = timeout;
+            return this;
+        }
+
+        /**
+         * Set preferred HTTP version, HTTP/2 multiplexes concurrent requests over a single connection
+         *
+         * @param version HTTP version, HTTP/2 by default
+         * @return this builder
+         */
+        public Builder setVersion(HttpClient.Version version) {
+            if (null == version) {
+                throw new IllegalArgumentException("version required");
+            }
+            this.version = version;
+            return this;
+        }
+
+        /**
+         * Run HTTP client and connectors on virtual threads, the executor set by {@link #setExecutor(Executor)}
+         * still takes precedence for HTTP client
+         *
+         * @param enabled enable virtual threads, disabled by default
+         * @return this builder
+         */
+        public Builder setVirtualThreads(boolean enabled) {
+            this.virtualThreadsEnabled = enabled;
+            return this;
+        }
+
+        public ChainTransport build() {
+            HttpClient.Builder builder = HttpClient.newBuilder().version(version);
+            if (null != executor) {
+                builder.executor(executor);
+            } else if (virtualThreadsEnabled) {
+                builder.executor(virtualThreads.executor);
+            }
+            if (null != connectTimeout) {
+                builder.connectTimeout(connectTimeout);
+            }
+            return new ChainTransport(builder.build(), virtualThreadsEnabled);
+        }
+    }
+}
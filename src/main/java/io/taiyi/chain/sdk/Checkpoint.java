@@ -0,0 +1,23 @@
+package io.taiyi.chain.sdk;
+
+import java.io.IOException;
+
+/**
+ * Progress of a bulk operation, so an interrupted one resumes where it left off.
+ * <p>
+ * Progress is the count of leading input items completed, either succeeded or failed. It is saved
+ * periodically, items after the last saved progress are sent again when resumed.
+ */
+public interface Checkpoint {
+    /**
+     * @return count of leading items completed, 0 when nothing saved
+     */
+    long load() throws IOException;
+
+    /**
+     * Save progress
+     *
+     * @param completed count of leading items completed
+     */
+    void save(long completed) throws IOException;
+}
@@ -0,0 +1,375 @@
+package io.taiyi.chain.sdk;
+
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive limit of requests in flight, adjusted by AIMD from measured round trips.
+ * <p>
+ * The limit grows by one for each window of successful requests, and shrinks by the backoff ratio when a
+ * request times out, is throttled by gateway, or takes longer than the tolerance times the minimal round
+ * trip recently observed. Requests over the limit wait in a FIFO queue, so callers are slowed down instead
+ * of piling up on gateway.
+ * <p>
+ * Round trips are only compared within a class of requests, such as reading blocks or querying documents,
+ * since a heavy query taking many times longer than a light read is not a sign of congestion. The minimal
+ * round trip is kept for each class given by {@link #acquireAsync(String, long)}, and classes should be
+ * few, like the method and resource of a request rather than its full path.
+ * <p>
+ * A limiter may be shared by connectors accessing the same gateways, the limit is common to all classes.
+ */
+public final class ConcurrencyLimiter {
+    //samples before the minimal round trip is reset, so it follows a gateway getting slower
+    private static final int RTT_WINDOW = 1000;
+    private static final String DEFAULT_CLASS = "";
+
+    /**
+     * Minimal round trip of a class of requests
+     */
+    private static final class rttWindow {
+        private long minRttNanos = Long.MAX_VALUE;
+        private long windowMinNanos = Long.MAX_VALUE;
+        private int windowSamples = 0;
+
+        /**
+         * @return minimal round trip after sampled
+         */
+        long sample(long rttNanos) {
+            windowMinNanos = Math.min(windowMinNanos, rttNanos);
+            if (++windowSamples >= RTT_WINDOW || Long.MAX_VALUE == minRttNanos) {
+                minRttNanos = windowMinNanos;
+                windowMinNanos = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+            return minRttNanos;
+        }
+    }
+
+    /**
+     * Request queued for a permit
+     */
+    private static final class waiter {
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+        private final String requestClass;
+
+        waiter(String requestClass) {
+            this.requestClass = requestClass;
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double tolerance;
+    private final ArrayDeque<waiter> waiters = new ArrayDeque<>();
+    private final LongAdder dropped = new LongAdder();
+    private double limit;
+    private int inFlight = 0;
+    private final HashMap<String, rttWindow> rttWindows = new HashMap<>();
+    private long lastDecrease = System.nanoTime();
+
+    private ConcurrencyLimiter(Builder builder) {
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.tolerance = builder.tolerance;
+        this.limit = builder.initialLimit;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Check whether a failure indicates gateway overloaded
+     *
+     * @param error failure of request
+     * @return true for timeouts and HTTP status 429 or 503
+     */
+    static boolean isOverload(Throwable error) {
+        if (error instanceof HttpTimeoutException) {
+            return true;
+        }
+        if (error instanceof HttpStatusException) {
+            int status = ((HttpStatusException) error).getStatusCode();
+            return 429 == status || 503 == status;
+        }
+        return false;
+    }
+
+    /**
+     * Acquire a permit, waiting when the limit is reached
+     *
+     * @param timeoutMillis max time waiting in queue, in milliseconds
+     * @return permit, must be released when the request completed
+     * @throws TimeoutException no permit acquired in time
+     */
+    public Permit acquire(long timeoutMillis) throws InterruptedException, TimeoutException {
+        return acquire(DEFAULT_CLASS, timeoutMillis);
+    }
+
+    /**
+     * Acquire a permit for a class of requests, waiting when the limit is reached
+     *
+     * @param requestClass  class of request, round trips only compared within the same class
+     * @param timeoutMillis max time waiting in queue, in milliseconds
+     * @return permit, must be released when the request completed
+     * @throws TimeoutException no permit acquired in time
+     */
+    public Permit acquire(String requestClass, long timeoutMillis) throws InterruptedException, TimeoutException {
+        CompletableFuture<Permit> future = acquireAsync(requestClass, timeoutMillis);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw (TimeoutException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Acquire a permit without blocking
+     *
+     * @param timeoutMillis max time waiting in queue, in milliseconds
+     * @return future completed with a permit when admitted, or failed with {@link TimeoutException};
+     * cancel it to leave the queue
+     */
+    public CompletableFuture<Permit> acquireAsync(long timeoutMillis) {
+        return acquireAsync(DEFAULT_CLASS, timeoutMillis);
+    }
+
+    /**
+     * Acquire a permit for a class of requests without blocking
+     *
+     * @param requestClass  class of request, round trips only compared within the same class
+     * @param timeoutMillis max time waiting in queue, in milliseconds
+     * @return future completed with a permit when admitted, or failed with {@link TimeoutException};
+     * cancel it to leave the queue
+     */
+    public CompletableFuture<Permit> acquireAsync(String requestClass, long timeoutMillis) {
+        if (null == requestClass) {
+            throw new IllegalArgumentException("request class required");
+        }
+        final waiter queued = new waiter(requestClass);
+        synchronized (this) {
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(requestClass));
+            }
+            waiters.addLast(queued);
+        }
+        final ScheduledFuture<?> timer = SessionKeeper.delay(() -> queued.future.completeExceptionally(
+                new TimeoutException(String.format("queued over %d ms for concurrency limit", timeoutMillis))),
+                timeoutMillis);
+        queued.future.whenComplete((permit, e) -> {
+            timer.cancel(false);
+            if (null != e) {
+                synchronized (this) {
+                    waiters.remove(queued);
+                }
+            }
+        });
+        return queued.future;
+    }
+
+    private void onComplete(String requestClass, long beginNanos, long rttNanos, boolean overload) {
+        synchronized (this) {
+            int utilized = inFlight;
+            inFlight--;
+            if (rttNanos >= 0) {
+                long minRttNanos = rttWindows.computeIfAbsent(requestClass, k -> new rttWindow()).sample(rttNanos);
+                if (rttNanos > tolerance * minRttNanos) {
+                    overload = true;
+                }
+            }
+            if (overload) {
+                dropped.increment();
+                //requests sent before the last decrease reflect the old limit
+                if (beginNanos - lastDecrease > 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecrease = System.nanoTime();
+                }
+            } else if (rttNanos >= 0 && utilized * 2 >= limit) {
+                //only grow when the limit is actually used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+        admit();
+    }
+
+    private void admit() {
+        while (true) {
+            waiter queued;
+            synchronized (this) {
+                if (inFlight >= (int) limit || null == (queued = waiters.pollFirst())) {
+                    return;
+                }
+                inFlight++;
+            }
+            if (!queued.future.complete(new Permit(queued.requestClass))) {
+                //timed out or cancelled meanwhile
+                synchronized (this) {
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return current limit of requests in flight
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return requests holding a permit
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return requests waiting for a permit
+     */
+    public synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    /**
+     * @return count of requests timed out, throttled or slowed down, which decreased the limit
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Admission of a request, released exactly once
+     */
+    public final class Permit {
+        private final long begin = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private final String requestClass;
+
+        private Permit(String requestClass) {
+            this.requestClass = requestClass;
+        }
+
+        /**
+         * Release after request succeeded, and sample its round trip
+         */
+        public void onSuccess() {
+            if (released.compareAndSet(false, true)) {
+                onComplete(requestClass, begin, System.nanoTime() - begin, false);
+            }
+        }
+
+        /**
+         * Release after request timed out or throttled, which decreases the limit
+         */
+        public void onDropped() {
+            if (released.compareAndSet(false, true)) {
+                onComplete(requestClass, begin, -1, true);
+            }
+        }
+
+        /**
+         * Release without affecting the limit, such as request cancelled or failed for other reasons
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                onComplete(requestClass, begin, -1, false);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+        private double tolerance = 2;
+
+        private Builder() {
+        }
+
+        /**
+         * Set limit before any request measured
+         *
+         * @param limit initial limit, 20 by default
+         * @return this builder
+         */
+        public Builder setInitialLimit(int limit) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("invalid limit " + limit);
+            }
+            this.initialLimit = limit;
+            return this;
+        }
+
+        /**
+         * Set range of limit
+         *
+         * @param minLimit min limit, 1 by default
+         * @param maxLimit max limit, 200 by default
+         * @return this builder
+         */
+        public Builder setLimitRange(int minLimit, int maxLimit) {
+            if (minLimit <= 0 || maxLimit < minLimit) {
+                throw new IllegalArgumentException(String.format("invalid limit range [%d, %d]", minLimit, maxLimit));
+            }
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Set ratio of limit kept when gateway overloaded
+         *
+         * @param ratio ratio between 0 and 1, 0.9 by default
+         * @return this builder
+         */
+        public Builder setBackoffRatio(double ratio) {
+            if (!(ratio > 0 && ratio < 1)) {
+                throw new IllegalArgumentException("invalid ratio " + ratio);
+            }
+            this.backoffRatio = ratio;
+            return this;
+        }
+
+        /**
+         * Set tolerance of round trip, a request slower than the tolerance times the minimal round trip
+         * decreases the limit
+         *
+         * @param tolerance tolerance greater than 1, 2 by default
+         * @return this builder
+         */
+        public Builder setTolerance(double tolerance) {
+            if (!(tolerance > 1)) {
+                throw new IllegalArgumentException("invalid tolerance " + tolerance);
+            }
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        public ConcurrencyLimiter build() {
+            if (initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException(String.format("initial limit %d out of range [%d, %d]",
+                        initialLimit, minLimit, maxLimit));
+            }
+            return new ConcurrencyLimiter(this);
+        }
+    }
+}
@@ -11,6 +11,8 @@ public class Constants {
     public static final String KEY_ENCODE_METHOD_ED25519_HEX = "ed25519-hex";
     public static final String DEFAULT_KEY_ENCODE_METHOD = KEY_ENCODE_METHOD_ED25519_HEX;
     public static final int DEFAULT_TIMEOUT_IN_SECONDS = 3;
+    public static final int DEFAULT_FETCH_CONCURRENCY = 16;
+    public static final int DEFAULT_PAGE_SIZE = 100;
 }
 
 enum PropertyType {
@@ -0,0 +1,30 @@
+package io.taiyi.chain.sdk;
+
+import java.util.List;
+
+/**
+ * Documents fetched by a multi-get, with the IDs not found
+ */
+public class DocumentBatch {
+    private final List<Document> documents;
+    private final List<String> missing;
+
+    DocumentBatch(List<Document> documents, List<String> missing) {
+        this.documents = documents;
+        this.missing = missing;
+    }
+
+    /**
+     * @return documents found, in the order of requested IDs
+     */
+    public List<Document> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * @return IDs of documents not found, in the order of requested IDs
+     */
+    public List<String> getMissing() {
+        return missing;
+    }
+}
@@ -0,0 +1,384 @@
+package io.taiyi.chain.sdk;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of document contents, bounded by bytes and evicted by W-TinyLFU.
+ * <p>
+ * Documents are cached by {@link ChainConnector#getDocument(String, String)}, and invalidated by the update,
+ * property update and removal of the same connector. Changes made by other processes are only noticed
+ * when validation enabled, which checks the latest version in document logs before using a cached one.
+ * <p>
+ * A cache may be shared by connectors. Entries are kept apart by the chain and access ID of connector, so a
+ * connector never reads documents fetched with the privileges of another access key, nor of another chain,
+ * while a change through any connector invalidates the copies of all access IDs on its chain.
+ * <p>
+ * For working sets too large for heap, an off-heap tier of direct buffers can be enabled. Fetched documents
+ * are written to both tiers, the heap tier keeps the frequently read ones as strings, and documents missed
+ * on heap are decoded from the off-heap tier, or read as UTF-8 views by
+ * {@link #readContent(ChainConnector, String, String, Function)}.
+ */
+public final class DocumentCache {
+    //estimated bytes of key, node and map entry besides contents
+    private static final long ENTRY_OVERHEAD = 96;
+    private static final int EXPECTED_DOCUMENT_SIZE = 1024;
+    static final int UNKNOWN_VERSION = -1;
+
+    static final class entry {
+        private final String content;
+        private final int version;
+
+        entry(String content, int version) {
+            this.content = content;
+            this.version = version;
+        }
+
+        String getContent() {
+            return content;
+        }
+
+        int getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Chain and access ID of a connector, which entries are kept apart by
+     */
+    static final class scope {
+        private final String chain;
+        private final String accessID;
+
+        scope(String chain, String accessID) {
+            this.chain = chain;
+            this.accessID = accessID;
+        }
+
+        String getChain() {
+            return chain;
+        }
+
+        String getAccessID() {
+            return accessID;
+        }
+    }
+
+    /**
+     * Fills of a key in flight, and the last invalidation of key while they are
+     */
+    private static final class pending {
+        private int fills = 0;
+        private long invalidated = 0;
+    }
+
+    private final TinyLfuCache<String, entry> entries;
+    private final OffHeapStore offHeap;
+    private final CacheMetrics metrics = new CacheMetrics();
+    private final long maxBytes;
+    private final long maxOffHeapBytes;
+    private final boolean validated;
+    //sequence of fills and invalidations, a fill is dropped when its key invalidated after it began
+    private long sequence = 0;
+    private long invalidatedAll = 0;
+    //only keys with fills in flight, removed when the last one ends
+    private final HashMap<String, pending> pendingFills = new HashMap<>();
+    //access IDs filled documents of each chain, so a change invalidates the copies of all of them
+    private final HashMap<String, Set<String>> accessIDs = new HashMap<>();
+
+    private DocumentCache(Builder builder) {
+        this.maxBytes = builder.maxBytes;
+        this.maxOffHeapBytes = builder.maxOffHeapBytes;
+        this.validated = builder.validated;
+        if (maxOffHeapBytes > 0) {
+            //evictions and lookups are counted across both tiers
+            this.entries = new TinyLfuCache<>(maxBytes, expectedEntries(maxBytes),
+                    (key, value) -> ENTRY_OVERHEAD + 2L * (key.length() + value.content.length()), new CacheMetrics());
+            this.offHeap = new OffHeapStore(maxOffHeapBytes, builder.slabBytes, metrics);
+            //keep entries still read on heap, when their slab evicted already
+            this.entries.setEvictionListener((key, value) -> {
+                if (!offHeap.contains(key)) {
+                    offHeap.put(key, value.version, value.content);
+                }
+            });
+        } else {
+            this.entries = new TinyLfuCache<>(maxBytes, expectedEntries(maxBytes),
+                    (key, value) -> ENTRY_OVERHEAD + 2L * (key.length() + value.content.length()), metrics);
+            this.offHeap = null;
+        }
+    }
+
+    private static int expectedEntries(long maxBytes) {
+        return (int) Math.min(Integer.MAX_VALUE, maxBytes / EXPECTED_DOCUMENT_SIZE);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    private static String keyOf(String chain, String accessID, String schemaName, String docID) {
+        return chain + '\n' + accessID + '\n' + schemaName + '/' + docID;
+    }
+
+    private static String keyOf(scope owner, String schemaName, String docID) {
+        return keyOf(owner.chain, owner.accessID, schemaName, docID);
+    }
+
+    entry get(scope owner, String schemaName, String docID) {
+        final String key = keyOf(owner, schemaName, docID);
+        entry found = entries.get(key);
+        if (null == offHeap) {
+            return found;
+        }
+        if (null != found) {
+            metrics.recordHit();
+            return found;
+        }
+        final long ticket = beginFill(key);
+        found = offHeap.read(key, view -> new entry(view.getString(), view.getVersion()));
+        if (null == found) {
+            synchronized (this) {
+                endFill(key, ticket);
+            }
+            metrics.recordMiss();
+            return null;
+        }
+        metrics.recordHit();
+        synchronized (this) {
+            if (endFill(key, ticket)) {
+                entries.put(key, found);
+            }
+        }
+        return found;
+    }
+
+    boolean contains(scope owner, String schemaName, String docID) {
+        final String key = keyOf(owner, schemaName, docID);
+        return entries.contains(key) || (null != offHeap && offHeap.contains(key));
+    }
+
+    /**
+     * Read a document cached by a connector without copying it to heap. The reader runs holding the off-heap tier, which
+     * blocks writes of other threads, so it should be short, and the view must not be kept after it returns,
+     * since its slab may be reused by later writes.
+     *
+     * @param connector  connector cached the document
+     * @param schemaName schema name
+     * @param docID      document ID
+     * @param reader     decode the read-only view of content in UTF-8
+     * @return result of reader, or null when not cached off heap
+     */
+    public <T> T readContent(ChainConnector connector, String schemaName, String docID,
+                             Function<ByteBuffer, T> reader) {
+        if (null == offHeap) {
+            return null;
+        }
+        final boolean[] found = {false};
+        T result = offHeap.read(keyOf(connector.getCacheScope(), schemaName, docID), view -> {
+            found[0] = true;
+            return reader.apply(view.getContent());
+        });
+        if (found[0]) {
+            metrics.recordHit();
+        } else {
+            metrics.recordMiss();
+        }
+        return result;
+    }
+
+    /**
+     * Begin filling a document, must be ended by {@link #fill(long, String, String, String, int)}
+     *
+     * @return ticket to fill with, taken before fetching
+     */
+    long beginFill(scope owner, String schemaName, String docID) {
+        synchronized (this) {
+            accessIDs.computeIfAbsent(owner.chain, k -> new HashSet<>()).add(owner.accessID);
+        }
+        return beginFill(keyOf(owner, schemaName, docID));
+    }
+
+    private synchronized long beginFill(String key) {
+        pendingFills.computeIfAbsent(key, k -> new pending()).fills++;
+        return sequence;
+    }
+
+    /**
+     * @return false when key invalidated since the fill began
+     */
+    private boolean endFill(String key, long ticket) {
+        pending fill = pendingFills.get(key);
+        boolean valid = fill.invalidated <= ticket && invalidatedAll <= ticket;
+        if (0 == --fill.fills) {
+            pendingFills.remove(key);
+        }
+        return valid;
+    }
+
+    /**
+     * Cache a fetched document, unless the document invalidated since fetching began
+     *
+     * @param content content fetched, null when fetching failed, which only ends the fill
+     */
+    synchronized void fill(long ticket, scope owner, String schemaName, String docID, String content, int version) {
+        final String key = keyOf(owner, schemaName, docID);
+        if (!endFill(key, ticket) || null == content) {
+            return;
+        }
+        entries.put(key, new entry(content, version));
+        if (null != offHeap) {
+            offHeap.put(key, version, content);
+        }
+    }
+
+    boolean isValidated() {
+        return validated;
+    }
+
+    /**
+     * Remove a document cached by all connectors
+     */
+    public synchronized void invalidate(String schemaName, String docID) {
+        for (Map.Entry<String, Set<String>> chain : accessIDs.entrySet()) {
+            for (String accessID : chain.getValue()) {
+                invalidateKey(keyOf(chain.getKey(), accessID, schemaName, docID));
+            }
+        }
+    }
+
+    /**
+     * Remove copies of a document cached by all access IDs on the chain of connector
+     */
+    synchronized void invalidate(scope owner, String schemaName, String docID) {
+        Set<String> filled = accessIDs.get(owner.chain);
+        if (null == filled) {
+            return;
+        }
+        for (String accessID : filled) {
+            invalidateKey(keyOf(owner.chain, accessID, schemaName, docID));
+        }
+    }
+
+    private void invalidateKey(String key) {
+        pending fill = pendingFills.get(key);
+        if (null != fill) {
+            fill.invalidated = ++sequence;
+        }
+        entries.invalidate(key);
+        if (null != offHeap) {
+            offHeap.remove(key);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidatedAll = ++sequence;
+        entries.invalidateAll();
+        if (null != offHeap) {
+            offHeap.clear();
+        }
+    }
+
+    /**
+     * @return count of documents cached on heap
+     */
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return estimated bytes of documents cached on heap
+     */
+    public long getBytes() {
+        return entries.weight();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return count of documents cached off heap
+     */
+    public int getOffHeapSize() {
+        return null == offHeap ? 0 : offHeap.size();
+    }
+
+    /**
+     * @return bytes of direct buffers allocated off heap
+     */
+    public long getOffHeapBytes() {
+        return null == offHeap ? 0 : offHeap.allocated();
+    }
+
+    public long getMaxOffHeapBytes() {
+        return maxOffHeapBytes;
+    }
+
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    public static final class Builder {
+        private long maxBytes = 64L << 20;
+        private long maxOffHeapBytes = 0;
+        private int slabBytes = 16 << 20;
+        private boolean validated = false;
+
+        private Builder() {
+        }
+
+        /**
+         * Set max bytes of documents cached, estimated by size of strings in memory
+         *
+         * @param maxBytes max bytes, 64 MiB by default
+         * @return this builder
+         */
+        public Builder setMaxBytes(long maxBytes) {
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("invalid max bytes " + maxBytes);
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Enable the off-heap tier of direct buffers, which count against -XX:MaxDirectMemorySize.
+         * Documents larger than a slab are only cached on heap.
+         *
+         * @param maxBytes  max bytes off heap, 0 to disable, disabled by default
+         * @param slabBytes bytes of a slab, the unit of eviction, 16 MiB by default
+         * @return this builder
+         */
+        public Builder setOffHeap(long maxBytes, int slabBytes) {
+            if (maxBytes < 0) {
+                throw new IllegalArgumentException("invalid max bytes " + maxBytes);
+            }
+            if (slabBytes <= 0) {
+                throw new IllegalArgumentException("invalid slab bytes " + slabBytes);
+            }
+            this.maxOffHeapBytes = maxBytes;
+            this.slabBytes = slabBytes;
+            return this;
+        }
+
+        /**
+         * Check latest version of document logs before using a cached document, so changes made by other
+         * connectors or processes are read
+         *
+         * @param validated enable validation, disabled by default
+         * @return this builder
+         */
+        public Builder setValidation(boolean validated) {
+            this.validated = validated;
+            return this;
+        }
+
+        public DocumentCache build() {
+            return new DocumentCache(this);
+        }
+    }
+}
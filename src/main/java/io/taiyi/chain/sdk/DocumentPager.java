@@ -0,0 +1,170 @@
+package io.taiyi.chain.sdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Iterate documents of a query page by page, the next page is fetched while the current one consumed.
+ * <p>
+ * At most two pages are held, the one iterated and the one in flight. Failures of query are thrown as
+ * {@link CompletionException} with the original cause.
+ */
+final class DocumentPager implements Iterator<Document>, AutoCloseable {
+    interface Paging {
+        /**
+         * @param current  condition of the page fetched
+         * @param page     page fetched
+         * @param pageSize documents of a page, as the limit of the first condition
+         * @return condition of the next page, or null when no more pages
+         */
+        QueryCondition next(QueryCondition current, DocumentRecords page, int pageSize);
+    }
+
+    /**
+     * Page by offset, stop when a page is short or the total reached
+     */
+    static final Paging BY_OFFSET = (current, page, pageSize) -> {
+        List<Document> documents = page.getDocuments();
+        int count = null == documents ? 0 : documents.size();
+        if (0 == count || count < current.getLimit()) {
+            return null;
+        }
+        int offset = current.getOffset() + count;
+        if (page.getTotal() > 0 && offset >= page.getTotal()) {
+            return null;
+        }
+        QueryCondition next = copyOf(current);
+        next.setOffset(offset);
+        return next;
+    };
+
+    /**
+     * Page by cursor, the next page starts after the last document. The cursor is the document ID instead
+     * of a value of order property, so documents tied on the order value across pages are neither skipped
+     * nor repeated, as long as gateway orders ties consistently.
+     * <p>
+     * When gateway includes the document at cursor, it is dropped and the following pages request one more
+     * document, so every page still brings a full page of new documents, even when the page size is 1.
+     */
+    static final Paging BY_KEYSET = (current, page, pageSize) -> {
+        List<Document> documents = page.getDocuments();
+        int count = null == documents ? 0 : documents.size();
+        final boolean included = count > 0 && !isEmpty(current.getSince()) &&
+                current.getSince().equals(documents.get(0).getId());
+        if (included) {
+            page.setDocuments(documents.subList(1, count));
+        }
+        //short page, no more documents after it
+        if (0 == count || count < current.getLimit()) {
+            return null;
+        }
+        String last = documents.get(count - 1).getId();
+        if (isEmpty(last)) {
+            return null;
+        }
+        if (last.equals(current.getSince()) && (!included || current.getLimit() > pageSize)) {
+            //no progress made
+            return null;
+        }
+        QueryCondition next = copyOf(current);
+        next.setSince(last);
+        next.setLimit(included ? pageSize + 1 : pageSize);
+        return next;
+    };
+
+    private final Function<QueryCondition, CompletableFuture<DocumentRecords>> query;
+    private final Paging paging;
+    private final int pageSize;
+    private QueryCondition condition;
+    private CompletableFuture<DocumentRecords> pending;
+    private Iterator<Document> current = Collections.emptyIterator();
+    private boolean started = false;
+    private volatile boolean closed = false;
+
+    DocumentPager(Function<QueryCondition, CompletableFuture<DocumentRecords>> query, QueryCondition condition,
+                  Paging paging) {
+        this.query = query;
+        this.condition = condition;
+        this.paging = paging;
+        this.pageSize = condition.getLimit();
+    }
+
+    /**
+     * Copy a condition, so paging never modifies the one of caller
+     */
+    static QueryCondition copyOf(QueryCondition condition) {
+        List<ConditionFilter> filters = null == condition.getFilters() ? new ArrayList<>() :
+                new ArrayList<>(condition.getFilters());
+        return new QueryCondition(filters, condition.getSince(), condition.getOffset(), condition.getLimit(),
+                condition.getOrder(), condition.isDescend());
+    }
+
+    private static boolean isEmpty(String value) {
+        return null == value || value.isEmpty();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (closed) {
+                return false;
+            }
+            if (!started) {
+                started = true;
+                pending = query.apply(condition);
+            }
+            if (null == pending) {
+                return false;
+            }
+            DocumentRecords page = awaitPage(pending);
+            condition = paging.next(condition, page, pageSize);
+            //prefetch before the page consumed
+            pending = null == condition || closed ? null : query.apply(condition);
+            List<Document> documents = page.getDocuments();
+            current = null == documents ? Collections.emptyIterator() : documents.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Document next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    private DocumentRecords awaitPage(CompletableFuture<DocumentRecords> page) {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            pending = null;
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * Stop iterating, and cancel the page in flight
+     */
+    @Override
+    public void close() {
+        closed = true;
+        CompletableFuture<DocumentRecords> prefetching = pending;
+        pending = null;
+        if (null != prefetching) {
+            prefetching.cancel(true);
+        }
+        current = Collections.emptyIterator();
+    }
+}
@@ -0,0 +1,52 @@
+package io.taiyi.chain.sdk;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Checkpoint saved in a file, replaced atomically so a crash never leaves a partial one
+ */
+public class FileCheckpoint implements Checkpoint {
+    private final Path path;
+    private final Path temporary;
+
+    public FileCheckpoint(Path path) {
+        if (null == path) {
+            throw new IllegalArgumentException("path required");
+        }
+        this.path = path;
+        this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    @Override
+    public long load() throws IOException {
+        String content;
+        try {
+            content = new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim();
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(content);
+        } catch (NumberFormatException e) {
+            throw new IOException(String.format("invalid checkpoint '%s' in %s", content, path));
+        }
+    }
+
+    @Override
+    public void save(long completed) throws IOException {
+        Files.write(temporary, Long.toString(completed).getBytes(StandardCharsets.US_ASCII));
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Remove saved progress, such as after the operation completed
+     */
+    public void clear() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
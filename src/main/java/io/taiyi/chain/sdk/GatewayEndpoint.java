@@ -0,0 +1,56 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Address of a gateway node
+ */
+public class GatewayEndpoint {
+    private final String host;
+    private final int port;
+
+    public GatewayEndpoint(String host, int port) {
+        if (null == host || host.isEmpty()) {
+            this.host = Constants.DEFAULT_DOMAIN_HOST;
+        } else {
+            this.host = host;
+        }
+        if (port <= 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("invalid port " + port);
+        }
+        this.port = port;
+    }
+
+    /**
+     * Parse endpoint from "host:port"
+     *
+     * @param address address of gateway
+     * @return endpoint
+     */
+    public static GatewayEndpoint parse(String address) {
+        int index = address.lastIndexOf(':');
+        if (index < 0) {
+            throw new IllegalArgumentException("port omit in " + address);
+        }
+        try {
+            return new GatewayEndpoint(address.substring(0, index), Integer.parseInt(address.substring(index + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid port in " + address);
+        }
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    String getAPIBase() {
+        return "http://" + host + ":" + port + "/api/v" + Constants.API_VERSION;
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,16 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Gateway answered with a non-zero error code, such as validation failures or missing objects
+ */
+public class GatewayException extends ChainException {
+    private static final long serialVersionUID = 1L;
+
+    public GatewayException(String message, int errorCode) {
+        super(message, errorCode, 200);
+    }
+
+    public GatewayException(String message, int errorCode, int statusCode) {
+        super(message, errorCode, statusCode);
+    }
+}
@@ -0,0 +1,143 @@
+package io.taiyi.chain.sdk;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A gateway node of connector, with its own session and health statistics.
+ * <p>
+ * A node is ejected after consecutive transport failures, and not selected until a probe succeeds.
+ * The interval of probing doubles after each failed probe.
+ */
+final class GatewayNode {
+    private static final int EJECT_THRESHOLD = 3;
+    private static final long MIN_EJECT_MILLIS = 1000;
+    private static final long MAX_EJECT_MILLIS = 30_000;
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final GatewayEndpoint endpoint;
+    private final String domain;
+    private final AtomicReference<Session> session;
+    private final AtomicReference<CompletableFuture<Session>> renewing = new AtomicReference<>();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicBoolean ejected = new AtomicBoolean(false);
+    private volatile double latencyNanos = 0;
+    private volatile long ejectMillis = MIN_EJECT_MILLIS;
+
+    GatewayNode(GatewayEndpoint endpoint, String domain, Session unconnected) {
+        this.endpoint = endpoint;
+        this.domain = domain;
+        this.session = new AtomicReference<>(unconnected);
+    }
+
+    GatewayEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    String getDomain() {
+        return domain;
+    }
+
+    Session getSession() {
+        return session.get();
+    }
+
+    AtomicReference<Session> sessionReference() {
+        return session;
+    }
+
+    AtomicReference<CompletableFuture<Session>> renewingReference() {
+        return renewing;
+    }
+
+    /**
+     * @return true when connected and not ejected
+     */
+    boolean isAvailable() {
+        return !ejected.get() && session.get().isConnected();
+    }
+
+    boolean isEjected() {
+        return ejected.get();
+    }
+
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * @return moving average of latency in nanoseconds, 0 before any request completed
+     */
+    double getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    double score(BalancePolicy policy) {
+        if (BalancePolicy.LATENCY_WEIGHTED == policy) {
+            return Math.max(latencyNanos, 1) * (outstanding.get() + 1);
+        }
+        return outstanding.get();
+    }
+
+    /**
+     * Mark a request sent
+     *
+     * @return begin time in nanoseconds
+     */
+    long begin() {
+        outstanding.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Mark a request answered by node
+     */
+    void succeed(long beginNanos) {
+        outstanding.decrementAndGet();
+        double sample = System.nanoTime() - beginNanos;
+        double current = latencyNanos;
+        latencyNanos = 0 == current ? sample : current + (sample - current) * LATENCY_WEIGHT;
+        failures.set(0);
+        if (ejected.compareAndSet(true, false)) {
+            ejectMillis = MIN_EJECT_MILLIS;
+        }
+    }
+
+    /**
+     * Mark a request cancelled before answered, not accounted in health
+     */
+    void release() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Mark a request failed in transport or server
+     *
+     * @return true when node ejected by this failure, and probing should be scheduled
+     */
+    boolean fail() {
+        outstanding.decrementAndGet();
+        return failures.incrementAndGet() >= EJECT_THRESHOLD && eject();
+    }
+
+    /**
+     * Eject node until probed
+     *
+     * @return true when ejected by this call
+     */
+    boolean eject() {
+        return ejected.compareAndSet(false, true);
+    }
+
+    /**
+     * @return delay before next probe in milliseconds, doubled for each call
+     */
+    long nextProbeDelay() {
+        long delay = ejectMillis;
+        ejectMillis = Math.min(delay * 2, MAX_EJECT_MILLIS);
+        return delay;
+    }
+}
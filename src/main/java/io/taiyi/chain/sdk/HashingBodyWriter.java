@@ -0,0 +1,121 @@
+package io.taiyi.chain.sdk;
+
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Writer encoding request body into UTF-8 bytes while updating the SHA-256 hash of body.
+ * <p>
+ * The serializer writes straight into a {@link PayloadBuffer}, which is then sent without copying.
+ * Encoded bytes are hashed in chunks as they are produced, when still hot in cache.
+ */
+final class HashingBodyWriter extends Writer {
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int HASH_CHUNK_SIZE = 8 * 1024;
+    private static final ConcurrentLinkedQueue<MessageDigest> idleDigests = new ConcurrentLinkedQueue<>();
+
+    private final PayloadBuffer buffer;
+    private MessageDigest digest;
+    private int hashedLength = 0;
+    private char pendingHighSurrogate = 0;
+
+    HashingBodyWriter(PayloadBuffer buffer) throws NoSuchAlgorithmException {
+        this.buffer = buffer;
+        MessageDigest idle = idleDigests.poll();
+        if (null == idle) {
+            idle = MessageDigest.getInstance(HASH_ALGORITHM);
+        }
+        this.digest = idle;
+    }
+
+    @Override
+    public void write(int c) {
+        encode((char) c);
+        hashChunk();
+    }
+
+    @Override
+    public void write(char[] content, int offset, int length) {
+        buffer.ensureCapacity(buffer.size() + length);
+        for (int i = offset; i < offset + length; i++) {
+            encode(content[i]);
+        }
+        hashChunk();
+    }
+
+    @Override
+    public void write(String content, int offset, int length) {
+        buffer.ensureCapacity(buffer.size() + length);
+        for (int i = offset; i < offset + length; i++) {
+            encode(content.charAt(i));
+        }
+        hashChunk();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Complete writing and return the hash of written content, the writer is unusable after finished
+     *
+     * @return SHA-256 hash of body
+     */
+    byte[] finish() {
+        if (0 != pendingHighSurrogate) {
+            //malformed surrogate at the end, replaced as String.getBytes does
+            pendingHighSurrogate = 0;
+            buffer.put('?');
+        }
+        digest.update(buffer.array(), hashedLength, buffer.size() - hashedLength);
+        hashedLength = buffer.size();
+        byte[] hash = digest.digest();
+        idleDigests.offer(digest);
+        digest = null;
+        return hash;
+    }
+
+    private void hashChunk() {
+        int unhashed = buffer.size() - hashedLength;
+        if (unhashed >= HASH_CHUNK_SIZE) {
+            digest.update(buffer.array(), hashedLength, unhashed);
+            hashedLength = buffer.size();
+        }
+    }
+
+    private void encode(char c) {
+        if (0 != pendingHighSurrogate) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buffer.put(0xF0 | (codePoint >> 18));
+                buffer.put(0x80 | ((codePoint >> 12) & 0x3F));
+                buffer.put(0x80 | ((codePoint >> 6) & 0x3F));
+                buffer.put(0x80 | (codePoint & 0x3F));
+                return;
+            }
+            buffer.put('?');
+        }
+        if (c < 0x80) {
+            buffer.put(c);
+        } else if (c < 0x800) {
+            buffer.put(0xC0 | (c >> 6));
+            buffer.put(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer.put('?');
+        } else {
+            buffer.put(0xE0 | (c >> 12));
+            buffer.put(0x80 | ((c >> 6) & 0x3F));
+            buffer.put(0x80 | (c & 0x3F));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.taiyi.chain.sdk;
+
+import java.time.Duration;
+
+/**
+ * Policy of hedging idempotent reads.
+ * <p>
+ * A duplicate read is sent, to another gateway node when available, if the original one has not completed
+ * by a percentile of recent read latency. The first success is taken and the other cancelled. Duplicates are
+ * limited to a ratio of reads, so the extra load on gateway is bounded.
+ */
+public final class HedgePolicy {
+    private final double percentile;
+    private final double budget;
+    private final Duration minDelay;
+
+    private HedgePolicy(double percentile, double budget, Duration minDelay) {
+        this.percentile = percentile;
+        this.budget = budget;
+        this.minDelay = minDelay;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    public static final class Builder {
+        private double percentile = 0.95;
+        private double budget = 0.05;
+        private Duration minDelay = Duration.ofMillis(1);
+
+        private Builder() {
+        }
+
+        /**
+         * Set percentile of recent latency to wait before hedging
+         *
+         * @param percentile percentile between 0 and 1, 0.95 by default
+         * @return this builder
+         */
+        public Builder setPercentile(double percentile) {
+            if (!(percentile > 0 && percentile < 1)) {
+                throw new IllegalArgumentException("invalid percentile " + percentile);
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Set max ratio of duplicated reads
+         *
+         * @param budget ratio between 0 and 1, 0.05 by default
+         * @return this builder
+         */
+        public Builder setBudget(double budget) {
+            if (!(budget > 0 && budget <= 1)) {
+                throw new IllegalArgumentException("invalid budget " + budget);
+            }
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * Set minimal delay before hedging
+         *
+         * @param delay min delay, 1 millisecond by default
+         * @return this builder
+         */
+        public Builder setMinDelay(Duration delay) {
+            if (null == delay || delay.isNegative()) {
+                throw new IllegalArgumentException("invalid delay " + delay);
+            }
+            this.minDelay = delay;
+            return this;
+        }
+
+        public HedgePolicy build() {
+            return new HedgePolicy(percentile, budget, minDelay);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.taiyi.chain.sdk;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * State of hedging reads for a connector: recent latency samples and the budget of duplicates.
+ * <p>
+ * Latency is sampled in a fixed ring, the percentile is recomputed every {@link #REFRESH_INTERVAL} samples
+ * instead of each read. The budget is a token bucket, each read deposits a fraction of token, and each
+ * duplicate withdraws a whole one.
+ */
+final class Hedger {
+    private static final int SAMPLE_SIZE = 1024;
+    private static final int MIN_SAMPLES = 32;
+    private static final int REFRESH_INTERVAL = 64;
+    //fixed point of tokens
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final HedgePolicy policy;
+    private final long minDelayNanos;
+    private final long deposit;
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLE_SIZE);
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong tokens = new AtomicLong();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder won = new LongAdder();
+    private volatile long delayNanos = -1;
+
+    Hedger(HedgePolicy policy) {
+        this.policy = policy;
+        this.minDelayNanos = policy.getMinDelay().toNanos();
+        this.deposit = Math.max(1, Math.round(policy.getBudget() * TOKEN));
+    }
+
+    HedgePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Record latency of a successful read
+     */
+    void record(long nanos) {
+        long count = recorded.getAndIncrement();
+        samples.set((int) (count % SAMPLE_SIZE), nanos);
+        count++;
+        if (count >= MIN_SAMPLES && 0 == count % REFRESH_INTERVAL || MIN_SAMPLES == count) {
+            refresh(Math.min(count, SAMPLE_SIZE));
+        }
+    }
+
+    private void refresh(long size) {
+        long[] sorted = new long[(int) size];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(policy.getPercentile() * sorted.length) - 1);
+        delayNanos = Math.max(minDelayNanos, sorted[Math.max(index, 0)]);
+    }
+
+    /**
+     * Deposit budget for a read
+     *
+     * @return delay before hedging in nanoseconds, or -1 when not enough samples collected
+     */
+    long begin() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= MAX_TOKENS) {
+                break;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(MAX_TOKENS, current + deposit)));
+        return delayNanos;
+    }
+
+    /**
+     * Withdraw budget for a duplicate
+     *
+     * @return true when budget allowed
+     */
+    boolean tryHedge() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        hedged.increment();
+        return true;
+    }
+
+    void onHedgeWon() {
+        won.increment();
+    }
+
+    /**
+     * @return count of duplicates sent
+     */
+    long getHedged() {
+        return hedged.sum();
+    }
+
+    /**
+     * @return count of duplicates completed before the original one
+     */
+    long getWon() {
+        return won.sum();
+    }
+}
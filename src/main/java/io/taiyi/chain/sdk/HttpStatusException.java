@@ -0,0 +1,12 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Gateway answered with an unexpected HTTP status
+ */
+public class HttpStatusException extends ChainException {
+    private static final long serialVersionUID = 1L;
+
+    public HttpStatusException(String message, int statusCode) {
+        super(message, 0, statusCode);
+    }
+}
@@ -0,0 +1,46 @@
+package io.taiyi.chain.sdk;
+
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveSpec;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+
+import java.security.InvalidKeyException;
+import java.security.SignatureException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Ed25519 signer based on net.i2p.crypto.eddsa, keeping a lock-free pool of initialized engines.
+ * <p>
+ * The private key is expanded once, and each pooled engine keeps its digest primed with the key prefix
+ * after signing, so a signature costs no engine construction or key initialization.
+ * Engines are pooled instead of bound to threads so that virtual threads share them as well.
+ */
+public final class I2PEd25519Signer implements RequestSigner {
+    private final EdDSAPrivateKey privateKey;
+    private final ConcurrentLinkedQueue<EdDSAEngine> idleEngines = new ConcurrentLinkedQueue<>();
+
+    public I2PEd25519Signer(byte[] privateKeyBytes) {
+        EdDSANamedCurveSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        this.privateKey = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(privateKeyBytes, spec));
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return Constants.SIGNATURE_METHOD_ED25519;
+    }
+
+    @Override
+    public byte[] sign(byte[] content, int offset, int length) throws SignatureException, InvalidKeyException {
+        EdDSAEngine engine = idleEngines.poll();
+        if (null == engine) {
+            engine = new EdDSAEngine();
+            engine.initSign(privateKey);
+        }
+        //engine in unknown state is dropped when signing fails
+        byte[] signed = engine.signOneShot(content, offset, length);
+        idleEngines.offer(engine);
+        return signed;
+    }
+}
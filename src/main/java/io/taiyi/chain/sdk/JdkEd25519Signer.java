@@ -0,0 +1,61 @@
+package io.taiyi.chain.sdk;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.EdECPrivateKeySpec;
+import java.security.spec.NamedParameterSpec;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Ed25519 signer based on the EdDSA provider of JDK (Java 15+), keeping a lock-free pool of initialized
+ * Signature instances.
+ */
+public final class JdkEd25519Signer implements RequestSigner {
+    private static final String ALGORITHM = "Ed25519";
+    private final PrivateKey privateKey;
+    private final ConcurrentLinkedQueue<Signature> idleEngines = new ConcurrentLinkedQueue<>();
+
+    public JdkEd25519Signer(byte[] privateKeyBytes) {
+        try {
+            KeyFactory factory = KeyFactory.getInstance(ALGORITHM);
+            this.privateKey = factory.generatePrivate(new EdECPrivateKeySpec(NamedParameterSpec.ED25519, privateKeyBytes));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Ed25519 not available in JDK", e);
+        }
+    }
+
+    /**
+     * @return true if the JDK provides Ed25519
+     */
+    public static boolean isSupported() {
+        try {
+            Signature.getInstance(ALGORITHM);
+            KeyFactory.getInstance(ALGORITHM);
+            return true;
+        } catch (NoSuchAlgorithmException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return Constants.SIGNATURE_METHOD_ED25519;
+    }
+
+    @Override
+    public byte[] sign(byte[] content, int offset, int length) throws GeneralSecurityException {
+        Signature engine = idleEngines.poll();
+        if (null == engine) {
+            engine = Signature.getInstance(ALGORITHM);
+            engine.initSign(privateKey);
+        }
+        //a signed engine is reset and ready for the same key, but dropped when signing fails
+        engine.update(content, offset, length);
+        byte[] signed = engine.sign();
+        idleEngines.offer(engine);
+        return signed;
+    }
+}
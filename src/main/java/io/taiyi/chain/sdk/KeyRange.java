@@ -0,0 +1,136 @@
+package io.taiyi.chain.sdk;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Split the range of an indexed property into sub-ranges of about the same width
+ */
+final class KeyRange {
+    //chars of string keys interpolated after the common prefix
+    private static final int STRING_DIGITS = 2;
+    private static final int CHAR_RADIX = 0x10000;
+
+    private KeyRange() {
+    }
+
+    /**
+     * @return true when a property of the type can be split
+     */
+    static boolean isSplittable(String type) {
+        return PropertyType.Integer.toString().equals(type) || PropertyType.Float.toString().equals(type) ||
+                PropertyType.Currency.toString().equals(type) || PropertyType.String.toString().equals(type);
+    }
+
+    /**
+     * Split range between the min and max value of property
+     *
+     * @param type       type of property
+     * @param lower      min value
+     * @param upper      max value
+     * @param partitions count of sub-ranges expected
+     * @return boundaries in ascending order, fewer than partitions when the range is too narrow
+     */
+    static List<String> split(String type, String lower, String upper, int partitions) {
+        if (PropertyType.String.toString().equals(type)) {
+            return splitString(lower, upper, partitions);
+        } else if (PropertyType.Integer.toString().equals(type)) {
+            return splitInteger(new BigDecimal(lower).toBigInteger(), new BigDecimal(upper).toBigInteger(),
+                    partitions);
+        } else if (isSplittable(type)) {
+            return splitDecimal(new BigDecimal(lower), new BigDecimal(upper), partitions);
+        }
+        throw new IllegalArgumentException("can't split property of type " + type);
+    }
+
+    private static List<String> splitInteger(BigInteger lower, BigInteger upper, int partitions) {
+        List<String> boundaries = new ArrayList<>();
+        BigInteger width = upper.subtract(lower);
+        BigInteger previous = lower;
+        for (int i = 1; i < partitions; i++) {
+            //round up, so a narrow range still splits into every value
+            BigInteger[] quotient = width.multiply(BigInteger.valueOf(i)).divideAndRemainder(BigInteger.valueOf(partitions));
+            BigInteger boundary = lower.add(quotient[0]);
+            if (quotient[1].signum() > 0) {
+                boundary = boundary.add(BigInteger.ONE);
+            }
+            if (boundary.compareTo(previous) > 0 && boundary.compareTo(upper) <= 0) {
+                boundaries.add(boundary.toString());
+                previous = boundary;
+            }
+        }
+        return boundaries;
+    }
+
+    private static List<String> splitDecimal(BigDecimal lower, BigDecimal upper, int partitions) {
+        List<String> boundaries = new ArrayList<>();
+        BigDecimal width = upper.subtract(lower);
+        BigDecimal previous = lower;
+        for (int i = 1; i < partitions; i++) {
+            BigDecimal boundary = lower.add(width.multiply(BigDecimal.valueOf(i))
+                    .divide(BigDecimal.valueOf(partitions), MathContext.DECIMAL64));
+            if (boundary.compareTo(previous) > 0 && boundary.compareTo(upper) <= 0) {
+                boundaries.add(boundary.stripTrailingZeros().toPlainString());
+                previous = boundary;
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * Interpolate the chars following the common prefix as digits of radix 65536
+     */
+    private static List<String> splitString(String lower, String upper, int partitions) {
+        int prefix = 0;
+        while (prefix < lower.length() && prefix < upper.length() && lower.charAt(prefix) == upper.charAt(prefix)) {
+            prefix++;
+        }
+        long low = digits(lower, prefix);
+        long high = digits(upper, prefix);
+        List<String> boundaries = new ArrayList<>();
+        String previous = lower;
+        for (int i = 1; i < partitions; i++) {
+            long value = low + (high - low) * i / partitions;
+            StringBuilder builder = new StringBuilder(upper.substring(0, prefix));
+            for (int digit = STRING_DIGITS - 1; digit >= 0; digit--) {
+                char c = (char) (value / pow(digit) % CHAR_RADIX);
+                if (Character.isSurrogate(c)) {
+                    //keep boundaries valid strings
+                    c = (char) (Character.MAX_SURROGATE + 1);
+                }
+                builder.append(c);
+            }
+            //trailing zero chars make no difference in order
+            int length = builder.length();
+            while (length > prefix && 0 == builder.charAt(length - 1)) {
+                length--;
+            }
+            String boundary = builder.substring(0, length);
+            if (boundary.compareTo(previous) > 0 && boundary.compareTo(upper) <= 0) {
+                boundaries.add(boundary);
+                previous = boundary;
+            }
+        }
+        return boundaries;
+    }
+
+    private static long digits(String value, int offset) {
+        long result = 0;
+        for (int i = 0; i < STRING_DIGITS; i++) {
+            int index = offset + i;
+            result = result * CHAR_RADIX + (index < value.length() ? value.charAt(index) : 0);
+        }
+        return result;
+    }
+
+    private static long pow(int digit) {
+        long result = 1;
+        for (int i = 0; i < digit; i++) {
+            result *= CHAR_RADIX;
+        }
+        return result;
+    }
+}
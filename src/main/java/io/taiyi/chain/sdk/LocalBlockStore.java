@@ -0,0 +1,583 @@
+package io.taiyi.chain.sdk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent local store of blocks and transactions in append-only memory-mapped segment files.
+ * <p>
+ * Records are appended to the current segment, a segment filled up is followed by a new one, and nothing
+ * is ever rewritten. Blocks are indexed by height and by ID, transactions and transaction lists of blocks
+ * by ID, all in memory and rebuilt by scanning segment headers on open. A block is checked against the
+ * previous_block links of its neighbours before stored, so the store never holds two branches.
+ * <p>
+ * Filled by {@link ChainConnector#getBlock(String)}, {@link ChainConnector#getTransaction(String, String)}
+ * and {@link ChainConnector#queryTransactions(String, int, int)} when set on a connector, which then read
+ * stored blocks without fetching them, asking gateway only for the height of chain. A directory is opened
+ * by one store at a time.
+ * <p>
+ * Record layout: body length (int), CRC32C of body (int), then body of type (byte), height (int),
+ * key length (int), key in UTF-8 and payload. A zero length marks the end of a segment.
+ */
+public final class LocalBlockStore implements AutoCloseable {
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String LOCK_FILE = "store.lock";
+    private static final int PREFIX_SIZE = 8;
+    private static final int BODY_HEADER_SIZE = 9;
+    private static final byte TYPE_BLOCK = 1;
+    private static final byte TYPE_TRANSACTION = 2;
+    private static final byte TYPE_TRANSACTION_LIST = 3;
+    private static final String BLOCK_PREFIX = "b/";
+    private static final String TRANSACTION_PREFIX = "t/";
+    private static final String LIST_PREFIX = "l/";
+    //blocks with transaction lists partially received, the eldest dropped beyond
+    static final int MAX_PENDING_LISTS = 1024;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    //location is segment << 32 | offset of record
+    private final LocationIndex index = new LocationIndex(this::keyEquals);
+    //transaction IDs of blocks received by pages, stored when all received
+    private final LinkedHashMap<String, String[]> pendingLists = new LinkedHashMap<>();
+    private long[] heights = new long[1024];
+    private int highest = 0;
+    private int used = 0;
+    private boolean closed = false;
+
+    private LocalBlockStore(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.segmentBytes = builder.segmentBytes;
+        Arrays.fill(heights, LocationIndex.EMPTY);
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            //opened in this process
+            acquired = null;
+        }
+        if (null == acquired) {
+            lockChannel.close();
+            throw new IOException("block store " + directory + " opened already");
+        }
+        this.lock = acquired;
+        try {
+            load();
+        } catch (IOException e) {
+            lock.release();
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    private static String blockKey(String blockID) {
+        return BLOCK_PREFIX + blockID;
+    }
+
+    private static String transactionKey(String blockID, String transID) {
+        return TRANSACTION_PREFIX + blockID + "/" + transID;
+    }
+
+    private static String listKey(String blockID) {
+        return LIST_PREFIX + blockID;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%08d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        for (int segment = 0; segment < paths.size(); segment++) {
+            Path path = paths.get(segment);
+            if (!path.equals(segmentPath(segment))) {
+                throw new IOException("segment " + segmentPath(segment) + " missing");
+            }
+            MappedByteBuffer buffer = map(path, Files.size(path));
+            segments.add(buffer);
+            //records of the last segment may be torn by a crash
+            used = scan(segment, buffer, segment == paths.size() - 1);
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(segmentPath(0), segmentBytes));
+            used = 0;
+        }
+    }
+
+    /**
+     * Index records of a segment
+     *
+     * @return offset after the last valid record
+     */
+    private int scan(int segment, MappedByteBuffer buffer, boolean verified) {
+        int offset = 0;
+        while (offset + PREFIX_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length < BODY_HEADER_SIZE || offset + PREFIX_SIZE + length > buffer.capacity() ||
+                    (verified && buffer.getInt(offset + 4) != checksum(buffer, offset + PREFIX_SIZE, length))) {
+                break;
+            }
+            indexRecord(segment, buffer, offset);
+            offset += PREFIX_SIZE + length;
+        }
+        if (verified && offset + PREFIX_SIZE <= buffer.capacity()) {
+            //drop a torn record, so it is overwritten by the next one
+            buffer.putInt(offset, 0);
+        }
+        return offset;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private void indexRecord(int segment, ByteBuffer buffer, int offset) {
+        long location = ((long) segment << 32) | offset;
+        String key = keyAt(buffer, offset);
+        int hash = LocationIndex.hashOf(key);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        index.remove(hash, keyBytes);
+        index.insert(hash, location);
+        if (TYPE_BLOCK == buffer.get(offset + PREFIX_SIZE)) {
+            setHeight(buffer.getInt(offset + PREFIX_SIZE + 1), location);
+        }
+    }
+
+    private void setHeight(int height, long location) {
+        if (height >= heights.length) {
+            int capacity = heights.length;
+            while (capacity <= height) {
+                capacity *= 2;
+            }
+            int previous = heights.length;
+            heights = Arrays.copyOf(heights, capacity);
+            Arrays.fill(heights, previous, capacity, LocationIndex.EMPTY);
+        }
+        heights[height] = location;
+        highest = Math.max(highest, height);
+    }
+
+    private static String keyAt(ByteBuffer buffer, int offset) {
+        int keyLength = buffer.getInt(offset + PREFIX_SIZE + 5);
+        return StandardCharsets.UTF_8.decode(buffer.slice(offset + PREFIX_SIZE + BODY_HEADER_SIZE, keyLength))
+                .toString();
+    }
+
+    private boolean keyEquals(long location, byte[] keyBytes) {
+        ByteBuffer buffer = segments.get((int) (location >>> 32));
+        int offset = (int) location;
+        if (buffer.getInt(offset + PREFIX_SIZE + 5) != keyBytes.length) {
+            return false;
+        }
+        return 0 == buffer.slice(offset + PREFIX_SIZE + BODY_HEADER_SIZE, keyBytes.length)
+                .compareTo(ByteBuffer.wrap(keyBytes));
+    }
+
+    /**
+     * @return view of record, or null when key absent
+     */
+    private synchronized ByteBuffer recordOf(String key) {
+        if (closed) {
+            throw new IllegalStateException("block store closed");
+        }
+        long location = index.find(LocationIndex.hashOf(key), key.getBytes(StandardCharsets.UTF_8));
+        if (LocationIndex.EMPTY == location) {
+            return null;
+        }
+        return recordAt(location);
+    }
+
+    private ByteBuffer recordAt(long location) {
+        ByteBuffer buffer = segments.get((int) (location >>> 32));
+        int offset = (int) location;
+        return buffer.slice(offset, PREFIX_SIZE + buffer.getInt(offset));
+    }
+
+    private static ByteBuffer payloadOf(ByteBuffer record) {
+        int payloadOffset = PREFIX_SIZE + BODY_HEADER_SIZE + record.getInt(PREFIX_SIZE + 5);
+        return record.slice(payloadOffset, record.capacity() - payloadOffset);
+    }
+
+    private void append(byte type, int height, String key, ByteBuffer payload) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("block store closed");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = BODY_HEADER_SIZE + keyBytes.length + payload.remaining();
+        if (PREFIX_SIZE + length > segmentBytes) {
+            throw new IOException(String.format("record of %d bytes exceeds segment size %d", length, segmentBytes));
+        }
+        MappedByteBuffer buffer = segments.get(segments.size() - 1);
+        if (used + PREFIX_SIZE + length > buffer.capacity()) {
+            buffer.force();
+            buffer = map(segmentPath(segments.size()), segmentBytes);
+            segments.add(buffer);
+            used = 0;
+        }
+        final int offset = used;
+        final int body = offset + PREFIX_SIZE;
+        buffer.put(body, type)
+                .putInt(body + 1, height)
+                .putInt(body + 5, keyBytes.length)
+                .put(body + BODY_HEADER_SIZE, keyBytes)
+                .put(body + BODY_HEADER_SIZE + keyBytes.length, payload, payload.position(), payload.remaining());
+        buffer.putInt(offset + 4, checksum(buffer, body, length));
+        if (offset + PREFIX_SIZE + length + PREFIX_SIZE <= buffer.capacity()) {
+            //end marker of segment, when reused after a torn record
+            buffer.putInt(offset + PREFIX_SIZE + length, 0);
+        }
+        //length written last, so a record is complete once visible
+        buffer.putInt(offset, length);
+        used = offset + PREFIX_SIZE + length;
+        indexRecord(segments.size() - 1, buffer, offset);
+    }
+
+    /**
+     * Store a block, checked against the links of blocks stored at adjacent heights
+     *
+     * @param block block from gateway
+     * @throws BlockConflictException block conflicts with stored ones
+     * @throws IOException            invalid block, or failed to write
+     */
+    public synchronized void putBlock(BlockData block) throws IOException {
+        final int height = block.getHeight();
+        if (null == block.getId() || block.getId().isEmpty() || height <= 0) {
+            throw new IOException("invalid block " + block.getId() + " at height " + height);
+        }
+        String stored = getBlockID(height);
+        if (null != stored) {
+            if (!stored.equals(block.getId())) {
+                throw new BlockConflictException(String.format("block %s at height %d conflicts with stored block %s",
+                        block.getId(), height, stored));
+            }
+            return;
+        }
+        String previous = getBlockID(height - 1);
+        if (null != previous && !previous.equals(block.getPreviousBlock())) {
+            throw new BlockConflictException(String.format("block %s at height %d links to %s, but stored block is %s",
+                    block.getId(), height, block.getPreviousBlock(), previous));
+        }
+        if (height + 1 < heights.length && LocationIndex.EMPTY != heights[height + 1]) {
+            BlockData next = decodeBlock(recordAt(heights[height + 1]));
+            if (!block.getId().equals(next.getPreviousBlock())) {
+                throw new BlockConflictException(String.format("block %s at height %d links to %s, not block %s",
+                        next.getId(), height + 1, next.getPreviousBlock(), block.getId()));
+            }
+        }
+        PayloadWriter writer = new PayloadWriter();
+        writer.putString(block.getTimestamp());
+        writer.putString(block.getPreviousBlock());
+        writer.putInt(block.getTransactions());
+        writer.putString(block.getContent());
+        append(TYPE_BLOCK, height, blockKey(block.getId()), writer.toBuffer());
+    }
+
+    /**
+     * Store a transaction, ignored when stored already
+     *
+     * @param transaction transaction from gateway
+     */
+    public synchronized void putTransaction(TransactionData transaction) throws IOException {
+        String key = transactionKey(transaction.getBlock(), transaction.getTransaction());
+        if (LocationIndex.EMPTY != index.find(LocationIndex.hashOf(key), key.getBytes(StandardCharsets.UTF_8))) {
+            return;
+        }
+        PayloadWriter writer = new PayloadWriter();
+        writer.putString(transaction.getTimestamp());
+        writer.putInt(transaction.isValidated() ? 1 : 0);
+        writer.putString(transaction.getContent());
+        append(TYPE_TRANSACTION, 0, key, writer.toBuffer());
+    }
+
+    /**
+     * Collect a page of transaction IDs of a block, the list is stored once all pages received
+     *
+     * @param blockID block ID
+     * @param records page of transaction IDs
+     */
+    public synchronized void putTransactionRecords(String blockID, TransactionRecords records) throws IOException {
+        String key = listKey(blockID);
+        String[] page = records.getTransactions();
+        if (null == page || records.getTotal() < 0 ||
+                LocationIndex.EMPTY != index.find(LocationIndex.hashOf(key), key.getBytes(StandardCharsets.UTF_8))) {
+            return;
+        }
+        String[] list = pendingLists.get(blockID);
+        if (null == list || list.length != records.getTotal()) {
+            list = new String[records.getTotal()];
+            pendingLists.put(blockID, list);
+            if (pendingLists.size() > MAX_PENDING_LISTS) {
+                Iterator<String> eldest = pendingLists.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        int offset = records.getOffset();
+        for (int i = 0; i < page.length && offset + i < list.length; i++) {
+            list[offset + i] = page[i];
+        }
+        for (String transID : list) {
+            if (null == transID) {
+                return;
+            }
+        }
+        pendingLists.remove(blockID);
+        PayloadWriter writer = new PayloadWriter();
+        writer.putInt(list.length);
+        for (String transID : list) {
+            writer.putString(transID);
+        }
+        append(TYPE_TRANSACTION_LIST, 0, key, writer.toBuffer());
+    }
+
+    /**
+     * @return stored block, or null when absent
+     */
+    public BlockData getBlock(String blockID) {
+        ByteBuffer record = recordOf(blockKey(blockID));
+        return null == record ? null : decodeBlock(record);
+    }
+
+    /**
+     * @return ID of block stored at height, or null when absent
+     */
+    public synchronized String getBlockID(int height) {
+        if (height <= 0 || height >= heights.length || LocationIndex.EMPTY == heights[height]) {
+            return null;
+        }
+        long location = heights[height];
+        return keyAt(segments.get((int) (location >>> 32)), (int) location).substring(BLOCK_PREFIX.length());
+    }
+
+    /**
+     * @return true when all heights of range stored
+     */
+    public synchronized boolean containsHeights(int beginHeight, int endHeight) {
+        if (beginHeight <= 0 || endHeight >= heights.length) {
+            return false;
+        }
+        for (int height = beginHeight; height <= endHeight; height++) {
+            if (LocationIndex.EMPTY == heights[height]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return highest height stored, 0 when empty
+     */
+    public synchronized int getHighestHeight() {
+        return highest;
+    }
+
+    /**
+     * @return stored transaction, or null when absent
+     */
+    public TransactionData getTransaction(String blockID, String transID) {
+        ByteBuffer record = recordOf(transactionKey(blockID, transID));
+        if (null == record) {
+            return null;
+        }
+        PayloadReader reader = new PayloadReader(payloadOf(record));
+        TransactionData transaction = new TransactionData();
+        transaction.setBlock(blockID);
+        transaction.setTransaction(transID);
+        transaction.setTimestamp(reader.getString());
+        transaction.setValidated(0 != reader.getInt());
+        transaction.setContent(reader.getString());
+        return transaction;
+    }
+
+    /**
+     * @return all transaction IDs of a block in order, or null when not stored
+     */
+    public String[] getTransactionList(String blockID) {
+        ByteBuffer record = recordOf(listKey(blockID));
+        if (null == record) {
+            return null;
+        }
+        PayloadReader reader = new PayloadReader(payloadOf(record));
+        String[] list = new String[reader.getInt()];
+        for (int i = 0; i < list.length; i++) {
+            list[i] = reader.getString();
+        }
+        return list;
+    }
+
+    private static BlockData decodeBlock(ByteBuffer record) {
+        PayloadReader reader = new PayloadReader(payloadOf(record));
+        BlockData block = new BlockData();
+        block.setId(keyAt(record, 0).substring(BLOCK_PREFIX.length()));
+        block.setHeight(record.getInt(PREFIX_SIZE + 1));
+        block.setTimestamp(reader.getString());
+        block.setPreviousBlock(reader.getString());
+        block.setTransactions(reader.getInt());
+        block.setContent(reader.getString());
+        return block;
+    }
+
+    /**
+     * Write stored records to disk
+     */
+    public synchronized void flush() {
+        if (!closed) {
+            segments.get(segments.size() - 1).force();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        segments.clear();
+        index.clear();
+        lock.release();
+        lockChannel.close();
+    }
+
+    /**
+     * Fields of a payload, strings as UTF-8 prefixed by length, -1 for null
+     */
+    private static final class PayloadWriter {
+        private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        private void ensure(int size) {
+            if (buffer.remaining() < size) {
+                ByteBuffer expanded = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+                buffer.flip();
+                expanded.put(buffer);
+                buffer = expanded;
+            }
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putString(String value) {
+            if (null == value) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+        ByteBuffer toBuffer() {
+            return buffer.flip();
+        }
+    }
+
+    private static final class PayloadReader {
+        private final ByteBuffer buffer;
+
+        PayloadReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int getInt() {
+            return buffer.getInt();
+        }
+
+        String getString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            String value = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+    }
+
+    public static final class Builder {
+        private Path directory;
+        private int segmentBytes = 64 << 20;
+
+        private Builder() {
+        }
+
+        /**
+         * @param directory directory of segment files, created when absent
+         * @return this builder
+         */
+        public Builder setDirectory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Set size of new segment files, also the max size of a record
+         *
+         * @param segmentBytes bytes of a segment, 64 MiB by default
+         * @return this builder
+         */
+        public Builder setSegmentBytes(int segmentBytes) {
+            if (segmentBytes < 4096) {
+                throw new IllegalArgumentException("invalid segment bytes " + segmentBytes);
+            }
+            this.segmentBytes = segmentBytes;
+            return this;
+        }
+
+        /**
+         * Open store, records in existing segments are indexed
+         *
+         * @return opened store
+         * @throws IOException failed to open or lock directory
+         */
+        public LocalBlockStore build() throws IOException {
+            if (null == directory) {
+                throw new IllegalArgumentException("directory required");
+            }
+            return new LocalBlockStore(this);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.taiyi.chain.sdk;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing index from keys to locations of records, with linear probing.
+ * <p>
+ * Keys are not kept in index, only an int hash and a long location for each record, a candidate is
+ * confirmed by comparing the key stored in its record. Removal shifts back following slots of the same
+ * probe sequence, so no tombstone is left. Not thread-safe, guarded by the owner.
+ */
+final class LocationIndex {
+    static final long EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Compare the key stored at a location
+     */
+    interface KeyMatcher {
+        boolean matches(long location, byte[] key);
+    }
+
+    private final KeyMatcher matcher;
+    private int[] hashes;
+    private long[] locations;
+    private int size;
+
+    LocationIndex(KeyMatcher matcher) {
+        this.matcher = matcher;
+        clear();
+    }
+
+    static int hashOf(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return location of key, or {@link #EMPTY}
+     */
+    long find(int hash, byte[] key) {
+        int slot = slotOf(hash, key);
+        return slot < 0 ? EMPTY : locations[slot];
+    }
+
+    /**
+     * Add a location, the key must not be indexed already
+     */
+    void insert(int hash, long location) {
+        if ((size + 1) * 2 > locations.length) {
+            resize(locations.length * 2);
+        }
+        final int mask = locations.length - 1;
+        int slot = hash & mask;
+        while (EMPTY != locations[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        locations[slot] = location;
+        size++;
+    }
+
+    /**
+     * @return true when key removed
+     */
+    boolean remove(int hash, byte[] key) {
+        int slot = slotOf(hash, key);
+        if (slot < 0) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    /**
+     * Remove a location if still indexed, without comparing keys
+     *
+     * @return true when location removed
+     */
+    boolean removeLocation(int hash, long location) {
+        final int mask = locations.length - 1;
+        for (int slot = hash & mask; EMPTY != locations[slot]; slot = (slot + 1) & mask) {
+            if (location == locations[slot]) {
+                removeAt(slot);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        hashes = new int[INITIAL_CAPACITY];
+        locations = new long[INITIAL_CAPACITY];
+        Arrays.fill(locations, EMPTY);
+        size = 0;
+    }
+
+    private int slotOf(int hash, byte[] key) {
+        final int mask = locations.length - 1;
+        for (int slot = hash & mask; EMPTY != locations[slot]; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && matcher.matches(locations[slot], key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        int[] oldHashes = hashes;
+        long[] oldLocations = locations;
+        hashes = new int[capacity];
+        locations = new long[capacity];
+        Arrays.fill(locations, EMPTY);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldLocations.length; i++) {
+            if (EMPTY == oldLocations[i]) {
+                continue;
+            }
+            int slot = oldHashes[i] & mask;
+            while (EMPTY != locations[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = oldHashes[i];
+            locations[slot] = oldLocations[i];
+        }
+    }
+
+    private void removeAt(int slot) {
+        final int mask = locations.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; EMPTY != locations[next]; next = (next + 1) & mask) {
+            int home = hashes[next] & mask;
+            //movable when its home is not between the hole and itself
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                hashes[hole] = hashes[next];
+                locations[hole] = locations[next];
+                hole = next;
+            }
+        }
+        locations[hole] = EMPTY;
+        size--;
+    }
+}
@@ -0,0 +1,12 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Target of request not exists, reported by gateway with a not-found error or HTTP status 404
+ */
+public class NotFoundException extends GatewayException {
+    private static final long serialVersionUID = 1L;
+
+    public NotFoundException(String message, int errorCode, int statusCode) {
+        super(message, errorCode, statusCode);
+    }
+}
@@ -0,0 +1,183 @@
+package io.taiyi.chain.sdk;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Store of versioned contents in direct buffers outside the Java heap, bounded by bytes.
+ * <p>
+ * Records are appended to slabs of fixed size, a slab filled up is followed by the next one in a ring.
+ * When the ring is full, the oldest slab is evicted as a whole: its records are removed from index and
+ * the buffer is cleared and reused, so no direct memory is allocated once the ring is full. Records are only
+ * read through {@link #read(String, Function)} holding the store, so no put can reuse the slab of a view
+ * while it is read, and readers keeping content longer must copy it. Records are located by a
+ * {@link LocationIndex}, which lives on heap but holds only an int hash and a long location for each record.
+ * <p>
+ * Record layout: hash (int), key length (int), version (int), content length (int), key and content in UTF-8.
+ */
+final class OffHeapStore {
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Content of a record, as a read-only view of slab, only valid inside {@link #read(String, Function)}
+     */
+    static final class view {
+        private final int version;
+        private final ByteBuffer content;
+
+        view(int version, ByteBuffer content) {
+            this.version = version;
+            this.content = content;
+        }
+
+        int getVersion() {
+            return version;
+        }
+
+        ByteBuffer getContent() {
+            return content;
+        }
+
+        String getString() {
+            return StandardCharsets.UTF_8.decode(content.duplicate()).toString();
+        }
+    }
+
+    private final ByteBuffer[] slabs;
+    private final int[] used;
+    private final int slabBytes;
+    private final CacheMetrics metrics;
+    //location is slab << 32 | offset of record
+    private final LocationIndex index = new LocationIndex(this::keyEquals);
+    private int current = 0;
+
+    /**
+     * @param maxBytes  max bytes of all slabs
+     * @param slabBytes bytes of a slab, also the max size of a record
+     * @param metrics   counters of records evicted
+     */
+    OffHeapStore(long maxBytes, int slabBytes, CacheMetrics metrics) {
+        this.slabBytes = (int) Math.min(slabBytes, maxBytes);
+        int count = (int) Math.min(Integer.MAX_VALUE, (maxBytes + this.slabBytes - 1) / this.slabBytes);
+        this.slabs = new ByteBuffer[count];
+        this.used = new int[count];
+        this.metrics = metrics;
+    }
+
+    /**
+     * Store content of key, replacing the previous one
+     *
+     * @return false when record larger than a slab
+     */
+    synchronized boolean put(String key, int version, String content) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+        long recordSize = (long) HEADER_SIZE + keyBytes.length + contentBytes.length;
+        int hash = LocationIndex.hashOf(key);
+        index.remove(hash, keyBytes);
+        if (recordSize > slabBytes) {
+            return false;
+        }
+        if (null != slabs[current] && used[current] + recordSize > slabBytes) {
+            current = (current + 1) % slabs.length;
+            if (null != slabs[current]) {
+                evictSlab(current);
+            }
+        }
+        if (null == slabs[current]) {
+            slabs[current] = ByteBuffer.allocateDirect(slabBytes);
+        }
+        final ByteBuffer slab = slabs[current];
+        final int offset = used[current];
+        slab.putInt(offset, hash)
+                .putInt(offset + 4, keyBytes.length)
+                .putInt(offset + 8, version)
+                .putInt(offset + 12, contentBytes.length)
+                .put(offset + HEADER_SIZE, keyBytes)
+                .put(offset + HEADER_SIZE + keyBytes.length, contentBytes);
+        used[current] = offset + (int) recordSize;
+        index.insert(hash, ((long) current << 32) | offset);
+        return true;
+    }
+
+    /**
+     * Read content of key holding the store, the view must not escape the reader
+     *
+     * @param reader decode the view to a result
+     * @return result of reader, or null when absent
+     */
+    synchronized <T> T read(String key, Function<view, T> reader) {
+        long location = index.find(LocationIndex.hashOf(key), key.getBytes(StandardCharsets.UTF_8));
+        if (LocationIndex.EMPTY == location) {
+            return null;
+        }
+        ByteBuffer slab = slabs[(int) (location >>> 32)];
+        int offset = (int) location;
+        int keyLength = slab.getInt(offset + 4);
+        int contentLength = slab.getInt(offset + 12);
+        ByteBuffer content = slab.slice(offset + HEADER_SIZE + keyLength, contentLength).asReadOnlyBuffer();
+        return reader.apply(new view(slab.getInt(offset + 8), content));
+    }
+
+    synchronized boolean contains(String key) {
+        return LocationIndex.EMPTY != index.find(LocationIndex.hashOf(key), key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    synchronized void remove(String key) {
+        index.remove(LocationIndex.hashOf(key), key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Remove all records, keeping slabs allocated for reuse
+     */
+    synchronized void clear() {
+        for (ByteBuffer slab : slabs) {
+            if (null != slab) {
+                slab.clear();
+            }
+        }
+        Arrays.fill(used, 0);
+        current = 0;
+        index.clear();
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * @return bytes of slabs allocated
+     */
+    synchronized long allocated() {
+        long bytes = 0;
+        for (ByteBuffer slab : slabs) {
+            if (null != slab) {
+                bytes += slab.capacity();
+            }
+        }
+        return bytes;
+    }
+
+    private boolean keyEquals(long location, byte[] keyBytes) {
+        ByteBuffer slab = slabs[(int) (location >>> 32)];
+        int offset = (int) location;
+        if (slab.getInt(offset + 4) != keyBytes.length) {
+            return false;
+        }
+        return 0 == slab.slice(offset + HEADER_SIZE, keyBytes.length).compareTo(ByteBuffer.wrap(keyBytes));
+    }
+
+    private void evictSlab(int target) {
+        final ByteBuffer slab = slabs[target];
+        for (int offset = 0; offset < used[target]; ) {
+            if (index.removeLocation(slab.getInt(offset), ((long) target << 32) | offset)) {
+                metrics.recordEviction();
+            }
+            offset += HEADER_SIZE + slab.getInt(offset + 4) + slab.getInt(offset + 12);
+        }
+        slab.clear();
+        used[target] = 0;
+    }
+}
@@ -0,0 +1,267 @@
+package io.taiyi.chain.sdk;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Send items pulled from a source with bounded concurrency, and deliver results in input order.
+ * <p>
+ * Items are sent on the executor, so serializing and signing run in parallel. A window of items is
+ * dispatched ahead of the first undelivered one, results completed out of order wait in a ring until
+ * the earlier ones delivered. Progress is saved to the checkpoint every {@link #CHECKPOINT_INTERVAL}
+ * items, on failure and at the end.
+ * <p>
+ * Results are delivered by one thread at a time outside the monitor, a thread completing an item while
+ * another is delivering only stores its result and returns, so a slow sink holds back new dispatches
+ * instead of blocking threads of executor. On failure, items still in flight are cancelled.
+ */
+final class OrderedPipeline<T, R> {
+    static final int CHECKPOINT_INTERVAL = 1000;
+
+    interface Sink<T, R> {
+        /**
+         * Receive result of an item, invoked in input order and never concurrently
+         *
+         * @param error failure of item, result is null when present
+         */
+        void accept(long index, T item, R result, Exception error) throws Exception;
+    }
+
+    private final Iterator<T> source;
+    private final int concurrency;
+    private final Function<T, CompletableFuture<R>> send;
+    private final Executor executor;
+    private final Sink<T, R> sink;
+    private final Checkpoint checkpoint;
+    private final Object[] items;
+    private final Object[] results;
+    private final Exception[] errors;
+    private final boolean[] completed;
+    private final CompletableFuture<?>[] inflight;
+    private final CompletableFuture<Long> finished = new CompletableFuture<>();
+    private long nextIndex;
+    private long deliverIndex;
+    //only accessed by the thread holding the drain flag
+    private long savedIndex;
+    private boolean exhausted = false;
+    private boolean draining = false;
+    private Exception failure = null;
+
+    OrderedPipeline(Iterator<T> source, int concurrency, Function<T, CompletableFuture<R>> send, Executor executor,
+                    Sink<T, R> sink, Checkpoint checkpoint) {
+        if (null == source) {
+            throw new IllegalArgumentException("source required");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("invalid concurrency " + concurrency);
+        }
+        this.source = source;
+        this.concurrency = concurrency;
+        this.send = send;
+        this.executor = executor;
+        this.sink = sink;
+        this.checkpoint = checkpoint;
+        this.items = new Object[concurrency];
+        this.results = new Object[concurrency];
+        this.errors = new Exception[concurrency];
+        this.completed = new boolean[concurrency];
+        this.inflight = new CompletableFuture<?>[concurrency];
+    }
+
+    /**
+     * Start sending, items completed in checkpoint are skipped
+     *
+     * @return future completed with count of items delivered, including those skipped
+     */
+    CompletableFuture<Long> start() {
+        try {
+            long skip = null == checkpoint ? 0 : checkpoint.load();
+            synchronized (this) {
+                for (long i = 0; i < skip && source.hasNext(); i++) {
+                    source.next();
+                    nextIndex++;
+                }
+                deliverIndex = nextIndex;
+                savedIndex = nextIndex;
+            }
+        } catch (Exception e) {
+            finished.completeExceptionally(e);
+            return finished;
+        }
+        pump();
+        return finished;
+    }
+
+    private void pump() {
+        while (true) {
+            final T item;
+            final long index;
+            synchronized (this) {
+                if (finished.isDone() || null != failure || exhausted || nextIndex - deliverIndex >= concurrency) {
+                    return;
+                }
+                try {
+                    if (!source.hasNext()) {
+                        exhausted = true;
+                        break;
+                    }
+                    item = source.next();
+                } catch (RuntimeException e) {
+                    failure = e;
+                    break;
+                }
+                index = nextIndex++;
+            }
+            try {
+                CompletableFuture.supplyAsync(() -> dispatch(index, item), executor)
+                        .thenCompose(sending -> sending)
+                        .whenComplete((result, e) -> complete(index, item, result, e));
+            } catch (RejectedExecutionException e) {
+                //executor shut down, fail instead of waiting for an item never sent
+                synchronized (this) {
+                    if (null == failure) {
+                        failure = e;
+                    }
+                }
+                break;
+            }
+        }
+        //finish when all delivered, or fail
+        drain();
+    }
+
+    private CompletableFuture<R> dispatch(long index, T item) {
+        final CompletableFuture<R> sending = send.apply(item);
+        final boolean failed;
+        synchronized (this) {
+            failed = null != failure || finished.isDone();
+            if (!failed) {
+                inflight[(int) (index % concurrency)] = sending;
+            }
+        }
+        if (failed) {
+            sending.cancel(true);
+        }
+        return sending;
+    }
+
+    private void complete(long index, T item, R result, Throwable e) {
+        synchronized (this) {
+            if (finished.isDone()) {
+                return;
+            }
+            int slot = (int) (index % concurrency);
+            inflight[slot] = null;
+            items[slot] = item;
+            results[slot] = result;
+            errors[slot] = null == e ? null : toException(e);
+            completed[slot] = true;
+        }
+        drain();
+    }
+
+    /**
+     * Deliver completed results in order. Only one thread drains at a time, the others return at once, so
+     * the sink and checkpoint never run while holding the monitor.
+     */
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        synchronized (this) {
+            if (draining || finished.isDone()) {
+                return;
+            }
+            draining = true;
+        }
+        while (true) {
+            final T item;
+            final R result;
+            final Exception error;
+            final long index;
+            synchronized (this) {
+                int slot = (int) (deliverIndex % concurrency);
+                if (null != failure || !completed[slot]) {
+                    if (null == failure && (!exhausted || deliverIndex != nextIndex)) {
+                        //wait for the next result, delivered by the thread completing it
+                        draining = false;
+                        return;
+                    }
+                    break;
+                }
+                item = (T) items[slot];
+                result = (R) results[slot];
+                error = errors[slot];
+                items[slot] = null;
+                results[slot] = null;
+                errors[slot] = null;
+                completed[slot] = false;
+                index = deliverIndex;
+            }
+            try {
+                sink.accept(index, item, result, error);
+                long delivered;
+                synchronized (this) {
+                    delivered = ++deliverIndex;
+                }
+                if (null != checkpoint && delivered - savedIndex >= CHECKPOINT_INTERVAL) {
+                    checkpoint.save(delivered);
+                    savedIndex = delivered;
+                }
+            } catch (Exception e) {
+                synchronized (this) {
+                    failure = e;
+                }
+            }
+            //window moved, dispatch following items
+            pump();
+        }
+        //drained all items or failed, still holding the drain flag
+        final Exception failed;
+        final long delivered;
+        final CompletableFuture<?>[] cancelling;
+        synchronized (this) {
+            failed = failure;
+            delivered = deliverIndex;
+            cancelling = null == failed ? null : inflight.clone();
+            Arrays.fill(inflight, null);
+        }
+        if (null != cancelling) {
+            for (CompletableFuture<?> sending : cancelling) {
+                if (null != sending) {
+                    sending.cancel(true);
+                }
+            }
+        }
+        try {
+            if (null != checkpoint && delivered != savedIndex) {
+                checkpoint.save(delivered);
+                savedIndex = delivered;
+            }
+        } catch (Exception e) {
+            if (null == failed) {
+                finished.completeExceptionally(e);
+                return;
+            }
+            failed.addSuppressed(e);
+        }
+        if (null != failed) {
+            finished.completeExceptionally(failed);
+        } else {
+            finished.complete(delivered);
+        }
+    }
+
+    private static Exception toException(Throwable e) {
+        if (e instanceof CompletionException && null != e.getCause()) {
+            e = e.getCause();
+        }
+        if (e instanceof Exception) {
+            return (Exception) e;
+        }
+        return new CompletionException(e);
+    }
+}
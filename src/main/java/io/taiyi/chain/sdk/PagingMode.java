@@ -0,0 +1,16 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Mode of paging through query results
+ */
+public enum PagingMode {
+    /**
+     * Move the offset forward, gateway skips all previous records for every page
+     */
+    OFFSET,
+    /**
+     * Move the cursor "since" forward to the last document returned, in the order of condition, so every
+     * page costs the same however deep it is
+     */
+    KEYSET
+}
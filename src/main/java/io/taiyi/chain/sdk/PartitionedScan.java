@@ -0,0 +1,197 @@
+package io.taiyi.chain.sdk;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Scan partitions of a query concurrently, and merge documents into a single iterator.
+ * <p>
+ * Every partition fetches its pages in background, one request at a time and at most
+ * {@link #BUFFERED_PAGES} pages ahead of the consumer. When ordered, partitions are consumed in sequence,
+ * so disjoint ranges given in order come out in order; otherwise documents are taken from any partition
+ * with a page ready.
+ */
+final class PartitionedScan implements Iterator<Document>, AutoCloseable {
+    static final int BUFFERED_PAGES = 2;
+
+    private static class partition {
+        private QueryCondition condition;
+        private final int pageSize;
+        private final ArrayDeque<List<Document>> pages = new ArrayDeque<>();
+        private boolean fetching = false;
+        private CompletableFuture<DocumentRecords> inFlight;
+
+        partition(QueryCondition condition) {
+            this.condition = condition;
+            this.pageSize = condition.getLimit();
+        }
+
+        boolean isDrained() {
+            return null == condition && !fetching && pages.isEmpty();
+        }
+    }
+
+    private final Function<QueryCondition, CompletableFuture<DocumentRecords>> query;
+    private final DocumentPager.Paging paging;
+    private final boolean ordered;
+    private final partition[] partitions;
+    private Iterator<Document> current = Collections.emptyIterator();
+    private int next = 0;
+    private Throwable failure;
+    private boolean started = false;
+    private boolean closed = false;
+
+    PartitionedScan(Function<QueryCondition, CompletableFuture<DocumentRecords>> query, List<QueryCondition> conditions,
+                    DocumentPager.Paging paging, boolean ordered) {
+        this.query = query;
+        this.paging = paging;
+        this.ordered = ordered;
+        this.partitions = new partition[conditions.size()];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new partition(conditions.get(i));
+        }
+    }
+
+    private void fill(partition target) {
+        final QueryCondition condition;
+        synchronized (this) {
+            if (closed || null != failure || target.fetching || null == target.condition ||
+                    target.pages.size() >= BUFFERED_PAGES) {
+                return;
+            }
+            condition = target.condition;
+            target.fetching = true;
+        }
+        CompletableFuture<DocumentRecords> page = query.apply(condition);
+        synchronized (this) {
+            target.inFlight = page;
+            if (closed) {
+                page.cancel(true);
+            }
+        }
+        page.whenComplete((records, e) -> {
+            synchronized (this) {
+                target.fetching = false;
+                target.inFlight = null;
+                if (closed) {
+                    notifyAll();
+                    return;
+                }
+                if (null != e) {
+                    if (null == failure) {
+                        failure = e instanceof CompletionException && null != e.getCause() ? e.getCause() : e;
+                    }
+                } else {
+                    target.condition = paging.next(condition, records, target.pageSize);
+                    List<Document> documents = records.getDocuments();
+                    if (null != documents && !documents.isEmpty()) {
+                        target.pages.addLast(documents);
+                    }
+                }
+                notifyAll();
+            }
+            fill(target);
+        });
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current.hasNext()) {
+            return true;
+        }
+        if (!started) {
+            started = true;
+            for (partition target : partitions) {
+                fill(target);
+            }
+        }
+        while (true) {
+            partition taken = null;
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                if (null != failure) {
+                    throw new CompletionException(failure);
+                }
+                if (ordered) {
+                    while (next < partitions.length && partitions[next].isDrained()) {
+                        next++;
+                    }
+                    if (next == partitions.length) {
+                        return false;
+                    }
+                    if (!partitions[next].pages.isEmpty()) {
+                        taken = partitions[next];
+                    }
+                } else {
+                    boolean drained = true;
+                    for (int i = 0; i < partitions.length; i++) {
+                        int index = (next + i) % partitions.length;
+                        if (!partitions[index].pages.isEmpty()) {
+                            taken = partitions[index];
+                            //round robin among partitions
+                            next = (index + 1) % partitions.length;
+                            break;
+                        } else if (!partitions[index].isDrained()) {
+                            drained = false;
+                        }
+                    }
+                    if (null == taken && drained) {
+                        return false;
+                    }
+                }
+                if (null != taken) {
+                    current = taken.pages.pollFirst().iterator();
+                } else {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        close();
+                        throw new CompletionException(e);
+                    }
+                }
+            }
+            if (null != taken) {
+                fill(taken);
+                if (current.hasNext()) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Document next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Stop scanning, and cancel pages in flight
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            for (partition target : partitions) {
+                target.pages.clear();
+                target.condition = null;
+                if (null != target.inFlight) {
+                    target.inFlight.cancel(true);
+                }
+            }
+            current = Collections.emptyIterator();
+            notifyAll();
+        }
+    }
+}
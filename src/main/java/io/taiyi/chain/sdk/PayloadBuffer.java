@@ -0,0 +1,88 @@
+package io.taiyi.chain.sdk;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Growable byte buffer exposing its backing array, so the content can be hashed, signed or sent without copying.
+ * <p>
+ * Small buffers are recycled through a lock-free pool via {@link #acquire()} and {@link #release(PayloadBuffer)}.
+ */
+final class PayloadBuffer extends ByteArrayOutputStream {
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int MAX_POOLED_CAPACITY = 16 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final ConcurrentLinkedQueue<PayloadBuffer> idleBuffers = new ConcurrentLinkedQueue<>();
+    //size of queue is O(n), count buffers pooled separately
+    private static final AtomicInteger idleCount = new AtomicInteger();
+
+    PayloadBuffer() {
+        super(INITIAL_CAPACITY);
+    }
+
+    PayloadBuffer(int capacity) {
+        super(capacity);
+    }
+
+    static PayloadBuffer acquire() {
+        PayloadBuffer buffer = idleBuffers.poll();
+        if (null == buffer) {
+            return new PayloadBuffer();
+        }
+        idleCount.decrementAndGet();
+        return buffer;
+    }
+
+    static void release(PayloadBuffer buffer) {
+        //drop oversize buffers to avoid retaining large payloads
+        if (buffer.buf.length > MAX_POOLED_CAPACITY) {
+            return;
+        }
+        if (idleCount.incrementAndGet() > MAX_POOLED_BUFFERS) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        buffer.reset();
+        idleBuffers.offer(buffer);
+    }
+
+    /**
+     * @return backing array, valid from 0 to {@link #size()}
+     */
+    byte[] array() {
+        return buf;
+    }
+
+    /**
+     * Append a byte, unlike {@link #write(int)} no monitor is taken
+     */
+    void put(int value) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) value;
+    }
+
+    void put(byte[] content) {
+        ensureCapacity(count + content.length);
+        System.arraycopy(content, 0, buf, count, content.length);
+        count += content.length;
+    }
+
+    /**
+     * Write content that is known to be ASCII
+     */
+    void writeAscii(String value) {
+        int length = value.length();
+        ensureCapacity(count + length);
+        for (int i = 0; i < length; i++) {
+            buf[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(capacity, buf.length << 1));
+        }
+    }
+}
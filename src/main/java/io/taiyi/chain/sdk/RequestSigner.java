@@ -0,0 +1,39 @@
+package io.taiyi.chain.sdk;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Signer of the requests sent to gateway.
+ * <p>
+ * Implementations must be thread safe, the connector signs concurrent requests with the same signer.
+ */
+public interface RequestSigner {
+    /**
+     * @return signature algorithm reported to the gateway, such as {@link Constants#SIGNATURE_METHOD_ED25519}
+     */
+    String getAlgorithm();
+
+    /**
+     * Sign content
+     *
+     * @param content buffer of content
+     * @param offset  offset of content in buffer
+     * @param length  length of content
+     * @return raw signature
+     * @throws GeneralSecurityException if signing fails
+     */
+    byte[] sign(byte[] content, int offset, int length) throws GeneralSecurityException;
+
+    /**
+     * Create the default Ed25519 signer.
+     * <p>
+     * {@link I2PEd25519Signer} is preferred since it signs much faster than {@link JdkEd25519Signer} on current JDKs,
+     * see RequestSignerBenchmark in test sources.
+     *
+     * @param privateKey raw private key of 32 bytes
+     * @return signer
+     */
+    static RequestSigner newEd25519Signer(byte[] privateKey) {
+        return new I2PEd25519Signer(privateKey);
+    }
+}
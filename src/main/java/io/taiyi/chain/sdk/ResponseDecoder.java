@@ -0,0 +1,124 @@
+package io.taiyi.chain.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Decode the response envelope of gateway in a single streaming pass.
+ * <p>
+ * The envelope fields "error_code" and "message" are read along with the typed "data" payload
+ * directly from the response bytes, no intermediate String or JSON tree is built.
+ * <p>
+ * Gateway answers all failures with the same error code, so known failures are told by their messages,
+ * which must match a known message as a whole rather than merely contain its words.
+ */
+final class ResponseDecoder {
+    private static final String FIELD_ERROR_CODE = "error_code";
+    private static final String FIELD_MESSAGE = "message";
+    private static final String FIELD_DATA = "data";
+    //"invalid session <id>" of unknown sessions, "session <id> expired" of timed out ones
+    private static final Pattern SESSION_REJECTED = Pattern.compile(
+            "invalid session( \\S+)?|session( \\S+)? expired", Pattern.CASE_INSENSITIVE);
+    //"<object> <id> not exists" or "<object> not found" of missing objects
+    private static final Pattern NOT_FOUND = Pattern.compile("\\w+( \\S+)? not (found|exists?)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Gson marshaller;
+
+    ResponseDecoder(Gson marshaller) {
+        this.marshaller = marshaller;
+    }
+
+    /**
+     * Decode response of HTTP status
+     *
+     * @param statusCode HTTP status of response
+     * @throws SessionRejectedException if status is 401
+     * @throws NotFoundException        if status is 404, or gateway reports the target not exists
+     * @throws HttpStatusException      if status is unexpected
+     * @see #decode(byte[], Type)
+     */
+    <T> T decode(int statusCode, byte[] body, Type dataType) throws Exception {
+        if (200 != statusCode) {
+            final String message = String.format("fetch result failed with status %d", statusCode);
+            if (401 == statusCode) {
+                throw new SessionRejectedException(message, 0, statusCode);
+            } else if (404 == statusCode) {
+                throw new NotFoundException(message, 0, statusCode);
+            }
+            throw new HttpStatusException(message, statusCode);
+        }
+        return decode(body, dataType);
+    }
+
+    /**
+     * Decode response
+     *
+     * @param body     raw response body
+     * @param dataType type of the data payload, null when payload ignored
+     * @return decoded payload, null when omitted or ignored
+     * @throws SessionRejectedException if the gateway rejects the session of request
+     * @throws NotFoundException        if the gateway reports the target not exists
+     * @throws GatewayException          if the gateway returns an error
+     * @throws Exception                 if the body is malformed
+     */
+    @SuppressWarnings("unchecked")
+    <T> T decode(byte[] body, Type dataType) throws Exception {
+        TypeAdapter<?> adapter = null;
+        if (null != dataType) {
+            adapter = marshaller.getAdapter(TypeToken.get(dataType));
+        }
+        int errorCode = 0;
+        String errorMessage = null;
+        Object data = null;
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            reader.setLenient(true);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case FIELD_ERROR_CODE:
+                        errorCode = reader.nextInt();
+                        break;
+                    case FIELD_MESSAGE:
+                        if (JsonToken.NULL == reader.peek()) {
+                            reader.nextNull();
+                        } else {
+                            errorMessage = reader.nextString();
+                        }
+                        break;
+                    case FIELD_DATA:
+                        if (null == adapter || 0 != errorCode) {
+                            //payload not required or useless on error
+                            reader.skipValue();
+                        } else {
+                            data = adapter.read(reader);
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        }
+        if (0 != errorCode) {
+            String message = String.format("fetch failed: %s", errorMessage);
+            if (null != errorMessage && SESSION_REJECTED.matcher(errorMessage).matches()) {
+                throw new SessionRejectedException(message, errorCode, 200);
+            } else if (null != errorMessage && NOT_FOUND.matcher(errorMessage).matches()) {
+                throw new NotFoundException(message, errorCode, 200);
+            }
+            throw new GatewayException(message, errorCode);
+        }
+        return (T) data;
+    }
+}
@@ -0,0 +1,26 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Policy of retrying failed requests.
+ * <p>
+ * A request is idempotent when it can be applied more than once without changing the result, such as
+ * GET, HEAD, PUT and DELETE, and the queries sent by POST. Requests never delivered to gateway are
+ * always safe to retry. Policies may be shared by connectors.
+ */
+public interface RetryPolicy {
+    /**
+     * Invoked for each request before its first attempt
+     */
+    default void onRequest() {
+    }
+
+    /**
+     * Decide whether to retry a failed attempt
+     *
+     * @param attempts   attempts made, start from 1
+     * @param error      failure of the last attempt
+     * @param idempotent request is idempotent or never delivered
+     * @return delay in milliseconds before the next attempt, or negative to give up
+     */
+    long retryDelay(int attempts, Throwable error, boolean idempotent);
+}
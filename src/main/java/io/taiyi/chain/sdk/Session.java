@@ -0,0 +1,107 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Immutable snapshot of a session allocated by gateway.
+ * <p>
+ * A connector publishes a new snapshot when connected, so every request resolves its URL and signs
+ * with fields of the same session, even when reconnecting concurrently. Only the time of last activity
+ * is updated after allocated, which is used to detect a lapsed session before sending.
+ */
+final class Session {
+    private final String apiBase;
+    private final String domain;
+    private final String nonce;
+    private final String sessionID;
+    private final int timeout;
+    private final String localIP;
+    private final SignaturePayloadWriter payloadWriter;
+    private volatile long activeAt;
+
+    Session(String apiBase, String domain, String accessID, String nonce, String signatureAlgorithm, SessionData data) {
+        this.apiBase = apiBase;
+        this.domain = domain;
+        this.nonce = nonce;
+        this.sessionID = data.getSession();
+        this.timeout = data.getTimeout();
+        this.localIP = data.getAddress();
+        this.payloadWriter = new SignaturePayloadWriter(sessionID, accessID, nonce, signatureAlgorithm);
+        this.activeAt = System.nanoTime();
+    }
+
+    /**
+     * Session before connected
+     */
+    Session(String accessID, String signatureAlgorithm) {
+        this.apiBase = "";
+        this.domain = "";
+        this.nonce = "";
+        this.sessionID = "";
+        this.timeout = 0;
+        this.localIP = "";
+        this.payloadWriter = new SignaturePayloadWriter(sessionID, accessID, nonce, signatureAlgorithm);
+    }
+
+    /**
+     * @return true when allocated by gateway
+     */
+    boolean isConnected() {
+        return !apiBase.isEmpty();
+    }
+
+    /**
+     * Mark session active after gateway accepted a request
+     */
+    void touch() {
+        activeAt = System.nanoTime();
+    }
+
+    /**
+     * @return milliseconds elapsed since gateway accepted the last request
+     */
+    long getIdleMillis() {
+        return (System.nanoTime() - activeAt) / 1_000_000;
+    }
+
+    /**
+     * @return true when idle longer than the timeout declared by gateway
+     */
+    boolean isExpired() {
+        return timeout > 0 && getIdleMillis() >= timeout * 1000L;
+    }
+
+    String mapToAPI(String path) {
+        return apiBase + path;
+    }
+
+    String mapToDomain(String path) {
+        return apiBase + "/domains/" + domain + path;
+    }
+
+    String getApiBase() {
+        return apiBase;
+    }
+
+    String getDomain() {
+        return domain;
+    }
+
+    String getNonce() {
+        return nonce;
+    }
+
+    String getSessionID() {
+        return sessionID;
+    }
+
+    int getTimeout() {
+        return timeout;
+    }
+
+    String getLocalIP() {
+        return localIP;
+    }
+
+    SignaturePayloadWriter getPayloadWriter() {
+        return payloadWriter;
+    }
+}
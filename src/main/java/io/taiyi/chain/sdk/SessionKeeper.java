@@ -0,0 +1,67 @@
+package io.taiyi.chain.sdk;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keep sessions of connectors alive, and probe ejected gateway nodes, from a single shared daemon thread.
+ * <p>
+ * The task only refers to its connector weakly, a connector dropped without disabling keep-alive is
+ * still collected, and the task cancels itself after that.
+ */
+final class SessionKeeper {
+    private static final ScheduledExecutorService scheduler = newScheduler();
+
+    private SessionKeeper() {
+    }
+
+    private static ScheduledExecutorService newScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "chain-session-keeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Schedule keep-alive of a connector
+     *
+     * @param connector    connector to keep alive
+     * @param periodMillis interval of checking session in milliseconds
+     * @return scheduled task, cancel it to stop
+     */
+    static ScheduledFuture<?> schedule(ChainConnector connector, long periodMillis) {
+        final WeakReference<ChainConnector> reference = new WeakReference<>(connector);
+        final AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+        ScheduledFuture<?> task = scheduler.scheduleWithFixedDelay(() -> {
+            ChainConnector target = reference.get();
+            if (null == target) {
+                ScheduledFuture<?> scheduled = self.get();
+                if (null != scheduled) {
+                    scheduled.cancel(false);
+                }
+                return;
+            }
+            target.keepAlive(periodMillis);
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        self.set(task);
+        return task;
+    }
+
+    /**
+     * Run a task once after delay
+     *
+     * @param task        task to run, should not block
+     * @param delayMillis delay in milliseconds
+     * @return scheduled task
+     */
+    static ScheduledFuture<?> delay(Runnable task, long delayMillis) {
+        return scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
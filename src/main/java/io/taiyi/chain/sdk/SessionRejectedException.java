@@ -0,0 +1,14 @@
+package io.taiyi.chain.sdk;
+
+/**
+ * Gateway rejected the session of a request, because it was expired or released.
+ * <p>
+ * The connector allocates a new session and retries the request once before reporting this exception.
+ */
+public class SessionRejectedException extends ChainException {
+    private static final long serialVersionUID = 1L;
+
+    public SessionRejectedException(String message, int errorCode, int statusCode) {
+        super(message, errorCode, statusCode);
+    }
+}
@@ -0,0 +1,52 @@
+package io.taiyi.chain.sdk;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of request signing, updated without contention by concurrent requests
+ */
+public class SignatureMetrics {
+    private final LongAdder signatures = new LongAdder();
+    private final LongAdder elapsedNanos = new LongAdder();
+
+    void record(long nanos) {
+        signatures.increment();
+        elapsedNanos.add(nanos);
+    }
+
+    /**
+     * @return count of signatures generated
+     */
+    public long getSignatures() {
+        return signatures.sum();
+    }
+
+    /**
+     * @return total time spent on signing in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos.sum();
+    }
+
+    /**
+     * @return average time of a signature in nanoseconds, 0 when nothing signed
+     */
+    public double getAverageNanos() {
+        long count = signatures.sum();
+        if (0 == count) {
+            return 0;
+        }
+        return (double) elapsedNanos.sum() / count;
+    }
+
+    /**
+     * @return signatures per second of signing time on a single thread
+     */
+    public double getThroughput() {
+        long nanos = elapsedNanos.sum();
+        if (0 == nanos) {
+            return 0;
+        }
+        return signatures.sum() * 1e9 / nanos;
+    }
+}
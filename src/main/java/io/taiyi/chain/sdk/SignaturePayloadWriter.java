@@ -0,0 +1,141 @@
+package io.taiyi.chain.sdk;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Write the canonical JSON payload for signing a request.
+ * <p>
+ * The layout is byte-identical to serializing the request signature with Gson (HTML escaping disabled):
+ * <pre>
+ * {"id":..,"method":..,"url":..,"body":..,"access":..,"timestamp":..,"nonce":..,"signature_algorithm":..}
+ * </pre>
+ * Fields fixed for a session are encoded once on construction, only the method, url, body hash and timestamp
+ * are written per request.
+ */
+final class SignaturePayloadWriter {
+    private static final byte[] URL_FIELD = "\",\"url\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BODY_FIELD = "\",\"body\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    //{"id":"<session>","method":"
+    private final byte[] head;
+    //","access":"<access>","timestamp":"
+    private final byte[] middle;
+    //","nonce":"<nonce>","signature_algorithm":"<algorithm>"}
+    private final byte[] tail;
+
+    SignaturePayloadWriter(String sessionID, String accessID, String nonce, String signatureAlgorithm) {
+        PayloadBuffer buffer = new PayloadBuffer();
+        buffer.writeAscii("{\"id\":\"");
+        writeString(buffer, sessionID);
+        buffer.writeAscii("\",\"method\":\"");
+        head = buffer.toByteArray();
+
+        buffer.reset();
+        buffer.writeAscii("\",\"access\":\"");
+        writeString(buffer, accessID);
+        buffer.writeAscii("\",\"timestamp\":\"");
+        middle = buffer.toByteArray();
+
+        buffer.reset();
+        buffer.writeAscii("\",\"nonce\":\"");
+        writeString(buffer, nonce);
+        buffer.writeAscii("\",\"signature_algorithm\":\"");
+        writeString(buffer, signatureAlgorithm);
+        buffer.writeAscii("\"}");
+        tail = buffer.toByteArray();
+    }
+
+    /**
+     * Write payload of a request into buffer
+     *
+     * @param buffer    output buffer
+     * @param method    request method in upper case
+     * @param url       path of request URL
+     * @param bodyHash  base64 encoded hash of body, empty when no body
+     * @param timestamp RFC3339 timestamp of request
+     */
+    void write(PayloadBuffer buffer, String method, String url, String bodyHash, String timestamp) {
+        buffer.put(head);
+        writeString(buffer, method);
+        buffer.put(URL_FIELD);
+        writeString(buffer, url);
+        buffer.put(BODY_FIELD);
+        writeString(buffer, bodyHash);
+        buffer.put(middle);
+        writeString(buffer, timestamp);
+        buffer.put(tail);
+    }
+
+    /**
+     * Write the content of a JSON string in UTF-8, escaping characters as the Gson writer does
+     */
+    static void writeString(PayloadBuffer buffer, String value) {
+        final int length = value.length();
+        //escaped or multibyte characters grow the buffer again
+        buffer.ensureCapacity(buffer.size() + length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '"':
+                        buffer.writeAscii("\\\"");
+                        break;
+                    case '\\':
+                        buffer.writeAscii("\\\\");
+                        break;
+                    case '\t':
+                        buffer.writeAscii("\\t");
+                        break;
+                    case '\b':
+                        buffer.writeAscii("\\b");
+                        break;
+                    case '\n':
+                        buffer.writeAscii("\\n");
+                        break;
+                    case '\r':
+                        buffer.writeAscii("\\r");
+                        break;
+                    case '\f':
+                        buffer.writeAscii("\\f");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            writeUnicodeEscape(buffer, c);
+                        } else {
+                            buffer.put(c);
+                        }
+                        break;
+                }
+            } else if ('\u2028' == c || '\u2029' == c) {
+                writeUnicodeEscape(buffer, c);
+            } else if (c < 0x800) {
+                buffer.put(0xC0 | (c >> 6));
+                buffer.put(0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put(0xF0 | (codePoint >> 18));
+                    buffer.put(0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer.put(0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer.put(0x80 | (codePoint & 0x3F));
+                } else {
+                    //malformed surrogate, replaced as String.getBytes does
+                    buffer.put('?');
+                }
+            } else {
+                buffer.put(0xE0 | (c >> 12));
+                buffer.put(0x80 | ((c >> 6) & 0x3F));
+                buffer.put(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static void writeUnicodeEscape(PayloadBuffer buffer, char c) {
+        buffer.writeAscii("\\u");
+        buffer.put(HEX_DIGITS[(c >> 12) & 0xF]);
+        buffer.put(HEX_DIGITS[(c >> 8) & 0xF]);
+        buffer.put(HEX_DIGITS[(c >> 4) & 0xF]);
+        buffer.put(HEX_DIGITS[c & 0xF]);
+    }
+}
@@ -0,0 +1,108 @@
+package io.taiyi.chain.sdk;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Source of RFC3339 timestamps in the format "yyyy-MM-dd'T'HH:mm:ss.SSSXXX" of SimpleDateFormat.
+ * <p>
+ * The formatted text of the current second is cached as an immutable template, only the milliseconds
+ * are patched for each timestamp. The template is published through a volatile field, so concurrent callers
+ * never lock, at worst they format the same second twice.
+ */
+final class TimestampClock {
+    private static final int YEAR_OFFSET = 0;
+    private static final int MONTH_OFFSET = 5;
+    private static final int DAY_OFFSET = 8;
+    private static final int HOUR_OFFSET = 11;
+    private static final int MINUTE_OFFSET = 14;
+    private static final int SECOND_OFFSET = 17;
+    private static final int MILLISECOND_OFFSET = 20;
+    private static final int OFFSET_BEGIN = 23;
+
+    private static final class secondTemplate {
+        private final long epochSecond;
+        //formatted timestamp with placeholder of milliseconds
+        private final byte[] content;
+
+        private secondTemplate(long epochSecond, byte[] content) {
+            this.epochSecond = epochSecond;
+            this.content = content;
+        }
+    }
+
+    private final Clock clock;
+    private volatile secondTemplate current;
+
+    TimestampClock() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock clock providing current instant and time zone
+     */
+    TimestampClock(Clock clock) {
+        this.clock = clock;
+        this.current = format(Math.floorDiv(clock.millis(), 1000));
+    }
+
+    /**
+     * @return current timestamp, such as "2023-04-25T10:00:00.000+08:00"
+     */
+    String now() {
+        long millis = clock.millis();
+        long epochSecond = Math.floorDiv(millis, 1000);
+        int millisecond = Math.floorMod(millis, 1000);
+        secondTemplate template = current;
+        if (template.epochSecond != epochSecond) {
+            template = format(epochSecond);
+            current = template;
+        }
+        byte[] content = template.content.clone();
+        content[MILLISECOND_OFFSET] = (byte) ('0' + millisecond / 100);
+        content[MILLISECOND_OFFSET + 1] = (byte) ('0' + millisecond / 10 % 10);
+        content[MILLISECOND_OFFSET + 2] = (byte) ('0' + millisecond % 10);
+        return new String(content, StandardCharsets.ISO_8859_1);
+    }
+
+    private secondTemplate format(long epochSecond) {
+        ZoneOffset offset = clock.getZone().getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+        LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, offset);
+        //as SimpleDateFormat, seconds of offset are truncated
+        int offsetMinutes = offset.getTotalSeconds() / 60;
+        int offsetLength = 0 == offsetMinutes ? 1 : 6;
+        byte[] content = new byte[OFFSET_BEGIN + offsetLength];
+        writeDigits(content, YEAR_OFFSET, dateTime.getYear(), 4);
+        content[MONTH_OFFSET - 1] = '-';
+        writeDigits(content, MONTH_OFFSET, dateTime.getMonthValue(), 2);
+        content[DAY_OFFSET - 1] = '-';
+        writeDigits(content, DAY_OFFSET, dateTime.getDayOfMonth(), 2);
+        content[HOUR_OFFSET - 1] = 'T';
+        writeDigits(content, HOUR_OFFSET, dateTime.getHour(), 2);
+        content[MINUTE_OFFSET - 1] = ':';
+        writeDigits(content, MINUTE_OFFSET, dateTime.getMinute(), 2);
+        content[SECOND_OFFSET - 1] = ':';
+        writeDigits(content, SECOND_OFFSET, dateTime.getSecond(), 2);
+        content[MILLISECOND_OFFSET - 1] = '.';
+        if (0 == offsetMinutes) {
+            content[OFFSET_BEGIN] = 'Z';
+        } else {
+            content[OFFSET_BEGIN] = (byte) (offsetMinutes > 0 ? '+' : '-');
+            int absoluteMinutes = Math.abs(offsetMinutes);
+            writeDigits(content, OFFSET_BEGIN + 1, absoluteMinutes / 60, 2);
+            content[OFFSET_BEGIN + 3] = ':';
+            writeDigits(content, OFFSET_BEGIN + 4, absoluteMinutes % 60, 2);
+        }
+        return new secondTemplate(epochSecond, content);
+    }
+
+    private static void writeDigits(byte[] content, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            content[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
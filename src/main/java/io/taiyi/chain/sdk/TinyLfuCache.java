@@ -0,0 +1,310 @@
+package io.taiyi.chain.sdk;
+
+import java.util.HashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache bounded by weight, evicted by W-TinyLFU.
+ * <p>
+ * New entries enter a small LRU window, entries leaving the window compete with the LRU victim of the
+ * main space, and the one accessed more often recently stays. The main space is a segmented LRU, entries
+ * hit in the probation segment are promoted to the protected one. Access frequency is estimated by a
+ * count-min sketch of 4-bit counters, halved periodically so old popularity fades.
+ * <p>
+ * All operations are guarded by the monitor of cache, they are short compared to a request to gateway.
+ */
+final class TinyLfuCache<K, V> {
+    interface Weigher<K, V> {
+        long weigh(K key, V value);
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private static final class node<K, V> {
+        private final K key;
+        private V value;
+        private long weight;
+        private int queue;
+        private node<K, V> previous;
+        private node<K, V> next;
+
+        node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Doubly linked list of nodes, the head is the least recently used
+     */
+    private static final class queue<K, V> {
+        private node<K, V> head;
+        private node<K, V> tail;
+        private long weight;
+
+        void addLast(node<K, V> target) {
+            target.previous = tail;
+            target.next = null;
+            if (null == tail) {
+                head = target;
+            } else {
+                tail.next = target;
+            }
+            tail = target;
+            weight += target.weight;
+        }
+
+        void remove(node<K, V> target) {
+            if (null == target.previous) {
+                head = target.next;
+            } else {
+                target.previous.next = target.next;
+            }
+            if (null == target.next) {
+                tail = target.previous;
+            } else {
+                target.next.previous = target.previous;
+            }
+            target.previous = null;
+            target.next = null;
+            weight -= target.weight;
+        }
+    }
+
+    private final HashMap<K, node<K, V>> entries = new HashMap<>();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final queue<K, V>[] queues = new queue[]{new queue<>(), new queue<>(), new queue<>()};
+    private final Weigher<K, V> weigher;
+    private final FrequencySketch sketch;
+    private final long maxWeight;
+    private final long windowWeight;
+    private final long protectedWeight;
+    private final CacheMetrics metrics;
+    private BiConsumer<K, V> evictionListener;
+
+    /**
+     * @param maxWeight       max total weight
+     * @param expectedEntries estimated count of entries, sizing the frequency sketch
+     * @param weigher         weight of an entry
+     * @param metrics         counters updated by cache
+     */
+    TinyLfuCache(long maxWeight, int expectedEntries, Weigher<K, V> weigher, CacheMetrics metrics) {
+        this.maxWeight = maxWeight;
+        this.windowWeight = Math.max(1, (long) (maxWeight * WINDOW_RATIO));
+        this.protectedWeight = (long) ((maxWeight - windowWeight) * PROTECTED_RATIO);
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch(expectedEntries);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Receive entries evicted for capacity, invoked while holding the monitor of cache
+     */
+    void setEvictionListener(BiConsumer<K, V> listener) {
+        this.evictionListener = listener;
+    }
+
+    synchronized V get(K key) {
+        sketch.increment(key.hashCode());
+        node<K, V> target = entries.get(key);
+        if (null == target) {
+            metrics.recordMiss();
+            return null;
+        }
+        metrics.recordHit();
+        onAccess(target);
+        return target.value;
+    }
+
+    synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    synchronized void put(K key, V value) {
+        long weight = weigher.weigh(key, value);
+        node<K, V> target = entries.get(key);
+        if (null != target) {
+            queues[target.queue].remove(target);
+            target.value = value;
+            target.weight = weight;
+            queues[target.queue].addLast(target);
+            if (weight > maxWeight) {
+                invalidate(key);
+                return;
+            }
+            onAccess(target);
+            evict();
+            return;
+        }
+        if (weight > maxWeight) {
+            return;
+        }
+        target = new node<>(key, value, weight);
+        target.queue = WINDOW;
+        entries.put(key, target);
+        queues[WINDOW].addLast(target);
+        evict();
+    }
+
+    synchronized V invalidate(K key) {
+        node<K, V> target = entries.remove(key);
+        if (null == target) {
+            return null;
+        }
+        queues[target.queue].remove(target);
+        return target.value;
+    }
+
+    synchronized void invalidateAll() {
+        entries.clear();
+        for (queue<K, V> current : queues) {
+            current.head = null;
+            current.tail = null;
+            current.weight = 0;
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long weight() {
+        return queues[WINDOW].weight + queues[PROBATION].weight + queues[PROTECTED].weight;
+    }
+
+    private void onAccess(node<K, V> target) {
+        queue<K, V> current = queues[target.queue];
+        current.remove(target);
+        if (PROBATION == target.queue) {
+            target.queue = PROTECTED;
+            queues[PROTECTED].addLast(target);
+            //demote the least recently used protected entries
+            while (queues[PROTECTED].weight > protectedWeight && queues[PROTECTED].head != target) {
+                node<K, V> demoted = queues[PROTECTED].head;
+                queues[PROTECTED].remove(demoted);
+                demoted.queue = PROBATION;
+                queues[PROBATION].addLast(demoted);
+            }
+        } else {
+            current.addLast(target);
+        }
+    }
+
+    private void evict() {
+        //entries leaving window are candidates of main space
+        while (queues[WINDOW].weight > windowWeight && null != queues[WINDOW].head) {
+            node<K, V> candidate = queues[WINDOW].head;
+            queues[WINDOW].remove(candidate);
+            candidate.queue = PROBATION;
+            queues[PROBATION].addLast(candidate);
+            evictMain(candidate);
+        }
+        evictMain(null);
+    }
+
+    private void evictMain(node<K, V> candidate) {
+        final long mainWeight = maxWeight - Math.min(windowWeight, queues[WINDOW].weight);
+        while (queues[PROBATION].weight + queues[PROTECTED].weight > mainWeight) {
+            node<K, V> victim = queues[PROBATION].head;
+            if (null == victim || victim == candidate) {
+                //candidate is the only one on probation
+                victim = queues[PROTECTED].head;
+            }
+            if (null == victim) {
+                remove(candidate);
+                return;
+            }
+            if (null != candidate &&
+                    sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+                remove(candidate);
+                candidate = null;
+            } else {
+                remove(victim);
+            }
+        }
+    }
+
+    private void remove(node<K, V> target) {
+        if (null == target) {
+            return;
+        }
+        entries.remove(target.key);
+        queues[target.queue].remove(target);
+        metrics.recordEviction();
+        if (null != evictionListener) {
+            evictionListener.accept(target.key, target.value);
+        }
+    }
+
+    /**
+     * Count-min sketch of 4 rows, each counter 4 bits in a long of 16 counters
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+                0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions = 0;
+
+        FrequencySketch(int expectedEntries) {
+            int size = Integer.highestOneBit(Math.max(64, Math.min(expectedEntries, 1 << 24)) - 1) << 1;
+            this.table = new long[size];
+            this.mask = size - 1;
+            this.sampleSize = 10 * size;
+        }
+
+        int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int row = 0; row < SEEDS.length; row++) {
+                frequency = Math.min(frequency, counter(hash, row));
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < SEEDS.length; row++) {
+                int index = indexOf(hash, row);
+                int offset = offsetOf(hash, row);
+                if (((table[index] >>> offset) & 0xF) < 15) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int counter(int hash, int row) {
+            return (int) ((table[indexOf(hash, row)] >>> offsetOf(hash, row)) & 0xF);
+        }
+
+        private int indexOf(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            h += h >>> 32;
+            return (int) h & mask;
+        }
+
+        private int offsetOf(int hash, int row) {
+            return (((hash >>> (row << 3)) & 3) + (row << 2)) << 2;
+        }
+
+        /**
+         * Halve all counters
+         */
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+    }
+}
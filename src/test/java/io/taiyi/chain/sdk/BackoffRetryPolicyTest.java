@@ -0,0 +1,57 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackoffRetryPolicyTest {
+    @Test
+    void classifyFailures() {
+        assertTrue(BackoffRetryPolicy.isTransient(new HttpTimeoutException("timeout")));
+        assertTrue(BackoffRetryPolicy.isTransient(new HttpStatusException("busy", 503)));
+        assertTrue(BackoffRetryPolicy.isTransient(new HttpStatusException("throttled", 429)));
+        assertFalse(BackoffRetryPolicy.isTransient(new HttpStatusException("bad request", 400)));
+        assertFalse(BackoffRetryPolicy.isTransient(new GatewayException("invalid schema", 1)));
+    }
+
+    @Test
+    void exponentialDelayWithinBounds() {
+        BackoffRetryPolicy policy = BackoffRetryPolicy.newBuilder()
+                .setMaxAttempts(10)
+                .setBaseDelay(Duration.ofMillis(100))
+                .setMaxDelay(Duration.ofMillis(1000))
+                .setBudget(1, 1000)
+                .build();
+        HttpTimeoutException error = new HttpTimeoutException("timeout");
+        for (int attempts = 1; attempts < 10; attempts++) {
+            long ceiling = Math.min(1000, 100L << (attempts - 1));
+            for (int i = 0; i < 20; i++) {
+                long delay = policy.retryDelay(attempts, error, true);
+                assertTrue(delay >= 0 && delay <= ceiling, "delay out of bound: " + delay);
+            }
+        }
+        assertEquals(-1, policy.retryDelay(10, error, true));
+        assertEquals(-1, policy.retryDelay(1, error, false));
+    }
+
+    @Test
+    void retriesLimitedByBudget() {
+        BackoffRetryPolicy policy = BackoffRetryPolicy.newBuilder().setBudget(0.1, 5).build();
+        HttpTimeoutException error = new HttpTimeoutException("timeout");
+        int retries = 0;
+        for (int i = 0; i < 100; i++) {
+            policy.onRequest();
+            if (policy.retryDelay(1, error, true) >= 0) {
+                retries++;
+            }
+        }
+        //initial burst and a tenth of requests
+        assertTrue(retries <= 5 + 10, "retries exceed budget: " + retries);
+        assertTrue(retries >= 10, "retries below budget: " + retries);
+    }
+}
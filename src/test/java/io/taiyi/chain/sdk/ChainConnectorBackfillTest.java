@@ -0,0 +1,86 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorBackfillTest {
+    private static final int HEIGHT = 95;
+
+    @Test
+    void deliverInHeightOrder() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            new StubChain(gateway, HEIGHT, 2);
+            ChainConnector connector = gateway.newConnector();
+
+            List<Integer> heights = new ArrayList<>();
+            long highest = connector.backfillBlocks(3, HEIGHT, 4, null, entry -> {
+                heights.add(entry.getBlock().getHeight());
+                assertEquals(2, entry.getTransactions().size());
+                assertEquals(entry.getBlock().getId() + "-trans-1",
+                        entry.getTransactions().get(1).getTransaction());
+            });
+            assertEquals(HEIGHT, highest);
+            assertEquals(HEIGHT - 2, heights.size());
+            for (int i = 0; i < heights.size(); i++) {
+                assertEquals(i + 3, heights.get(i));
+            }
+            //beyond chain height
+            assertThrows(Exception.class, () -> connector.backfillBlocks(90, HEIGHT + 1, 4, null, entry -> {
+            }));
+        }
+    }
+
+    @Test
+    void resumeFromCheckpoint(@TempDir Path directory) throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            new StubChain(gateway, HEIGHT, 0);
+            ChainConnector connector = gateway.newConnector();
+            FileCheckpoint checkpoint = new FileCheckpoint(directory.resolve("backfill.checkpoint"));
+
+            assertThrows(Exception.class, () -> connector.backfillBlocks(1, HEIGHT, 3, checkpoint, entry -> {
+                if (50 == entry.getBlock().getHeight()) {
+                    throw new IllegalStateException("crashed");
+                }
+            }));
+            assertEquals(49, checkpoint.load());
+
+            List<Integer> heights = new ArrayList<>();
+            long highest = connector.backfillBlocks(1, HEIGHT, 3, checkpoint,
+                    entry -> heights.add(entry.getBlock().getHeight()));
+            assertEquals(HEIGHT, highest);
+            assertEquals(50, heights.get(0));
+            assertEquals(HEIGHT - 49, heights.size());
+            assertEquals(HEIGHT, checkpoint.load());
+        }
+    }
+
+    @Test
+    void checkLinkAfterResume(@TempDir Path directory) throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            StubChain chain = new StubChain(gateway, HEIGHT, 0);
+            //forked after the checkpoint saved
+            gateway.route("GET", "/blocks/" + StubChain.blockID(50), (method, path, body) -> {
+                BlockData block = chain.blockOf(50);
+                block.setPreviousBlock("forked-49");
+                return block;
+            });
+            ChainConnector connector = gateway.newConnector();
+            FileCheckpoint checkpoint = new FileCheckpoint(directory.resolve("backfill.checkpoint"));
+            checkpoint.save(49);
+
+            Exception error = assertThrows(Exception.class, () -> connector.backfillBlocks(1, HEIGHT, 3, checkpoint,
+                    entry -> {
+                    }));
+            assertTrue(error.getMessage().contains("links to forked-49"), error.getMessage());
+            assertEquals(49, checkpoint.load());
+        }
+    }
+}
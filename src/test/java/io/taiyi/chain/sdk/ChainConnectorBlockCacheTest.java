@@ -0,0 +1,51 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChainConnectorBlockCacheTest {
+    @Test
+    void cacheBlocksAndTransactions() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicInteger reads = new AtomicInteger();
+            gateway.route("GET", "/blocks/", (method, path, body) -> {
+                reads.incrementAndGet();
+                String[] segments = path.split("/");
+                if (segments.length > 4) {
+                    TransactionData transaction = new TransactionData();
+                    transaction.setBlock(segments[2]);
+                    transaction.setTransaction(segments[4]);
+                    transaction.setValidated(true);
+                    transaction.setContent("{}");
+                    return transaction;
+                }
+                BlockData block = new BlockData();
+                block.setId(segments[2]);
+                block.setHeight(Integer.parseInt(segments[2].substring("block-".length())));
+                block.setContent("{}");
+                return block;
+            });
+            ChainConnector connector = gateway.newConnector();
+            BlockCache cache = BlockCache.newBuilder().setMaxBytes(1 << 20).build();
+            connector.setBlockCache(cache);
+
+            for (int round = 0; round < 5; round++) {
+                for (int height = 1; height <= 10; height++) {
+                    BlockData block = connector.getBlock("block-" + height);
+                    assertEquals(height, block.getHeight());
+                    //returned objects are copies
+                    block.setHeight(0);
+                    TransactionData transaction = connector.getTransaction("block-" + height, "trans");
+                    assertEquals("block-" + height, transaction.getBlock());
+                }
+            }
+            assertEquals(20, reads.get());
+            assertEquals(20, cache.getSize());
+            assertEquals(80, cache.getMetrics().getHits());
+            assertEquals(0.8, cache.getMetrics().getHitRate(), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorBlockStoreTest {
+    private static final int HEIGHT = 20;
+    private static final int TRANSACTIONS = 3;
+
+    private static int replay(ChainConnector connector) throws Exception {
+        int transactions = 0;
+        BlockRecords records = connector.queryBlocks(1, HEIGHT);
+        for (String blockID : records.getBlocks()) {
+            BlockData block = connector.getBlock(blockID);
+            assertTrue(block.getContent().contains(Integer.toString(block.getHeight())));
+            for (int start = 0; ; start += 2) {
+                TransactionRecords page = connector.queryTransactions(blockID, start, 2);
+                for (String transID : page.getTransactions()) {
+                    assertEquals(transID, connector.getTransaction(blockID, transID).getTransaction());
+                    transactions++;
+                }
+                if (!page.isHasMore()) {
+                    break;
+                }
+            }
+        }
+        return transactions;
+    }
+
+    @Test
+    void replayFromStore(@TempDir Path directory) throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            StubChain chain = new StubChain(gateway, HEIGHT, TRANSACTIONS);
+            ChainConnector connector = gateway.newConnector();
+            try (LocalBlockStore store = LocalBlockStore.newBuilder().setDirectory(directory).build()) {
+                connector.setBlockStore(store);
+                assertEquals(HEIGHT * TRANSACTIONS, replay(connector));
+            }
+            int requests = chain.getRequests();
+            try (LocalBlockStore store = LocalBlockStore.newBuilder().setDirectory(directory).build()) {
+                connector.setBlockStore(store);
+                assertEquals(HEIGHT * TRANSACTIONS, replay(connector));
+                assertEquals(HEIGHT, store.getHighestHeight());
+                //stored blocks served locally, with height of chain from gateway
+                chain.grow(HEIGHT + 5);
+                BlockRecords records = connector.queryBlocks(1, HEIGHT);
+                assertEquals(HEIGHT, records.getBlocks().length);
+                assertEquals(HEIGHT + 5, records.getHeight());
+            }
+            assertEquals(requests, chain.getRequests());
+        }
+    }
+
+    @Test
+    void failReadsOnlyOnConflicts(@TempDir Path directory) throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            StubChain chain = new StubChain(gateway, HEIGHT, 0);
+            //larger than a segment
+            gateway.route("GET", "/blocks/" + StubChain.blockID(3), (method, path, body) -> {
+                BlockData block = chain.blockOf(3);
+                block.setContent(new String(new char[8192]).replace('\0', 'x'));
+                return block;
+            });
+            gateway.route("GET", "/blocks/" + StubChain.blockID(6), (method, path, body) -> {
+                BlockData block = chain.blockOf(6);
+                block.setPreviousBlock("forked-5");
+                return block;
+            });
+            ChainConnector connector = gateway.newConnector();
+            try (LocalBlockStore store = LocalBlockStore.newBuilder().setDirectory(directory)
+                    .setSegmentBytes(4096).build()) {
+                connector.setBlockStore(store);
+                assertEquals(8192, connector.getBlock(StubChain.blockID(3)).getContent().length());
+                assertNull(store.getBlockID(3));
+
+                connector.getBlock(StubChain.blockID(5));
+                Exception error = assertThrows(Exception.class, () -> connector.getBlock(StubChain.blockID(6)));
+                assertInstanceOf(BlockConflictException.class, error);
+                assertNull(store.getBlockID(6));
+            }
+        }
+    }
+}
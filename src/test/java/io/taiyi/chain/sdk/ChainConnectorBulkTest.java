@@ -0,0 +1,98 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorBulkTest {
+    private static final String PATH = "/schemas/sample/docs/";
+
+    private static Iterator<Document> newDocuments(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Document("doc-" + i, "{\"value\": " + i + "}"))
+                .iterator();
+    }
+
+    private static void routeDocuments(StubGateway gateway, AtomicInteger requests) {
+        gateway.route("POST", PATH, (method, path, body) -> {
+            requests.incrementAndGet();
+            String docID = new String(body).replaceAll(".*\"id\":\"([^\"]*)\".*", "$1");
+            if (docID.endsWith("7")) {
+                throw new Exception("document " + docID + " rejected");
+            }
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            return Collections.singletonMap("id", docID);
+        });
+    }
+
+    @Test
+    void resultsInInputOrder() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicInteger requests = new AtomicInteger();
+            routeDocuments(gateway, requests);
+            ChainConnector connector = gateway.newConnector();
+
+            final int count = 500;
+            List<BulkResult> results = connector.bulkAddDocuments("sample", newDocuments(count), 16);
+            assertEquals(count, results.size());
+            for (int i = 0; i < count; i++) {
+                BulkResult result = results.get(i);
+                assertEquals(i, result.getIndex());
+                if (7 == i % 10) {
+                    assertFalse(result.isSucceeded());
+                    assertInstanceOf(GatewayException.class, result.getError());
+                } else {
+                    assertEquals("doc-" + i, result.getDocID());
+                }
+            }
+            assertEquals(count, requests.get());
+        }
+    }
+
+    @Test
+    void resumeFromCheckpoint(@TempDir Path directory) throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicInteger requests = new AtomicInteger();
+            routeDocuments(gateway, requests);
+            ChainConnector connector = gateway.newConnector();
+
+            final int count = 1200;
+            final int crashed = 1100;
+            final int concurrency = 8;
+            FileCheckpoint checkpoint = new FileCheckpoint(directory.resolve("ingest.checkpoint"));
+            assertThrows(IllegalStateException.class, () -> connector.bulkAddDocuments("sample",
+                    newDocuments(count), concurrency, checkpoint, result -> {
+                        if (crashed == result.getIndex()) {
+                            throw new IllegalStateException("crashed");
+                        }
+                    }));
+            assertEquals(crashed, checkpoint.load());
+
+            List<BulkResult> resumed = new ArrayList<>();
+            long completed = connector.bulkAddDocuments("sample", newDocuments(count), concurrency, checkpoint,
+                    resumed::add);
+            assertEquals(count, completed);
+            assertEquals(count, checkpoint.load());
+            assertEquals(count - crashed, resumed.size());
+            assertEquals(crashed, resumed.get(0).getIndex());
+            //documents in flight when crashed are sent again
+            assertTrue(requests.get() <= count + concurrency, "sent documents: " + requests.get());
+            checkpoint.clear();
+            assertEquals(0, checkpoint.load());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorCacheTest {
+    private static final String PATH = "/schemas/sample/docs/";
+
+    private static class documentGateway {
+        private final AtomicReference<String> content = new AtomicReference<>("{\"version\": 1}");
+        private final AtomicInteger version = new AtomicInteger(1);
+        private final AtomicInteger reads = new AtomicInteger();
+
+        documentGateway(StubGateway gateway) {
+            gateway.route("GET", PATH, (method, path, body) -> {
+                if (path.endsWith("/logs/")) {
+                    LogRecords logs = new LogRecords();
+                    logs.setLatestVersion(version.get());
+                    return logs;
+                }
+                reads.incrementAndGet();
+                return new Document(path.substring(PATH.length()), content.get());
+            });
+            gateway.route("PUT", PATH, (method, path, body) -> {
+                change("{\"version\": " + (version.get() + 1) + "}");
+                return null;
+            });
+            gateway.route("DELETE", PATH, (method, path, body) -> null);
+        }
+
+        void change(String updated) {
+            content.set(updated);
+            version.incrementAndGet();
+        }
+    }
+
+    @Test
+    void readThroughAndInvalidate() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            documentGateway stub = new documentGateway(gateway);
+            ChainConnector connector = gateway.newConnector();
+            DocumentCache cache = DocumentCache.newBuilder().setMaxBytes(1 << 20).build();
+            connector.setDocumentCache(cache);
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals("{\"version\": 1}", connector.getDocument("sample", "doc"));
+            }
+            assertEquals(1, stub.reads.get());
+            assertTrue(connector.hasDocument("sample", "doc"));
+            assertEquals(9, cache.getMetrics().getHits());
+
+            connector.updateDocument("sample", "doc", "{}");
+            assertEquals("{\"version\": 2}", connector.getDocument("sample", "doc"));
+            connector.updateDocumentProperty("sample", "doc", "version", PropertyType.Integer, 3);
+            assertEquals("{\"version\": 3}", connector.getDocument("sample", "doc"));
+            connector.removeDocument("sample", "doc");
+            assertEquals(0, cache.getSize());
+            assertEquals(3, stub.reads.get());
+
+            //changed by others, not noticed without validation
+            connector.getDocument("sample", "doc");
+            stub.change("{\"changed\": true}");
+            assertEquals("{\"version\": 3}", connector.getDocument("sample", "doc"));
+        }
+    }
+
+    @Test
+    void validateLatestVersion() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            documentGateway stub = new documentGateway(gateway);
+            ChainConnector connector = gateway.newConnector();
+            connector.setDocumentCache(DocumentCache.newBuilder().setValidation(true).build());
+
+            assertEquals("{\"version\": 1}", connector.getDocument("sample", "doc"));
+            assertEquals("{\"version\": 1}", connector.getDocument("sample", "doc"));
+            assertEquals(1, stub.reads.get());
+
+            stub.change("{\"changed\": true}");
+            assertEquals("{\"changed\": true}", connector.getDocument("sample", "doc"));
+            assertEquals(2, stub.reads.get());
+        }
+    }
+
+    @Test
+    void offHeapTier() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            documentGateway stub = new documentGateway(gateway);
+            ChainConnector connector = gateway.newConnector();
+            //heap holds a few documents only
+            DocumentCache cache = DocumentCache.newBuilder().setMaxBytes(1000).setOffHeap(1 << 20, 64 << 10).build();
+            connector.setDocumentCache(cache);
+
+            for (int i = 0; i < 20; i++) {
+                connector.getDocument("sample", "doc-" + i);
+            }
+            assertEquals(20, cache.getOffHeapSize());
+            assertTrue(cache.getSize() < 20);
+            for (int i = 0; i < 20; i++) {
+                assertEquals("{\"version\": 1}", connector.getDocument("sample", "doc-" + i));
+            }
+            assertEquals(20, stub.reads.get());
+            assertEquals(20, cache.getMetrics().getHits());
+            assertEquals("{\"version\": 1}", cache.readContent(connector, "sample", "doc-3",
+                    view -> StandardCharsets.UTF_8.decode(view).toString()));
+
+            connector.removeDocument("sample", "doc-3");
+            assertNull(cache.readContent(connector, "sample", "doc-3",
+                    view -> StandardCharsets.UTF_8.decode(view).toString()));
+        }
+    }
+
+    @Test
+    void invalidateOnlyFillsOfSameDocument() {
+        DocumentCache cache = DocumentCache.newBuilder().build();
+        DocumentCache.scope owner = new DocumentCache.scope("system@localhost:9100", "access");
+        long unchanged = cache.beginFill(owner, "sample", "unchanged");
+        long changed = cache.beginFill(owner, "sample", "changed");
+        cache.invalidate(owner, "sample", "changed");
+        cache.fill(unchanged, owner, "sample", "unchanged", "{}", 1);
+        cache.fill(changed, owner, "sample", "changed", "{}", 1);
+        assertTrue(cache.contains(owner, "sample", "unchanged"));
+        assertFalse(cache.contains(owner, "sample", "changed"));
+
+        //filled after invalidation
+        cache.fill(cache.beginFill(owner, "sample", "changed"), owner, "sample", "changed", "{}", 2);
+        assertTrue(cache.contains(owner, "sample", "changed"));
+
+        long failed = cache.beginFill(owner, "sample", "failed");
+        long racing = cache.beginFill(owner, "sample", "failed");
+        cache.fill(failed, owner, "sample", "failed", null, 1);
+        cache.invalidateAll();
+        cache.fill(racing, owner, "sample", "failed", "{}", 1);
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void keepEntriesOfConnectorsApart() {
+        DocumentCache cache = DocumentCache.newBuilder().build();
+        DocumentCache.scope owner = new DocumentCache.scope("system@localhost:9100", "access");
+        DocumentCache.scope other = new DocumentCache.scope("system@localhost:9100", "another-access");
+        DocumentCache.scope otherChain = new DocumentCache.scope("system@remote:9100", "access");
+        cache.fill(cache.beginFill(owner, "sample", "doc"), owner, "sample", "doc", "{}", 1);
+        cache.fill(cache.beginFill(other, "sample", "doc"), other, "sample", "doc", "{}", 1);
+        cache.fill(cache.beginFill(otherChain, "sample", "doc"), otherChain, "sample", "doc", "{}", 1);
+        assertNull(cache.get(new DocumentCache.scope("system@localhost:9100", "guest"), "sample", "doc"));
+        assertEquals(3, cache.getSize());
+
+        //changed by one access ID, copies of the others on the same chain are stale too
+        cache.invalidate(owner, "sample", "doc");
+        assertFalse(cache.contains(owner, "sample", "doc"));
+        assertFalse(cache.contains(other, "sample", "doc"));
+        assertTrue(cache.contains(otherChain, "sample", "doc"));
+
+        cache.invalidate("sample", "doc");
+        assertEquals(0, cache.getSize());
+    }
+}
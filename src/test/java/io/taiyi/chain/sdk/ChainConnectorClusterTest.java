@@ -0,0 +1,110 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorClusterTest {
+    private static List<GatewayEndpoint> endpointsOf(List<StubGateway> gateways) {
+        List<GatewayEndpoint> endpoints = new ArrayList<>();
+        for (StubGateway gateway : gateways) {
+            endpoints.add(new GatewayEndpoint(gateway.getHost(), gateway.getPort()));
+        }
+        return endpoints;
+    }
+
+    private static void getStatus(ChainConnector connector, int count) throws Exception {
+        List<CompletableFuture<ChainStatus>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(connector.getStatusAsync());
+        }
+        for (CompletableFuture<ChainStatus> result : results) {
+            assertEquals(1, result.get().getBlockHeight());
+        }
+    }
+
+    private static void closeAll(List<StubGateway> gateways) {
+        for (StubGateway gateway : gateways) {
+            gateway.close();
+        }
+    }
+
+    @Test
+    void spreadRequestsAcrossNodes() throws Exception {
+        byte[] key = StubGateway.newPrivateKey();
+        List<StubGateway> gateways = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                gateways.add(new StubGateway());
+            }
+            for (BalancePolicy policy : BalancePolicy.values()) {
+                ChainConnector connector = ChainConnector.NewConnector(StubGateway.ACCESS_ID, key);
+                connector.setBalancePolicy(policy);
+                connector.connectToCluster(endpointsOf(gateways), Constants.DEFAULT_DOMAIN_NAME);
+                getStatus(connector, 300);
+            }
+            int total = 0;
+            for (StubGateway gateway : gateways) {
+                assertEquals(2, gateway.getSessionsAllocated());
+                assertTrue(gateway.getRequests() > 0, "no request routed to a node");
+                total += gateway.getRequests();
+            }
+            assertEquals(600, total);
+        } finally {
+            closeAll(gateways);
+        }
+    }
+
+    @Test
+    void ejectAndProbeNode() throws Exception {
+        byte[] key = StubGateway.newPrivateKey();
+        List<StubGateway> gateways = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2; i++) {
+                gateways.add(new StubGateway());
+            }
+            ChainConnector connector = ChainConnector.NewConnector(StubGateway.ACCESS_ID, key);
+            connector.connectToCluster(endpointsOf(gateways), Constants.DEFAULT_DOMAIN_NAME);
+
+            //requests to a stopped node are sent to the other one
+            StubGateway stopped = gateways.get(1);
+            int port = stopped.getPort();
+            stopped.close();
+            getStatus(connector, 100);
+            assertEquals(100, gateways.get(0).getRequests());
+
+            //node recovered with a new session after probed
+            StubGateway restarted = new StubGateway(StubGateway.ACCESS_ID, key, port);
+            gateways.set(1, restarted);
+            Thread.sleep(1500);
+            getStatus(connector, 100);
+            assertEquals(1, restarted.getSessionsAllocated());
+            assertTrue(restarted.getRequests() > 1, "node not probed back");
+        } finally {
+            closeAll(gateways);
+        }
+    }
+
+    @Test
+    void connectWithUnavailableNode() throws Exception {
+        byte[] key = StubGateway.newPrivateKey();
+        try (StubGateway gateway = new StubGateway()) {
+            int unusedPort;
+            try (StubGateway unused = new StubGateway()) {
+                unusedPort = unused.getPort();
+            }
+            List<GatewayEndpoint> endpoints = new ArrayList<>();
+            endpoints.add(new GatewayEndpoint(gateway.getHost(), unusedPort));
+            endpoints.add(new GatewayEndpoint(gateway.getHost(), gateway.getPort()));
+            ChainConnector connector = ChainConnector.NewConnector(StubGateway.ACCESS_ID, key);
+            connector.connectToCluster(endpoints, Constants.DEFAULT_DOMAIN_NAME);
+            getStatus(connector, 50);
+            assertEquals(50, gateway.getRequests());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorConcurrencyTest {
+    @Test
+    void requestsSignedWhileReconnecting() throws Exception {
+        final int callers = 16;
+        final int requestsPerCaller = 100;
+        try (StubGateway gateway = new StubGateway()) {
+            ChainConnector connector = gateway.newConnector();
+
+            ExecutorService pool = Executors.newFixedThreadPool(callers + 1);
+            ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+            AtomicBoolean running = new AtomicBoolean(true);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                Future<?> reconnect = pool.submit(() -> {
+                    start.await();
+                    while (running.get()) {
+                        connector.connect(gateway.getHost(), gateway.getPort());
+                    }
+                    return null;
+                });
+                List<Future<?>> tasks = new ArrayList<>();
+                for (int i = 0; i < callers; i++) {
+                    final boolean async = 0 == i % 2;
+                    tasks.add(pool.submit(() -> {
+                        start.await();
+                        for (int j = 0; j < requestsPerCaller; j++) {
+                            try {
+                                ChainStatus status;
+                                if (async) {
+                                    status = connector.getStatusAsync().get();
+                                } else {
+                                    status = connector.getStatus();
+                                }
+                                assertEquals(1, status.getBlockHeight());
+                            } catch (Throwable e) {
+                                failures.add(e);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> task : tasks) {
+                    task.get(60, TimeUnit.SECONDS);
+                }
+                running.set(false);
+                reconnect.get(60, TimeUnit.SECONDS);
+            } finally {
+                pool.shutdownNow();
+            }
+            assertTrue(failures.isEmpty(), () -> "requests failed: " + failures.peek());
+            assertTrue(gateway.getRejected().isEmpty(), () -> "requests rejected: " + gateway.getRejected().get(0));
+            assertTrue(gateway.getSessionsAllocated() > 1, "no session reallocated");
+            assertEquals(callers * requestsPerCaller, gateway.getRequests());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorFactoryTest {
+    @Test
+    void connectorsShareTransport() throws Exception {
+        byte[] key = StubGateway.newPrivateKey();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (StubGateway gateway = new StubGateway()) {
+            ChainTransport transport = ChainTransport.newBuilder()
+                    .setExecutor(executor)
+                    .setConnectTimeout(Duration.ofSeconds(1))
+                    .build();
+            ChainConnectorFactory factory = new ChainConnectorFactory(transport);
+            List<ChainConnector> connectors = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                ChainConnector connector = factory.NewConnector(StubGateway.ACCESS_ID, key);
+                connector.connect(gateway.getHost(), gateway.getPort());
+                connectors.add(connector);
+            }
+            for (ChainConnector connector : connectors) {
+                assertSame(transport, connector.getTransport());
+                assertEquals(1, connector.getStatus().getBlockHeight());
+            }
+            assertNotEquals(connectors.get(0).getSessionID(), connectors.get(1).getSessionID());
+            assertEquals(connectors.size(), gateway.getSessionsAllocated());
+
+            ChainConnector standalone = ChainConnector.NewConnector(StubGateway.ACCESS_ID, key);
+            assertNotSame(transport, standalone.getTransport());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void blockingCallsOnVirtualThreads() throws Exception {
+        byte[] key = StubGateway.newPrivateKey();
+        try (StubGateway gateway = new StubGateway();
+             ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            ChainTransport transport = ChainTransport.newBuilder().setVirtualThreads(true).build();
+            assertTrue(transport.isVirtualThreadsEnabled());
+            ChainConnector connector = new ChainConnectorFactory(transport).NewConnector(StubGateway.ACCESS_ID, key);
+            connector.connect(gateway.getHost(), gateway.getPort());
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                results.add(callers.submit(() -> 1 == connector.getStatus().getBlockHeight()));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+            assertEquals(results.size(), gateway.getRequests());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorHedgeTest {
+    private static ChainStatus newStatus() {
+        ChainStatus status = new ChainStatus();
+        status.setBlockHeight(1);
+        return status;
+    }
+
+    @Test
+    void hedgeSlowReads() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            //every tenth request stalls
+            AtomicInteger counter = new AtomicInteger();
+            gateway.route("GET", "/status", (method, path, body) -> {
+                if (0 == counter.incrementAndGet() % 10) {
+                    Thread.sleep(600);
+                }
+                return newStatus();
+            });
+            ChainConnector connector = gateway.newConnector();
+            connector.setHedgePolicy(HedgePolicy.newBuilder().setPercentile(0.5).setBudget(0.5).build());
+            for (int i = 0; i < 40; i++) {
+                connector.getStatus();
+            }
+            long slowest = 0;
+            for (int i = 0; i < 40; i++) {
+                long begin = System.nanoTime();
+                assertEquals(1, connector.getStatus().getBlockHeight());
+                slowest = Math.max(slowest, System.nanoTime() - begin);
+            }
+            Hedger hedger = connector.getHedger();
+            assertTrue(hedger.getWon() > 0, "no hedge won");
+            assertTrue(slowest < Duration.ofMillis(300).toNanos(), "slow read not hedged: " + slowest);
+        }
+    }
+
+    @Test
+    void hedgesLimitedByBudget() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicBoolean slow = new AtomicBoolean(false);
+            gateway.route("GET", "/status", (method, path, body) -> {
+                if (slow.get()) {
+                    Thread.sleep(50);
+                }
+                return newStatus();
+            });
+            ChainConnector connector = gateway.newConnector();
+            connector.setHedgePolicy(HedgePolicy.newBuilder().setPercentile(0.9).setBudget(0.1).build());
+            final int warmup = 40;
+            final int reads = 100;
+            for (int i = 0; i < warmup; i++) {
+                connector.getStatus();
+            }
+            slow.set(true);
+            for (int i = 0; i < reads; i++) {
+                assertEquals(1, connector.getStatus().getBlockHeight());
+            }
+            Hedger hedger = connector.getHedger();
+            assertTrue(hedger.getHedged() > 0, "no read hedged");
+            assertTrue(hedger.getHedged() <= (warmup + reads) * 0.1 + 1, "budget exceeded: " + hedger.getHedged());
+            assertTrue(gateway.getRequests() <= warmup + reads + hedger.getHedged());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package io.taiyi.chain.sdk;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorKeysetTest {
+    private static final String PATH = "/queries/schemas/sample/docs/";
+
+    private static class scoredRecord {
+        private final String id;
+        private final int score;
+
+        scoredRecord(String id, int score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Records ordered by score, ties ordered by ID, many ties span pages
+     */
+    private static List<scoredRecord> newRecords(int count) {
+        Random random = new Random(20230501);
+        List<scoredRecord> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new scoredRecord(String.format("doc-%08x", random.nextInt()), random.nextInt(8)));
+        }
+        records.sort(Comparator.<scoredRecord>comparingInt(r -> r.score).thenComparing(r -> r.id));
+        return records;
+    }
+
+    /**
+     * Serve records after the cursor, or from the cursor when inclusive
+     */
+    private static void routeQuery(StubGateway gateway, List<scoredRecord> records, boolean inclusive,
+                                   ConcurrentLinkedQueue<QueryCondition> conditions) {
+        final Gson gson = new Gson();
+        gateway.route("POST", PATH, (method, path, body) -> {
+            QueryCondition condition = gson.fromJson(body, QueryCondition.class);
+            conditions.add(condition);
+            int begin = 0;
+            if (null != condition.getSince() && !condition.getSince().isEmpty()) {
+                while (!records.get(begin).id.equals(condition.getSince())) {
+                    begin++;
+                }
+                if (!inclusive) {
+                    begin++;
+                }
+            }
+            List<Document> documents = new ArrayList<>();
+            for (int i = begin; i < Math.min(records.size(), begin + condition.getLimit()); i++) {
+                documents.add(new Document(records.get(i).id, "{\"score\": " + records.get(i).score + "}"));
+            }
+            DocumentRecords result = new DocumentRecords();
+            result.setDocuments(documents);
+            result.setLimit(condition.getLimit());
+            result.setTotal(records.size());
+            return result;
+        });
+    }
+
+    private static void assertScanned(List<scoredRecord> records, boolean inclusive) throws Exception {
+        assertScanned(records, inclusive, 50);
+    }
+
+    private static void assertScanned(List<scoredRecord> records, boolean inclusive, int pageSize) throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            ConcurrentLinkedQueue<QueryCondition> conditions = new ConcurrentLinkedQueue<>();
+            routeQuery(gateway, records, inclusive, conditions);
+            ChainConnector connector = gateway.newConnector();
+
+            QueryCondition condition = new QueryBuilder().AscendBy("score").MaxRecord(pageSize).Build();
+            List<String> docIDs;
+            try (Stream<Document> documents = connector.streamDocuments("sample", condition, PagingMode.KEYSET)) {
+                docIDs = documents.map(Document::getId).collect(Collectors.toList());
+            }
+            assertEquals(records.stream().map(r -> r.id).collect(Collectors.toList()), docIDs);
+            for (QueryCondition sent : conditions) {
+                assertEquals(0, sent.getOffset());
+                assertEquals("score", sent.getOrder());
+            }
+            //every page brings a full page of new documents, besides the one finding cursor included
+            int pages = records.size() / pageSize + 1;
+            assertTrue(conditions.size() <= (inclusive ? pages + 1 : pages), "requests " + conditions.size());
+        }
+    }
+
+    @Test
+    void tiesAcrossPagesScannedOnce() throws Exception {
+        assertScanned(newRecords(1000), false);
+        //records exactly fill pages
+        assertScanned(newRecords(500), false);
+    }
+
+    @Test
+    void cursorIncludedByGateway() throws Exception {
+        assertScanned(newRecords(1000), true);
+        assertScanned(Collections.emptyList(), true);
+    }
+
+    @Test
+    void singleDocumentPages() throws Exception {
+        assertScanned(newRecords(20), false, 1);
+        assertScanned(newRecords(20), true, 1);
+        assertScanned(newRecords(1), true, 1);
+    }
+
+    @Test
+    void offsetNotAllowed() {
+        ChainConnector connector = ChainConnector.NewConnector(StubGateway.ACCESS_ID, StubGateway.newPrivateKey());
+        QueryCondition condition = new QueryBuilder().SetOffset(10).Build();
+        assertThrows(IllegalArgumentException.class,
+                () -> connector.streamDocuments("sample", condition, PagingMode.KEYSET));
+    }
+}
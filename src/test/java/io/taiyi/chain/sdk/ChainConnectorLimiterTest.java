@@ -0,0 +1,84 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorLimiterTest {
+    @Test
+    void burstLimitedInFlight() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger peak = new AtomicInteger();
+            gateway.route("POST", "/schemas/sample/docs/", (method, path, body) -> {
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } finally {
+                    active.decrementAndGet();
+                }
+                return Collections.singletonMap("id", "doc");
+            });
+            ChainConnector connector = gateway.newConnector();
+            ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder()
+                    .setInitialLimit(4)
+                    .setLimitRange(1, 4)
+                    .build();
+            connector.setConcurrencyLimiter(limiter);
+
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(connector.addDocumentAsync("sample", "doc", "{}"));
+            }
+            for (CompletableFuture<String> result : results) {
+                assertEquals("doc", result.get());
+            }
+            assertTrue(peak.get() <= 4, "requests in flight over limit: " + peak.get());
+            assertEquals(0, limiter.getInFlight());
+            assertEquals(0, limiter.getQueued());
+        }
+    }
+
+    @Test
+    void queueingCountedInTimeout() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            gateway.route("GET", "/status", (method, path, body) -> {
+                Thread.sleep(700);
+                ChainStatus status = new ChainStatus();
+                status.setBlockHeight(1);
+                return status;
+            });
+            ChainConnector connector = gateway.newConnector();
+            ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder()
+                    .setInitialLimit(1)
+                    .setLimitRange(1, 1)
+                    .build();
+            connector.setConcurrencyLimiter(limiter);
+            connector.setTimeout(1);
+
+            CompletableFuture<ChainStatus> first = connector.getStatusAsync();
+            CompletableFuture<ChainStatus> second = connector.getStatusAsync();
+            assertEquals(1, first.get().getBlockHeight());
+            //admitted after 700 ms, and only the rest of timeout left
+            ExecutionException error = assertThrows(ExecutionException.class, second::get);
+            assertInstanceOf(HttpTimeoutException.class, error.getCause());
+
+            ConcurrencyLimiter.Permit permit = limiter.acquire(1000);
+            error = assertThrows(ExecutionException.class, () -> connector.getStatusAsync().get());
+            assertInstanceOf(TimeoutException.class, error.getCause());
+            permit.release();
+        }
+    }
+}
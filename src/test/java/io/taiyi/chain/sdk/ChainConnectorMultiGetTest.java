@@ -0,0 +1,89 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorMultiGetTest {
+    private static final String PATH = "/schemas/sample/docs/";
+
+    @Test
+    void fetchInOrderAndReportMissing() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger peak = new AtomicInteger();
+            gateway.route("GET", PATH, (method, path, body) -> {
+                String docID = path.substring(PATH.length());
+                if (docID.startsWith("missing")) {
+                    throw new Exception("document " + docID + " not exists");
+                } else if (docID.startsWith("broken")) {
+                    throw new StubGateway.HttpFailure(500);
+                }
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+                } finally {
+                    active.decrementAndGet();
+                }
+                return new Document(docID, "{\"id\": \"" + docID + "\"}");
+            });
+            ChainConnector connector = gateway.newConnector();
+
+            List<String> docIDs = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                docIDs.add(0 == i % 50 ? "missing-" + i : "doc-" + i);
+            }
+            DocumentBatch batch = connector.getDocumentsAsync("sample", docIDs, 4).get();
+            assertEquals(Arrays.asList("missing-0", "missing-50", "missing-100", "missing-150"), batch.getMissing());
+            assertEquals(196, batch.getDocuments().size());
+            int index = 0;
+            for (String docID : docIDs) {
+                if (docID.startsWith("doc")) {
+                    Document document = batch.getDocuments().get(index++);
+                    assertEquals(docID, document.getId());
+                    assertEquals("{\"id\": \"" + docID + "\"}", document.getContent());
+                }
+            }
+            assertTrue(peak.get() <= 4, "documents fetched concurrently: " + peak.get());
+
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> connector.getDocumentsAsync("sample", Arrays.asList("doc-1", "broken-2")).get());
+            assertInstanceOf(HttpStatusException.class, error.getCause());
+            assertEquals(0, connector.getDocuments("sample", new ArrayList<>()).getDocuments().size());
+        }
+    }
+
+    @Test
+    void readThroughDocumentCache() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicInteger reads = new AtomicInteger();
+            gateway.route("GET", PATH, (method, path, body) -> {
+                reads.incrementAndGet();
+                String docID = path.substring(PATH.length());
+                return new Document(docID, "{\"id\": \"" + docID + "\"}");
+            });
+            ChainConnector connector = gateway.newConnector();
+            DocumentCache cache = DocumentCache.newBuilder().setMaxBytes(1 << 20).build();
+            connector.setDocumentCache(cache);
+
+            assertEquals("{\"id\": \"doc-0\"}", connector.getDocument("sample", "doc-0"));
+            List<String> docIDs = Arrays.asList("doc-0", "doc-1", "doc-2");
+            assertEquals(3, connector.getDocuments("sample", docIDs).getDocuments().size());
+            assertEquals(3, reads.get());
+            DocumentBatch batch = connector.getDocuments("sample", docIDs);
+            assertEquals(3, reads.get());
+            assertEquals("doc-2", batch.getDocuments().get(2).getId());
+            assertEquals("{\"id\": \"doc-2\"}", batch.getDocuments().get(2).getContent());
+        }
+    }
+}
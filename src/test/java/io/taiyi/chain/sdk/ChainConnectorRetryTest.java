@@ -0,0 +1,71 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChainConnectorRetryTest {
+    private static RetryPolicy newPolicy() {
+        return BackoffRetryPolicy.newBuilder()
+                .setMaxAttempts(3)
+                .setBaseDelay(Duration.ofMillis(10))
+                .setMaxDelay(Duration.ofMillis(50))
+                .build();
+    }
+
+    @Test
+    void retryTransientFailures() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicInteger calls = new AtomicInteger();
+            gateway.route("GET", "/status", (method, path, body) -> {
+                if (calls.incrementAndGet() <= 2) {
+                    throw new StubGateway.HttpFailure(503);
+                }
+                ChainStatus status = new ChainStatus();
+                status.setBlockHeight(1);
+                return status;
+            });
+            ChainConnector connector = gateway.newConnector();
+
+            HttpStatusException error = assertThrows(HttpStatusException.class, connector::getStatus);
+            assertEquals(503, error.getStatusCode());
+            assertEquals("fetch result failed with status 503", error.getMessage());
+
+            calls.set(0);
+            connector.setRetryPolicy(newPolicy());
+            assertEquals(1, connector.getStatus().getBlockHeight());
+            assertEquals(3, calls.get());
+        }
+    }
+
+    @Test
+    void skipNonIdempotentAndGatewayErrors() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicInteger adds = new AtomicInteger();
+            gateway.route("POST", "/schemas/sample/docs/", (method, path, body) -> {
+                adds.incrementAndGet();
+                throw new StubGateway.HttpFailure(503);
+            });
+            AtomicInteger gets = new AtomicInteger();
+            gateway.route("GET", "/schemas/sample/docs/", (method, path, body) -> {
+                gets.incrementAndGet();
+                throw new Exception("document not found");
+            });
+            ChainConnector connector = gateway.newConnector();
+            connector.setRetryPolicy(newPolicy());
+
+            assertThrows(HttpStatusException.class, () -> connector.addDocument("sample", "doc", "{}"));
+            assertEquals(1, adds.get());
+
+            GatewayException error = assertThrows(GatewayException.class,
+                    () -> connector.getDocument("sample", "doc"));
+            assertEquals(1, error.getErrorCode());
+            assertEquals("fetch failed: document not found", error.getMessage());
+            assertEquals(1, gets.get());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package io.taiyi.chain.sdk;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorScanTest {
+    private static final int COUNT = 2000;
+
+    private static class filterFormat {
+        private String property;
+        private int operator;
+        private String value;
+    }
+
+    private static class queryFormat {
+        private List<filterFormat> filters;
+        private String since;
+        private int limit;
+        private String order;
+        private boolean descend;
+    }
+
+    private static class valueRecord {
+        private final String id;
+        private final long value;
+
+        valueRecord(String id, long value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+
+    private static boolean matches(valueRecord record, List<filterFormat> filters) {
+        if (null == filters) {
+            return true;
+        }
+        for (filterFormat filter : filters) {
+            long bound = Long.parseLong(filter.value);
+            if (FilterOperator.GREATER_OR_EQUAL.getValue() == filter.operator && record.value < bound) {
+                return false;
+            } else if (FilterOperator.LESS_THAN.getValue() == filter.operator && record.value >= bound) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class scanGateway {
+        private final List<valueRecord> records = new ArrayList<>();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+        private final List<String> ranges = new ArrayList<>();
+
+        scanGateway(StubGateway gateway) {
+            Random random = new Random(20230502);
+            for (int i = 0; i < COUNT; i++) {
+                records.add(new valueRecord(String.format("doc-%08x", random.nextInt()), random.nextInt(1000)));
+            }
+            DocumentSchema schema = new DocumentSchema();
+            schema.setName("sample");
+            schema.setProperties(new DocumentProperty[]{
+                    new DocumentProperty("value", PropertyType.Integer, true),
+                    new DocumentProperty("remark", PropertyType.String, false)});
+            gateway.route("GET", "/schemas/sample", (method, path, body) -> schema);
+            final Gson gson = new Gson();
+            gateway.route("POST", "/queries/schemas/sample/docs/", (method, path, body) -> {
+                queryFormat query = gson.fromJson(body, queryFormat.class);
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(2);
+                    return query(query);
+                } finally {
+                    active.decrementAndGet();
+                }
+            });
+        }
+
+        private DocumentRecords query(queryFormat query) {
+            if (null == query.since || query.since.isEmpty()) {
+                synchronized (ranges) {
+                    ranges.add(new Gson().toJson(query.filters));
+                }
+            }
+            Comparator<valueRecord> comparator = Comparator.<valueRecord>comparingLong(r -> r.value)
+                    .thenComparing(r -> r.id);
+            if (query.descend) {
+                comparator = comparator.reversed();
+            }
+            List<valueRecord> sorted = records.stream().filter(r -> matches(r, query.filters)).sorted(comparator)
+                    .collect(Collectors.toList());
+            int begin = 0;
+            if (null != query.since && !query.since.isEmpty()) {
+                while (!sorted.get(begin).id.equals(query.since)) {
+                    begin++;
+                }
+                begin++;
+            }
+            List<Document> documents = new ArrayList<>();
+            for (int i = begin; i < Math.min(sorted.size(), begin + query.limit); i++) {
+                documents.add(new Document(sorted.get(i).id, "{\"value\": " + sorted.get(i).value + "}"));
+            }
+            DocumentRecords result = new DocumentRecords();
+            result.setDocuments(documents);
+            result.setLimit(query.limit);
+            result.setTotal(sorted.size());
+            return result;
+        }
+
+        List<String> sortedIDs(boolean descend) {
+            Comparator<valueRecord> comparator = Comparator.<valueRecord>comparingLong(r -> r.value)
+                    .thenComparing(r -> r.id);
+            if (descend) {
+                comparator = comparator.reversed();
+            }
+            return records.stream().sorted(comparator).map(r -> r.id).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void scanPartitionsInOrder() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            scanGateway stub = new scanGateway(gateway);
+            ChainConnector connector = gateway.newConnector();
+
+            QueryCondition condition = new QueryBuilder().MaxRecord(50).Build();
+            List<String> docIDs;
+            try (Stream<Document> documents = connector.scanDocuments("sample", condition, "value", 4, true)) {
+                docIDs = documents.map(Document::getId).collect(Collectors.toList());
+            }
+            assertEquals(stub.sortedIDs(false), docIDs);
+            //bounds and 4 partitions
+            assertEquals(6, stub.ranges.size());
+            assertTrue(stub.peak.get() > 1, "partitions not scanned concurrently");
+
+            condition = new QueryBuilder().DescendBy("value").MaxRecord(50).Build();
+            try (Stream<Document> documents = connector.scanDocuments("sample", condition, "value", 3, true)) {
+                docIDs = documents.map(Document::getId).collect(Collectors.toList());
+            }
+            assertEquals(stub.sortedIDs(true), docIDs);
+        }
+    }
+
+    @Test
+    void scanPartitionsUnordered() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            scanGateway stub = new scanGateway(gateway);
+            ChainConnector connector = gateway.newConnector();
+
+            List<String> docIDs;
+            try (Stream<Document> documents = connector.scanDocuments("sample", null, "value", 8, false)) {
+                docIDs = documents.map(Document::getId).collect(Collectors.toList());
+            }
+            assertEquals(COUNT, docIDs.size());
+            assertEquals(new HashSet<>(stub.sortedIDs(false)), new HashSet<>(docIDs));
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> connector.scanDocuments("sample", null, "remark", 4, false));
+            assertThrows(IllegalArgumentException.class,
+                    () -> connector.scanDocuments("sample", new QueryBuilder().AscendBy("remark").Build(), "value", 4,
+                            true));
+        }
+    }
+
+    @Test
+    void splitKeyRange() {
+        assertEquals(List.of("25", "50", "75"), KeyRange.split("int", "0", "100", 4));
+        assertEquals(List.of("1", "2"), KeyRange.split("int", "0", "2", 8));
+        assertEquals(List.of("0.5"), KeyRange.split("float", "0", "1", 2));
+        List<String> boundaries = KeyRange.split("string", "apple", "azure", 4);
+        assertEquals(3, boundaries.size());
+        String previous = "apple";
+        for (String boundary : boundaries) {
+            assertTrue(boundary.compareTo(previous) > 0 && boundary.compareTo("azure") <= 0, boundary);
+            previous = boundary;
+        }
+        assertEquals(List.of("b"), KeyRange.split("string", "a", "c", 2));
+    }
+}
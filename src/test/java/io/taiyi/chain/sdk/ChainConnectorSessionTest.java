@@ -0,0 +1,77 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorSessionTest {
+    @Test
+    void reconnectWhenSessionRejected() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            ChainConnector connector = gateway.newConnector();
+            String previous = connector.getSessionID();
+
+            gateway.expireSessions();
+            assertEquals(1, connector.getStatus().getBlockHeight());
+            assertNotEquals(previous, connector.getSessionID());
+            assertEquals(2, gateway.getSessionsAllocated());
+
+            gateway.expireSessions();
+            connector.activate();
+            assertEquals(3, gateway.getSessionsAllocated());
+        }
+    }
+
+    @Test
+    void concurrentRequestsShareReconnect() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            ChainConnector connector = gateway.newConnector();
+            gateway.expireSessions();
+
+            List<CompletableFuture<ChainStatus>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(connector.getStatusAsync());
+            }
+            for (CompletableFuture<ChainStatus> result : results) {
+                assertEquals(1, result.get().getBlockHeight());
+            }
+            assertEquals(2, gateway.getSessionsAllocated());
+        }
+    }
+
+    @Test
+    void reconnectBeforeSendingWhenExpired() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            gateway.setSessionTimeout(1);
+            ChainConnector connector = gateway.newConnector();
+            Thread.sleep(1100);
+
+            assertEquals(1, connector.getStatus().getBlockHeight());
+            assertEquals(2, gateway.getSessionsAllocated());
+            assertTrue(gateway.getRejected().isEmpty(), "stale session sent");
+        }
+    }
+
+    @Test
+    void keepAliveIdleSession() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            gateway.setSessionTimeout(1);
+            ChainConnector connector = gateway.newConnector();
+            connector.setKeepAlive(true);
+            String sessionID = connector.getSessionID();
+            Thread.sleep(2000);
+            connector.setKeepAlive(false);
+
+            assertTrue(gateway.getRequests() >= 3, "session not activated");
+            assertEquals(1, connector.getStatus().getBlockHeight());
+            assertEquals(sessionID, connector.getSessionID());
+            assertEquals(1, gateway.getSessionsAllocated());
+        }
+    }
+}
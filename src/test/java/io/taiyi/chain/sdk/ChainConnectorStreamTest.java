@@ -0,0 +1,99 @@
+package io.taiyi.chain.sdk;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainConnectorStreamTest {
+    private static final String PATH = "/queries/schemas/sample/docs/";
+    private static final int TOTAL = 1050;
+
+    private static void routeQuery(StubGateway gateway, AtomicInteger queries) {
+        final Gson gson = new Gson();
+        gateway.route("POST", PATH, (method, path, body) -> {
+            queries.incrementAndGet();
+            QueryCondition condition = gson.fromJson(body, QueryCondition.class);
+            if (condition.getOffset() > TOTAL) {
+                throw new Exception("offset out of range");
+            }
+            List<Document> documents = new ArrayList<>();
+            int end = Math.min(TOTAL, condition.getOffset() + condition.getLimit());
+            for (int i = condition.getOffset(); i < end; i++) {
+                documents.add(new Document("doc-" + i, "{}"));
+            }
+            DocumentRecords records = new DocumentRecords();
+            records.setDocuments(documents);
+            records.setOffset(condition.getOffset());
+            records.setLimit(condition.getLimit());
+            records.setTotal(TOTAL);
+            return records;
+        });
+    }
+
+    @Test
+    void streamAllPages() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicInteger queries = new AtomicInteger();
+            routeQuery(gateway, queries);
+            ChainConnector connector = gateway.newConnector();
+
+            QueryCondition condition = new QueryBuilder().MaxRecord(100).Build();
+            List<String> docIDs;
+            try (Stream<Document> documents = connector.streamDocuments("sample", condition)) {
+                docIDs = documents.map(Document::getId).collect(Collectors.toList());
+            }
+            assertEquals(TOTAL, docIDs.size());
+            for (int i = 0; i < TOTAL; i++) {
+                assertEquals("doc-" + i, docIDs.get(i));
+            }
+            assertEquals(11, queries.get());
+            assertEquals(0, condition.getOffset());
+        }
+    }
+
+    @Test
+    void prefetchAndClose() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            AtomicInteger queries = new AtomicInteger();
+            routeQuery(gateway, queries);
+            ChainConnector connector = gateway.newConnector();
+
+            Stream<Document> documents = connector.streamDocuments("sample", null);
+            assertEquals(0, queries.get(), "query before consumed");
+            Iterator<Document> iterator = documents.iterator();
+            assertEquals("doc-0", iterator.next().getId());
+            //the second page requested while the first one consumed
+            for (int i = 0; i < 100 && queries.get() < 2; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, queries.get());
+            documents.close();
+            assertTrue(!iterator.hasNext(), "iterate after closed");
+            assertEquals(2, queries.get());
+        }
+    }
+
+    @Test
+    void failureThrownWhenIterating() throws Exception {
+        try (StubGateway gateway = new StubGateway()) {
+            routeQuery(gateway, new AtomicInteger());
+            ChainConnector connector = gateway.newConnector();
+
+            QueryCondition condition = new QueryBuilder().SetOffset(TOTAL + 1).Build();
+            try (Stream<Document> documents = connector.streamDocuments("sample", condition)) {
+                RuntimeException error = assertThrows(RuntimeException.class, () -> documents.count());
+                assertTrue(error.getCause() instanceof GatewayException, "unexpected cause: " + error.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+    @Test
+    void queueOverLimit() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder().setInitialLimit(2).build();
+        ConcurrencyLimiter.Permit first = limiter.acquire(100);
+        ConcurrencyLimiter.Permit second = limiter.acquire(100);
+        CompletableFuture<ConcurrencyLimiter.Permit> third = limiter.acquireAsync(1000);
+        CompletableFuture<ConcurrencyLimiter.Permit> fourth = limiter.acquireAsync(1000);
+        assertFalse(third.isDone());
+        assertEquals(2, limiter.getQueued());
+
+        first.release();
+        assertTrue(third.isDone());
+        assertFalse(fourth.isDone());
+        second.release();
+        second.release();
+        assertTrue(fourth.isDone());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void timeoutInQueue() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder().setInitialLimit(1).build();
+        ConcurrencyLimiter.Permit permit = limiter.acquire(100);
+        assertThrows(TimeoutException.class, () -> limiter.acquire(50));
+        CompletableFuture<ConcurrencyLimiter.Permit> cancelled = limiter.acquireAsync(1000);
+        cancelled.cancel(false);
+        assertEquals(0, limiter.getQueued());
+
+        CompletableFuture<ConcurrencyLimiter.Permit> queued = limiter.acquireAsync(50);
+        ExecutionException error = assertThrows(ExecutionException.class, queued::get);
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        permit.release();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void increaseAdditivelyDecreaseMultiplicatively() throws Exception {
+        //round trips in test are too short to measure congestion
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder()
+                .setInitialLimit(10)
+                .setLimitRange(1, 100)
+                .setBackoffRatio(0.5)
+                .setTolerance(1e9)
+                .build();
+        //each success with the limit fully used adds 1/limit
+        ConcurrencyLimiter.Permit[] inFlight = new ConcurrencyLimiter.Permit[10];
+        for (int i = 0; i < inFlight.length; i++) {
+            inFlight[i] = limiter.acquire(100);
+        }
+        for (int i = 0; i < 25; i++) {
+            int index = i % inFlight.length;
+            inFlight[index].onSuccess();
+            inFlight[index] = limiter.acquire(100);
+        }
+        assertEquals(12, limiter.getLimit());
+        for (ConcurrencyLimiter.Permit permit : inFlight) {
+            permit.release();
+        }
+
+        //drops of the same window decrease once
+        ConcurrencyLimiter.Permit[] permits = new ConcurrencyLimiter.Permit[4];
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = limiter.acquire(100);
+        }
+        for (ConcurrencyLimiter.Permit permit : permits) {
+            permit.onDropped();
+        }
+        assertEquals(6, limiter.getLimit());
+        assertEquals(4, limiter.getDropped());
+    }
+
+    @Test
+    void compareRoundTripsWithinClass() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.newBuilder().setTolerance(3).build();
+        ConcurrencyLimiter.Permit light = limiter.acquire("GET blocks/2", 100);
+        light.onSuccess();
+        //a heavy query is not compared with the light read
+        for (int i = 0; i < 2; i++) {
+            ConcurrencyLimiter.Permit heavy = limiter.acquire("POST queries/4", 100);
+            Thread.sleep(30);
+            heavy.onSuccess();
+        }
+        assertEquals(0, limiter.getDropped());
+
+        //a light read as slow as the heavy query is
+        light = limiter.acquire("GET blocks/2", 100);
+        Thread.sleep(30);
+        light.onSuccess();
+        assertEquals(1, limiter.getDropped());
+
+        assertEquals("GET blocks/2", ChainConnector.requestClassOf(RequestMethod.GET, "/blocks/block-1"));
+        assertEquals("GET blocks/4",
+                ChainConnector.requestClassOf(RequestMethod.GET, "/blocks/block-1/transactions/trans-1"));
+        assertEquals("POST queries/4", ChainConnector.requestClassOf(RequestMethod.POST, "/queries/schemas/sample/docs/"));
+    }
+}
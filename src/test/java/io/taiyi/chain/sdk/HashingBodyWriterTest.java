@@ -0,0 +1,52 @@
+package io.taiyi.chain.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class HashingBodyWriterTest {
+    private final Gson compactJSONMarshaller = new GsonBuilder().disableHtmlEscaping().setLenient().create();
+
+    private void verify(Object payload) throws Exception {
+        byte[] expected = compactJSONMarshaller.toJson(payload).getBytes(StandardCharsets.UTF_8);
+        PayloadBuffer body = new PayloadBuffer();
+        HashingBodyWriter writer = new HashingBodyWriter(body);
+        compactJSONMarshaller.toJson(payload, writer);
+        byte[] hash = writer.finish();
+        assertArrayEquals(expected, Arrays.copyOf(body.array(), body.size()));
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(expected), hash);
+    }
+
+    @Test
+    void smallPayload() throws Exception {
+        verify(new Document("doc-1", "{\"name\": \"hello\", \"age\": 20, \"available\": true}"));
+        verify(new Document("文档", "{\"name\": \"数据😀é\"}"));
+    }
+
+    @Test
+    void largePayloadAcrossChunks() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            content.append(i % 7 == 0 ? "链😀" : "asset-").append(i);
+        }
+        verify(new Document("large", content.toString()));
+    }
+
+    @Test
+    void emptyBody() throws Exception {
+        PayloadBuffer body = new PayloadBuffer();
+        byte[] hash = new HashingBodyWriter(body).finish();
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(new byte[0]), hash);
+    }
+
+    @Test
+    void malformedSurrogates() throws Exception {
+        verify(new Document("\ud83d", "lone \ude00 low and high \ud83d"));
+    }
+}
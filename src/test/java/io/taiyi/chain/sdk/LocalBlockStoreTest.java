@@ -0,0 +1,151 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalBlockStoreTest {
+    private static BlockData newBlock(int height, String previous) {
+        BlockData block = new BlockData();
+        block.setId("block-" + height);
+        block.setHeight(height);
+        block.setPreviousBlock(previous);
+        block.setTimestamp("2023-04-25T00:00:00Z");
+        block.setTransactions(2);
+        block.setContent("{\"height\": " + height + "}");
+        return block;
+    }
+
+    private static LocalBlockStore open(Path directory) throws IOException {
+        return LocalBlockStore.newBuilder().setDirectory(directory).setSegmentBytes(4096).build();
+    }
+
+    @Test
+    void persistAcrossSegments(@TempDir Path directory) throws Exception {
+        try (LocalBlockStore store = open(directory)) {
+            for (int height = 1; height <= 300; height++) {
+                store.putBlock(newBlock(height, height > 1 ? "block-" + (height - 1) : ""));
+            }
+            TransactionData transaction = new TransactionData();
+            transaction.setBlock("block-7");
+            transaction.setTransaction("trans-1");
+            transaction.setValidated(true);
+            transaction.setContent("{}");
+            store.putTransaction(transaction);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.filter(path -> path.toString().endsWith(".segment")).count() > 5);
+        }
+        try (LocalBlockStore store = open(directory)) {
+            assertEquals(300, store.getHighestHeight());
+            assertTrue(store.containsHeights(1, 300));
+            assertFalse(store.containsHeights(1, 301));
+            BlockData block = store.getBlock("block-150");
+            assertEquals(150, block.getHeight());
+            assertEquals("block-149", block.getPreviousBlock());
+            assertEquals("{\"height\": 150}", block.getContent());
+            assertEquals("block-42", store.getBlockID(42));
+            TransactionData transaction = store.getTransaction("block-7", "trans-1");
+            assertTrue(transaction.isValidated());
+            assertNull(transaction.getTimestamp());
+            assertNull(store.getTransaction("block-7", "trans-2"));
+
+            store.putBlock(newBlock(301, "block-300"));
+            assertEquals("block-301", store.getBlockID(301));
+        }
+    }
+
+    @Test
+    void checkLinks(@TempDir Path directory) throws Exception {
+        try (LocalBlockStore store = open(directory)) {
+            store.putBlock(newBlock(5, "block-4"));
+            //stored already
+            store.putBlock(newBlock(5, "block-4"));
+            assertThrows(BlockConflictException.class, () -> store.putBlock(newBlock(6, "fork-5")));
+            BlockData fork = newBlock(5, "block-4");
+            fork.setId("fork-5");
+            assertThrows(BlockConflictException.class, () -> store.putBlock(fork));
+            BlockData previous = newBlock(4, "block-3");
+            previous.setId("fork-4");
+            assertThrows(BlockConflictException.class, () -> store.putBlock(previous));
+            store.putBlock(newBlock(4, "block-3"));
+            store.putBlock(newBlock(6, "block-5"));
+            assertTrue(store.containsHeights(4, 6));
+            assertThrows(IOException.class, () -> open(directory));
+        }
+    }
+
+    @Test
+    void collectTransactionPages(@TempDir Path directory) throws Exception {
+        try (LocalBlockStore store = open(directory)) {
+            String[] expected = {"trans-0", "trans-1", "trans-2", "trans-3", "trans-4"};
+            TransactionRecords first = new TransactionRecords();
+            first.setTransactions(new String[]{"trans-0", "trans-1", "trans-2"});
+            first.setOffset(0);
+            first.setTotal(5);
+            store.putTransactionRecords("block-1", first);
+            assertNull(store.getTransactionList("block-1"));
+            TransactionRecords second = new TransactionRecords();
+            second.setTransactions(new String[]{"trans-3", "trans-4"});
+            second.setOffset(3);
+            second.setTotal(5);
+            store.putTransactionRecords("block-1", second);
+            assertArrayEquals(expected, store.getTransactionList("block-1"));
+
+            //partial lists beyond bound are dropped from the eldest
+            for (int i = 2; i <= LocalBlockStore.MAX_PENDING_LISTS + 2; i++) {
+                store.putTransactionRecords("block-" + i, first);
+            }
+            store.putTransactionRecords("block-3", second);
+            assertArrayEquals(expected, store.getTransactionList("block-3"));
+            store.putTransactionRecords("block-2", second);
+            assertNull(store.getTransactionList("block-2"));
+        }
+    }
+
+    @Test
+    void dropTornRecord(@TempDir Path directory) throws Exception {
+        try (LocalBlockStore store = open(directory)) {
+            store.putBlock(newBlock(1, ""));
+            store.putBlock(newBlock(2, "block-1"));
+        }
+        //corrupt content of the last record
+        Path segment = directory.resolve("00000000.segment");
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            int offset = 0;
+            int last = 0;
+            while (true) {
+                file.seek(offset);
+                int length = file.readInt();
+                if (0 == length) {
+                    break;
+                }
+                last = offset;
+                offset += 8 + length;
+            }
+            file.seek(offset - 1);
+            file.write(0xFF);
+            assertTrue(last > 0);
+        }
+        try (LocalBlockStore store = open(directory)) {
+            assertEquals("block-1", store.getBlockID(1));
+            assertNull(store.getBlockID(2));
+            store.putBlock(newBlock(2, "block-1"));
+        }
+        try (LocalBlockStore store = open(directory)) {
+            assertEquals("{\"height\": 2}", store.getBlock("block-2").getContent());
+        }
+    }
+}
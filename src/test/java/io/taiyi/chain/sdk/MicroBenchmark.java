@@ -0,0 +1,41 @@
+package io.taiyi.chain.sdk;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+
+/**
+ * Minimal single thread benchmark harness, reports time and heap allocation per operation.
+ * <p>
+ * Benchmarks are plain main classes under test sources and not executed by surefire, run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.taiyi.chain.sdk.[BenchmarkClass]
+ * </pre>
+ */
+final class MicroBenchmark {
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    //keep results reachable so the JIT can not eliminate the measured work
+    private static volatile int sink;
+
+    private MicroBenchmark() {
+    }
+
+    static void run(String name, int warmup, int iterations, Callable<Object> operation) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            consume(operation.call());
+        }
+        long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            consume(operation.call());
+        }
+        long elapsed = System.nanoTime() - begin;
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf("%-40s %12.1f ns/op %12d bytes/op\n", name,
+                (double) elapsed / iterations, allocated / iterations);
+    }
+
+    private static void consume(Object value) {
+        sink ^= System.identityHashCode(value);
+    }
+}
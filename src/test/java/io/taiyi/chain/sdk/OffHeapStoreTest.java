@@ -0,0 +1,109 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapStoreTest {
+    @Test
+    void putGetRemove() {
+        OffHeapStore store = new OffHeapStore(1 << 20, 64 << 10, new CacheMetrics());
+        Random random = new Random(20230425);
+        boolean[] present = new boolean[5000];
+        for (int i = 0; i < 20000; i++) {
+            int id = random.nextInt(present.length);
+            if (random.nextInt(3) == 0) {
+                store.remove("doc-" + id);
+                present[id] = false;
+            } else {
+                assertTrue(store.put("doc-" + id, i, "{\"id\": " + id + "}"));
+                present[id] = true;
+            }
+        }
+        int count = 0;
+        for (int id = 0; id < present.length; id++) {
+            String content = store.read("doc-" + id, OffHeapStore.view::getString);
+            if (present[id]) {
+                count++;
+                assertEquals("{\"id\": " + id + "}", content);
+            } else {
+                assertNull(content);
+            }
+        }
+        assertEquals(count, store.size());
+        assertFalse(store.put("huge", 0, new String(new char[64 << 10])));
+        store.clear();
+        assertEquals(0, store.size());
+        assertFalse(store.contains("doc-0"));
+    }
+
+    @Test
+    void evictOldestSlab() {
+        CacheMetrics metrics = new CacheMetrics();
+        //4 slabs of 10 records
+        OffHeapStore store = new OffHeapStore(4 * 1000, 1000, metrics);
+        String content = new String(new char[78]).replace('\0', 'x');
+        for (int i = 0; i < 50; i++) {
+            store.put(String.format("key-%02d", i), 1, content);
+        }
+        //the 5th slab reused the first one
+        assertEquals(40, store.size());
+        assertEquals(10, metrics.getEvictions());
+        assertNull(store.read("key-09", OffHeapStore.view::getString));
+        assertEquals(content, store.read("key-10", OffHeapStore.view::getString));
+        assertEquals(4000, store.allocated());
+    }
+
+    @Test
+    void readWhileRingRotates() throws Exception {
+        //4 slabs of 10 records, rotated every 10 puts
+        OffHeapStore store = new OffHeapStore(4 * 1000, 1000, new CacheMetrics());
+        final int total = 20000;
+        AtomicInteger written = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> reads = executor.submit(() -> {
+                Random random = new Random(20230425);
+                int found = 0;
+                for (int i = 0; i < total; i++) {
+                    //keys of the last slabs, often in the one evicted next
+                    int id = Math.max(0, written.get() - 1 - random.nextInt(40));
+                    String content = store.read("key-" + id, view -> {
+                        String decoded = view.getString();
+                        //the slab is not reused by the writer while read
+                        Thread.yield();
+                        assertEquals(decoded, view.getString());
+                        return decoded;
+                    });
+                    if (null != content) {
+                        assertEquals(contentOf(id), content);
+                        found++;
+                    }
+                }
+                return found;
+            });
+            for (int i = 0; i < total; i++) {
+                assertTrue(store.put("key-" + i, 1, contentOf(i)));
+                written.set(i + 1);
+            }
+            assertTrue(reads.get(10, TimeUnit.SECONDS) > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String contentOf(int id) {
+        //records of about the same size, rewritten over each other when slabs reused
+        return String.format("%078d", id);
+    }
+}
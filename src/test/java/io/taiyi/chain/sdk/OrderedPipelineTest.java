@@ -0,0 +1,86 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderedPipelineTest {
+    @Test
+    void slowSinkDoesNotBlockCompletions() throws Exception {
+        List<CompletableFuture<Integer>> sending = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sending.add(new CompletableFuture<>());
+        }
+        CountDownLatch sinkEntered = new CountDownLatch(1);
+        CountDownLatch sinkReleased = new CountDownLatch(1);
+        List<Integer> delivered = new ArrayList<>();
+        OrderedPipeline<Integer, Integer> pipeline = new OrderedPipeline<>(Arrays.asList(0, 1, 2).iterator(), 3,
+                sending::get, Runnable::run, (index, item, result, error) -> {
+            if (0 == index) {
+                sinkEntered.countDown();
+                assertTrue(sinkReleased.await(10, TimeUnit.SECONDS));
+            }
+            delivered.add(result);
+        }, null);
+        CompletableFuture<Long> finished = pipeline.start();
+
+        Thread first = new Thread(() -> sending.get(0).complete(10));
+        first.start();
+        assertTrue(sinkEntered.await(10, TimeUnit.SECONDS));
+        //completed while the sink is busy, returns at once and left for the delivering thread
+        CompletableFuture.runAsync(() -> {
+            sending.get(2).complete(12);
+            sending.get(1).complete(11);
+        }).get(10, TimeUnit.SECONDS);
+        sinkReleased.countDown();
+        assertEquals(3, finished.get(10, TimeUnit.SECONDS));
+        first.join();
+        assertEquals(Arrays.asList(10, 11, 12), delivered);
+    }
+
+    @Test
+    void failureCancelsItemsInFlight() throws Exception {
+        List<CompletableFuture<Integer>> sending = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sending.add(new CompletableFuture<>());
+        }
+        OrderedPipeline<Integer, Integer> pipeline = new OrderedPipeline<>(Arrays.asList(0, 1, 2, 3).iterator(), 3,
+                sending::get, Runnable::run, (index, item, result, error) -> {
+            if (null != error) {
+                throw error;
+            }
+        }, null);
+        CompletableFuture<Long> finished = pipeline.start();
+        sending.get(1).complete(11);
+        sending.get(0).completeExceptionally(new IllegalStateException("broken"));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> finished.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertTrue(sending.get(2).isCancelled());
+    }
+
+    @Test
+    void failWhenExecutorRejects() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        OrderedPipeline<Integer, Integer> pipeline = new OrderedPipeline<>(Arrays.asList(0, 1, 2).iterator(), 2,
+                CompletableFuture::completedFuture, executor, (index, item, result, error) -> {
+        }, null);
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> pipeline.start().get(10, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+    }
+}
@@ -0,0 +1,24 @@
+package io.taiyi.chain.sdk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Compare signing throughput of Ed25519 providers on a typical request signature payload
+ */
+public class RequestSignerBenchmark {
+    public static void main(String[] args) throws Exception {
+        byte[] key = new byte[32];
+        new Random().nextBytes(key);
+        final byte[] content = ("{\"id\":\"7f3bd2c0a1e54f6d\",\"method\":\"POST\",\"url\":\"/api/v1/domains/system/schemas/sample/docs/\"," +
+                "\"body\":\"n4bQgYhMfWWaL+qgxVrQFaO/TxsrC4Is0V1sFbDwCgg=\",\"access\":\"sample-access\"," +
+                "\"timestamp\":\"2023-04-25T10:00:00.000+08:00\",\"nonce\":\"Tq3LxZk8VbW2mYcN\"," +
+                "\"signature_algorithm\":\"ed25519\"}").getBytes(StandardCharsets.UTF_8);
+        final RequestSigner jdk = new JdkEd25519Signer(key);
+        final RequestSigner i2p = new I2PEd25519Signer(key);
+        final int warmup = 20_000;
+        final int iterations = 50_000;
+        MicroBenchmark.run("i2p eddsa (pooled)", warmup, iterations, () -> i2p.sign(content, 0, content.length));
+        MicroBenchmark.run("JDK Ed25519 (pooled)", warmup, iterations, () -> jdk.sign(content, 0, content.length));
+    }
+}
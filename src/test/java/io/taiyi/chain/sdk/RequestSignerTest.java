@@ -0,0 +1,45 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestSignerTest {
+    private static byte[] newPrivateKey() {
+        byte[] key = new byte[32];
+        new Random(20230425).nextBytes(key);
+        return key;
+    }
+
+    @Test
+    void providersGenerateSameSignature() throws Exception {
+        byte[] key = newPrivateKey();
+        RequestSigner jdk = new JdkEd25519Signer(key);
+        RequestSigner i2p = new I2PEd25519Signer(key);
+        assertEquals(Constants.SIGNATURE_METHOD_ED25519, jdk.getAlgorithm());
+        assertEquals(Constants.SIGNATURE_METHOD_ED25519, i2p.getAlgorithm());
+        for (int i = 0; i < 5; i++) {
+            byte[] content = ("{\"id\":\"session-" + i + "\",\"method\":\"GET\"}").getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(i2p.sign(content, 0, content.length), jdk.sign(content, 0, content.length));
+        }
+    }
+
+    @Test
+    void pooledEnginesSignRepeatedly() throws Exception {
+        byte[] key = newPrivateKey();
+        byte[] content = "{\"access\":\"sample\",\"nonce\":\"abc\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[content.length + 8];
+        System.arraycopy(content, 0, buffer, 4, content.length);
+        for (RequestSigner signer : Arrays.asList(new JdkEd25519Signer(key), new I2PEd25519Signer(key))) {
+            byte[] expected = signer.sign(content, 0, content.length);
+            for (int i = 0; i < 3; i++) {
+                assertArrayEquals(expected, signer.sign(buffer, 4, content.length));
+            }
+        }
+    }
+}
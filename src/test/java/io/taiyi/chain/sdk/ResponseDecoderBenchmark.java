@@ -0,0 +1,66 @@
+package io.taiyi.chain.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.jayway.jsonpath.JsonPath;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compare decoding a large document page with the previous String + JsonPath + Gson path
+ * and the single pass {@link ResponseDecoder}.
+ */
+public class ResponseDecoderBenchmark {
+    private static class legacyResponse {
+        private int error_code;
+        private String message;
+        private DocumentRecords data;
+    }
+
+    private static class envelope {
+        private int error_code;
+        private String message;
+        private DocumentRecords data;
+
+        envelope(DocumentRecords data) {
+            this.data = data;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int documentCount = 500;
+        final int contentLength = 1024;
+        final Gson marshaller = new GsonBuilder().disableHtmlEscaping().setLenient().create();
+        List<Document> documents = new ArrayList<>();
+        StringBuilder padding = new StringBuilder();
+        while (padding.length() < contentLength) {
+            padding.append("数据asset-");
+        }
+        for (int i = 0; i < documentCount; i++) {
+            String content = "{\"name\": \"" + padding + i + "\", \"age\": " + i + ", \"available\": true}";
+            documents.add(new Document("doc-" + i, content));
+        }
+        DocumentRecords records = new DocumentRecords();
+        records.setDocuments(documents);
+        records.setLimit(documentCount);
+        records.setTotal(documentCount * 10);
+        final byte[] body = marshaller.toJson(new envelope(records)).getBytes(StandardCharsets.UTF_8);
+        final ResponseDecoder decoder = new ResponseDecoder(marshaller);
+        System.out.printf("response of %d documents, %d bytes\n", documentCount, body.length);
+
+        final int warmup = 2_000;
+        final int iterations = 2_000;
+        MicroBenchmark.run("string + JsonPath + Gson (before)", warmup, iterations, () -> {
+            String content = new String(body, StandardCharsets.UTF_8);
+            int errorCode = JsonPath.read(content, "$.error_code");
+            if (0 != errorCode) {
+                throw new Exception("unexpected error " + errorCode);
+            }
+            return marshaller.fromJson(content, legacyResponse.class).data;
+        });
+        MicroBenchmark.run("single pass decoder (after)", warmup, iterations,
+                () -> decoder.decode(body, DocumentRecords.class));
+    }
+}
@@ -0,0 +1,61 @@
+package io.taiyi.chain.sdk;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResponseDecoderTest {
+    private static class ErrorEnvelope {
+        private final int error_code = 1;
+        private final String message;
+
+        ErrorEnvelope(String message) {
+            this.message = message;
+        }
+    }
+
+    private final ResponseDecoder decoder = new ResponseDecoder(new Gson());
+
+    private Exception failureOf(String message) {
+        byte[] body = new Gson().toJson(new ErrorEnvelope(message)).getBytes(StandardCharsets.UTF_8);
+        return assertThrows(Exception.class, () -> decoder.decode(body, ChainStatus.class));
+    }
+
+    @Test
+    void rejectSessionByKnownMessages() throws Exception {
+        assertInstanceOf(SessionRejectedException.class, failureOf("invalid session a1b2c3"));
+        assertInstanceOf(SessionRejectedException.class, failureOf("Invalid session"));
+        assertInstanceOf(SessionRejectedException.class, failureOf("session a1b2c3 expired"));
+
+        //merely mention a session
+        for (String message : new String[]{"document 'invalid session' exists", "invalid session key in contract",
+                "user session expired unexpectedly"}) {
+            Exception error = failureOf(message);
+            assertEquals(GatewayException.class, error.getClass(), message);
+        }
+
+        byte[] body = "{\"error_code\": 0, \"data\": {\"block_height\": 3}}".getBytes(StandardCharsets.UTF_8);
+        ChainStatus status = decoder.decode(body, ChainStatus.class);
+        assertEquals(3, status.getBlockHeight());
+    }
+
+    @Test
+    void reportMissingTargets() {
+        assertInstanceOf(NotFoundException.class, failureOf("document doc-1 not exists"));
+        assertInstanceOf(NotFoundException.class, failureOf("schema not found"));
+        assertEquals(GatewayException.class, failureOf("property x not found in schema y").getClass());
+
+        NotFoundException error = assertThrows(NotFoundException.class,
+                () -> decoder.decode(404, new byte[0], ChainStatus.class));
+        assertEquals(404, error.getStatusCode());
+        assertInstanceOf(SessionRejectedException.class,
+                assertThrows(Exception.class, () -> decoder.decode(401, new byte[0], ChainStatus.class)));
+        assertEquals(503, assertThrows(HttpStatusException.class,
+                () -> decoder.decode(503, new byte[0], ChainStatus.class)).getStatusCode());
+    }
+}
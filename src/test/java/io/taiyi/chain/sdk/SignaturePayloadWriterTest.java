@@ -0,0 +1,76 @@
+package io.taiyi.chain.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class SignaturePayloadWriterTest {
+    //request signature serialized by Gson before SignaturePayloadWriter introduced
+    private static class requestSignatureFormat {
+        private String id;
+        private String method;
+        private String url;
+        private String body;
+        private String access;
+        private String timestamp;
+        private String nonce;
+        private String signature_algorithm;
+    }
+
+    private final Gson compactJSONMarshaller = new GsonBuilder().disableHtmlEscaping().setLenient().create();
+
+    private void verify(String sessionID, String accessID, String nonce, String method, String url, String body,
+                        String timestamp) {
+        requestSignatureFormat format = new requestSignatureFormat();
+        format.id = sessionID;
+        format.method = method;
+        format.url = url;
+        format.body = body;
+        format.access = accessID;
+        format.timestamp = timestamp;
+        format.nonce = nonce;
+        format.signature_algorithm = Constants.SIGNATURE_METHOD_ED25519;
+        byte[] expected = compactJSONMarshaller.toJson(format).getBytes(StandardCharsets.UTF_8);
+
+        SignaturePayloadWriter writer = new SignaturePayloadWriter(sessionID, accessID, nonce,
+                Constants.SIGNATURE_METHOD_ED25519);
+        PayloadBuffer buffer = new PayloadBuffer(8);
+        //write twice to verify the reused buffer
+        for (int i = 0; i < 2; i++) {
+            buffer.reset();
+            writer.write(buffer, method, url, body, timestamp);
+            assertArrayEquals(expected, Arrays.copyOf(buffer.array(), buffer.size()));
+        }
+    }
+
+    @Test
+    void plainRequest() {
+        verify("7f3bd2c0a1e54f6d", "sample-access", "Tq3LxZk8VbW2mYcN", "GET",
+                "/api/v1/domains/system/schemas/sample/docs/doc-1", "", "2023-04-25T10:00:00.000+08:00");
+        verify("7f3bd2c0a1e54f6d", "sample-access", "Tq3LxZk8VbW2mYcN", "POST",
+                "/api/v1/domains/system/schemas/", "n4bQgYhMfWWaL+qgxVrQFaO/TxsrC4Is0V1sFbDwCgg=", "2023-04-25T02:00:00.123Z");
+    }
+
+    @Test
+    void emptySession() {
+        verify("", "sample-access", "", "PUT", "/api/v1/sessions/", "47DEQpj8HBSa+/TImW+5JCeuQeRkm5NMpJWZG3hSuFU=",
+                "2023-04-25T10:00:00.000-05:30");
+    }
+
+    @Test
+    void escapedCharacters() {
+        verify("se\"ss\\ion", "access\t\b\n\r\f\u0001\u001f", "<nonce>&='\u007f", "GET",
+                "/api/v1/domains/系统/schemas/名称/docs/é\u2028\u2029", "", "2023-04-25T10:00:00.000+08:00");
+    }
+
+    @Test
+    void surrogateCharacters() {
+        verify("😀", "access\ud83d", "\ude00nonce", "GET", "/docs/😀\ud83d", "",
+                "2023-04-25T10:00:00.000+08:00");
+    }
+}
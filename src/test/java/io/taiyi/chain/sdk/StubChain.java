@@ -0,0 +1,112 @@
+package io.taiyi.chain.sdk;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Linked blocks and transactions served by a stub gateway, block IDs are "block-<height>".
+ * Requests of status are not counted.
+ */
+class StubChain {
+    private volatile int height;
+    private final int transactionsPerBlock;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    StubChain(StubGateway gateway, int height, int transactionsPerBlock) {
+        this.height = height;
+        this.transactionsPerBlock = transactionsPerBlock;
+        gateway.route("POST", "/blocks/", (method, path, body) -> {
+            requests.incrementAndGet();
+            JsonObject request = JsonParser.parseString(body).getAsJsonObject();
+            if (path.endsWith("/transactions/")) {
+                return transactionsOf(path.split("/")[2], request.get("offset").getAsInt(),
+                        request.get("limit").getAsInt());
+            }
+            return blocksOf(request.get("from").getAsInt(), request.get("to").getAsInt());
+        });
+        gateway.route("GET", "/status", (method, path, body) -> {
+            ChainStatus status = new ChainStatus();
+            status.setBlockHeight(this.height);
+            status.setPreviousBlock(blockID(this.height));
+            return status;
+        });
+        gateway.route("GET", "/blocks/", (method, path, body) -> {
+            requests.incrementAndGet();
+            String[] segments = path.split("/");
+            if (segments.length > 4) {
+                return transactionOf(segments[2], segments[4]);
+            }
+            return blockOf(Integer.parseInt(segments[2].substring("block-".length())));
+        });
+    }
+
+    static String blockID(int height) {
+        return "block-" + height;
+    }
+
+    /**
+     * Append blocks to chain
+     */
+    void grow(int height) {
+        this.height = height;
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    BlockData blockOf(int blockHeight) throws Exception {
+        if (blockHeight <= 0 || blockHeight > height) {
+            throw new StubGateway.HttpFailure(404);
+        }
+        BlockData block = new BlockData();
+        block.setId(blockID(blockHeight));
+        block.setHeight(blockHeight);
+        block.setPreviousBlock(blockHeight > 1 ? blockID(blockHeight - 1) : "");
+        block.setTimestamp("2023-04-25T00:00:00Z");
+        block.setTransactions(transactionsPerBlock);
+        block.setContent("{\"height\": " + blockHeight + "}");
+        return block;
+    }
+
+    private BlockRecords blocksOf(int from, int to) {
+        BlockRecords records = new BlockRecords();
+        to = Math.min(to, height);
+        String[] blocks = new String[Math.max(0, to - from + 1)];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = blockID(from + i);
+        }
+        records.setBlocks(blocks);
+        records.setFrom(from);
+        records.setTo(to);
+        records.setHeight(height);
+        return records;
+    }
+
+    private TransactionRecords transactionsOf(String blockID, int offset, int limit) {
+        int end = Math.min(transactionsPerBlock, offset + limit);
+        String[] transactions = new String[Math.max(0, end - offset)];
+        for (int i = 0; i < transactions.length; i++) {
+            transactions[i] = blockID + "-trans-" + (offset + i);
+        }
+        TransactionRecords records = new TransactionRecords();
+        records.setTransactions(transactions);
+        records.setOffset(offset);
+        records.setLimit(limit);
+        records.setTotal(transactionsPerBlock);
+        records.setHasMore(end < transactionsPerBlock);
+        return records;
+    }
+
+    private TransactionData transactionOf(String blockID, String transID) {
+        TransactionData transaction = new TransactionData();
+        transaction.setBlock(blockID);
+        transaction.setTransaction(transID);
+        transaction.setTimestamp("2023-04-25T00:00:00Z");
+        transaction.setValidated(true);
+        transaction.setContent("{\"transaction\": \"" + transID + "\"}");
+        return transaction;
+    }
+}
@@ -0,0 +1,350 @@
+package io.taiyi.chain.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import net.i2p.crypto.eddsa.EdDSAPublicKey;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.apache.commons.lang3.RandomStringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process gateway for tests, allocates sessions and verifies the signature of every request
+ * the same way as the chain platform.
+ */
+final class StubGateway implements AutoCloseable {
+    static final String ACCESS_ID = "stub-access";
+
+    /**
+     * @return fixed Ed25519 private key of {@link #ACCESS_ID}, so results are reproducible
+     */
+    static byte[] newPrivateKey() {
+        byte[] key = new byte[32];
+        new Random(20230425).nextBytes(key);
+        return key;
+    }
+
+    /**
+     * Handle a verified request, the returned object is marshalled as the data of response
+     */
+    interface Handler {
+        Object handle(String method, String path, String body) throws Exception;
+    }
+
+    /**
+     * Thrown by handler to answer with an HTTP status
+     */
+    static class HttpFailure extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        HttpFailure(int status) {
+            super("status " + status);
+            this.status = status;
+        }
+    }
+
+    private static class signatureFormat {
+        private String id;
+        private String method;
+        private String url;
+        private String body;
+        private String access;
+        private String timestamp;
+        private String nonce;
+        private String signature_algorithm;
+    }
+
+    private static class initialSignatureFormat {
+        private String access;
+        private String timestamp;
+        private String nonce;
+        private String signature_algorithm;
+    }
+
+    private static class sessionRequest {
+        private String id;
+        private String nonce;
+    }
+
+    private static class route {
+        private final String method;
+        private final String prefix;
+        private final Handler handler;
+
+        route(String method, String prefix, Handler handler) {
+            this.method = method;
+            this.prefix = prefix;
+            this.handler = handler;
+        }
+    }
+
+    private static class session {
+        private final String nonce;
+
+        session(String nonce) {
+            this.nonce = nonce;
+        }
+    }
+
+    static {
+        //avoid delayed ACK stalls between response headers and body
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final String API_BASE = "/api/v" + Constants.API_VERSION;
+    private static final String SESSION_PATH = API_BASE + "/sessions/";
+    private static final String HEADER_SESSION = Constants.DEFAULT_PROJECT_NAME + "-Session";
+    private static final String HEADER_TIMESTAMP = Constants.DEFAULT_PROJECT_NAME + "-Timestamp";
+    private static final String HEADER_SIGNATURE = Constants.DEFAULT_PROJECT_NAME + "-Signature";
+    private static final String HEADER_SIGNATURE_ALGORITHM = Constants.DEFAULT_PROJECT_NAME + "-SignatureAlgorithm";
+
+    private final Gson marshaller = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+    private final String accessID;
+    private final byte[] privateKey;
+    private final EdDSAPublicKey publicKey;
+    private final EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, session> sessions = new ConcurrentHashMap<>();
+    private final List<route> routes = new CopyOnWriteArrayList<>();
+    private final List<String> rejected = new CopyOnWriteArrayList<>();
+    private final AtomicInteger allocated = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int sessionTimeout = 60;
+
+    /**
+     * Gateway of {@link #ACCESS_ID} with the fixed private key
+     */
+    StubGateway() throws IOException {
+        this(ACCESS_ID, newPrivateKey());
+    }
+
+    StubGateway(String accessID, byte[] privateKey) throws IOException {
+        this(accessID, privateKey, 0);
+    }
+
+    /**
+     * @param port port listening, allocated by system when 0
+     */
+    StubGateway(String accessID, byte[] privateKey, int port) throws IOException {
+        this.accessID = accessID;
+        this.privateKey = privateKey;
+        EdDSAPrivateKeySpec keySpec = new EdDSAPrivateKeySpec(privateKey, spec);
+        this.publicKey = new EdDSAPublicKey(new EdDSAPublicKeySpec(keySpec.getA(), spec));
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::serve);
+        route("GET", "/status", (method, path, body) -> {
+            ChainStatus status = new ChainStatus();
+            status.setWorldVersion("1");
+            status.setBlockHeight(1);
+            status.setGenesisBlock("genesis");
+            status.setPreviousBlock("genesis");
+            status.setAllocatedTransactionId("0");
+            return status;
+        });
+        server.start();
+    }
+
+    /**
+     * @return connector signing with the access ID and key of this gateway, connected to it
+     */
+    ChainConnector newConnector() throws Exception {
+        ChainConnector connector = ChainConnector.NewConnector(accessID, privateKey);
+        connector.connect(getHost(), getPort());
+        return connector;
+    }
+
+    String getHost() {
+        return server.getAddress().getHostString();
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Register handler of requests with path prefix relative to the domain
+     */
+    void route(String method, String prefix, Handler handler) {
+        routes.add(0, new route(method, prefix, handler));
+    }
+
+    void setSessionTimeout(int seconds) {
+        sessionTimeout = seconds;
+    }
+
+    /**
+     * Drop all allocated sessions, as gateway restarted
+     */
+    void expireSessions() {
+        sessions.clear();
+    }
+
+    int getSessionsAllocated() {
+        return allocated.get();
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return reasons of rejected requests
+     */
+    List<String> getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                if (SESSION_PATH.equals(path) && "POST".equals(method)) {
+                    reply(exchange, allocate(exchange, body));
+                    return;
+                }
+                String sessionID = verify(exchange, method, path, body);
+                requests.incrementAndGet();
+                if (SESSION_PATH.equals(path) && "PUT".equals(method)) {
+                    reply(exchange, null);
+                    return;
+                }
+                String domainPrefix = API_BASE + "/domains/";
+                if (!path.startsWith(domainPrefix)) {
+                    throw new Exception("invalid path " + path);
+                }
+                String relative = path.substring(path.indexOf('/', domainPrefix.length()));
+                for (route r : routes) {
+                    if (r.method.equals(method) && relative.startsWith(r.prefix)) {
+                        reply(exchange, r.handler.handle(method, relative, body));
+                        return;
+                    }
+                }
+                throw new Exception(String.format("no route for %s %s in session %s", method, relative, sessionID));
+            } catch (HttpFailure e) {
+                send(exchange, e.status, "");
+            } catch (Exception e) {
+                rejected.add(e.getMessage());
+                replyError(exchange, e.getMessage());
+            }
+        }
+    }
+
+    private SessionData allocate(HttpExchange exchange, String body) throws Exception {
+        sessionRequest request = marshaller.fromJson(body, sessionRequest.class);
+        if (!accessID.equals(request.id)) {
+            throw new Exception("invalid access " + request.id);
+        }
+        initialSignatureFormat payload = new initialSignatureFormat();
+        payload.access = request.id;
+        payload.timestamp = exchange.getRequestHeaders().getFirst(HEADER_TIMESTAMP);
+        payload.nonce = request.nonce;
+        payload.signature_algorithm = exchange.getRequestHeaders().getFirst(HEADER_SIGNATURE_ALGORITHM);
+        checkSignature(marshaller.toJson(payload), exchange.getRequestHeaders().getFirst(HEADER_SIGNATURE));
+
+        String sessionID = RandomStringUtils.random(16, true, true);
+        sessions.put(sessionID, new session(request.nonce));
+        allocated.incrementAndGet();
+        SessionData data = new SessionData();
+        data.setSession(sessionID);
+        data.setTimeout(sessionTimeout);
+        data.setAddress(exchange.getRemoteAddress().getAddress().getHostAddress());
+        return data;
+    }
+
+    private String verify(HttpExchange exchange, String method, String path, String body) throws Exception {
+        String sessionID = exchange.getRequestHeaders().getFirst(HEADER_SESSION);
+        session current = null == sessionID ? null : sessions.get(sessionID);
+        if (null == current) {
+            throw new Exception("invalid session " + sessionID);
+        }
+        signatureFormat payload = new signatureFormat();
+        payload.id = sessionID;
+        payload.method = method;
+        payload.url = path;
+        if ("POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method) || "PATCH".equals(method)) {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+            payload.body = Base64.getEncoder().encodeToString(hash);
+        } else {
+            payload.body = "";
+        }
+        payload.access = accessID;
+        payload.timestamp = exchange.getRequestHeaders().getFirst(HEADER_TIMESTAMP);
+        payload.nonce = current.nonce;
+        payload.signature_algorithm = exchange.getRequestHeaders().getFirst(HEADER_SIGNATURE_ALGORITHM);
+        checkSignature(marshaller.toJson(payload), exchange.getRequestHeaders().getFirst(HEADER_SIGNATURE));
+        return sessionID;
+    }
+
+    private void checkSignature(String payload, String signature) throws Exception {
+        if (null == signature) {
+            throw new Exception("signature required");
+        }
+        EdDSAEngine engine = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        engine.initVerify(publicKey);
+        engine.update(payload.getBytes(StandardCharsets.UTF_8));
+        if (!engine.verify(Base64.getDecoder().decode(signature))) {
+            throw new Exception("invalid signature of " + payload);
+        }
+    }
+
+    private void reply(HttpExchange exchange, Object data) throws IOException {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("error_code", 0);
+        envelope.put("message", "");
+        envelope.put("data", data);
+        send(exchange, 200, marshaller.toJson(envelope));
+    }
+
+    private void replyError(HttpExchange exchange, String message) throws IOException {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("error_code", 1);
+        envelope.put("message", message);
+        send(exchange, "HEAD".equals(exchange.getRequestMethod()) ? 404 : 200, marshaller.toJson(envelope));
+    }
+
+    private static void send(HttpExchange exchange, int status, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set(Constants.HEADER_CONTENT_TYPE, Constants.CONTENT_TYPE_JSON);
+        if ("HEAD".equals(exchange.getRequestMethod()) || 0 == bytes.length) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
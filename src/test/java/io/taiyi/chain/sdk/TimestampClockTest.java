@@ -0,0 +1,82 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimestampClockTest {
+    private static class manualClock extends Clock {
+        private final ZoneId zone;
+        private long millis;
+
+        manualClock(ZoneId zone, long millis) {
+            this.zone = zone;
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new manualClock(zone, millis);
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    private static String expected(ZoneId zone, long millis) {
+        SimpleDateFormat RFC3339 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+        RFC3339.setTimeZone(TimeZone.getTimeZone(zone));
+        return RFC3339.format(new Date(millis));
+    }
+
+    @Test
+    void matchSimpleDateFormat() {
+        String[] zones = {"UTC", "Asia/Shanghai", "Asia/Kolkata", "America/St_Johns", "America/New_York",
+                "Pacific/Chatham", "Asia/Kathmandu"};
+        long[] instants = {
+                0L,
+                1682388000000L,
+                1682388000999L,
+                1678604399999L,
+                1678604400000L,
+                1699163999500L,
+                -1000L,
+                -1L,
+                4102444799999L,
+        };
+        for (String zoneName : zones) {
+            ZoneId zone = ZoneId.of(zoneName);
+            for (long millis : instants) {
+                TimestampClock clock = new TimestampClock(new manualClock(zone, millis));
+                assertEquals(expected(zone, millis), clock.now(), zoneName + " at " + millis);
+            }
+        }
+    }
+
+    @Test
+    void advanceAcrossSeconds() {
+        ZoneId zone = ZoneId.of("America/New_York");
+        //two seconds before daylight saving time begins in 2023
+        long begin = 1678604398000L;
+        manualClock source = new manualClock(zone, begin);
+        TimestampClock clock = new TimestampClock(source);
+        for (long millis = begin; millis < begin + 5000; millis += 7) {
+            source.millis = millis;
+            assertEquals(expected(zone, millis), clock.now());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.taiyi.chain.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TinyLfuCacheTest {
+    private static TinyLfuCache<String, String> newCache(long maxWeight, CacheMetrics metrics) {
+        return new TinyLfuCache<>(maxWeight, 1024, (key, value) -> value.length(), metrics);
+    }
+
+    @Test
+    void boundedByWeight() {
+        CacheMetrics metrics = new CacheMetrics();
+        TinyLfuCache<String, String> cache = newCache(1000, metrics);
+        for (int i = 0; i < 500; i++) {
+            cache.put("key-" + i, "0123456789");
+            assertTrue(cache.weight() <= 1000, "weight exceeded: " + cache.weight());
+        }
+        assertEquals(100, cache.size());
+        assertEquals(400, metrics.getEvictions());
+
+        //larger than the cache
+        cache.put("huge", new String(new char[1001]));
+        assertNull(cache.get("huge"));
+        cache.put("key-499", "");
+        assertEquals("", cache.get("key-499"));
+        assertEquals("", cache.invalidate("key-499"));
+        assertNull(cache.get("key-499"));
+    }
+
+    @Test
+    void frequentEntriesSurviveScan() {
+        CacheMetrics metrics = new CacheMetrics();
+        TinyLfuCache<String, String> cache = newCache(1000, metrics);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                String key = "hot-" + i;
+                if (null == cache.get(key)) {
+                    cache.put(key, "0123456789");
+                }
+            }
+        }
+        //one-hit wonders
+        for (int i = 0; i < 10000; i++) {
+            String key = "scan-" + i;
+            if (null == cache.get(key)) {
+                cache.put(key, "0123456789");
+            }
+        }
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.contains("hot-" + i)) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 45, "hot entries evicted by scan: " + (50 - retained));
+        assertTrue(metrics.getHitRate() > 0);
+    }
+}
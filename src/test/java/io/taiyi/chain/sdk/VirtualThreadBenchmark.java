@@ -0,0 +1,61 @@
+package io.taiyi.chain.sdk;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compare blocking calls issued from a platform thread pool and from virtual threads against a local stub gateway
+ */
+public class VirtualThreadBenchmark {
+    private static void run(String name, StubGateway gateway, byte[] key, ChainTransport transport,
+                            ExecutorService callers, int calls) throws Exception {
+        ChainConnector connector = new ChainConnectorFactory(transport).NewConnector(StubGateway.ACCESS_ID, key);
+        connector.setTimeout(60);
+        connector.connect(gateway.getHost(), gateway.getPort());
+        //warm up connections and JIT
+        runCalls(connector, callers, calls / 10);
+
+        long begin = System.nanoTime();
+        int failed = runCalls(connector, callers, calls);
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%-40s %8d calls %8.1f ms %10.0f calls/s %6d failed, %d live threads%n", name, calls,
+                elapsed / 1e6, calls * 1e9 / elapsed, failed, Thread.activeCount());
+        callers.shutdown();
+    }
+
+    private static int runCalls(ChainConnector connector, ExecutorService callers, int calls) throws Exception {
+        List<Future<ChainStatus>> results = new ArrayList<>(calls);
+        for (int i = 0; i < calls; i++) {
+            results.add(callers.submit(connector::getStatus));
+        }
+        int failed = 0;
+        for (Future<ChainStatus> result : results) {
+            try {
+                result.get();
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        byte[] key = new byte[32];
+        new Random().nextBytes(key);
+        final int calls = 10_000;
+        try (StubGateway gateway = new StubGateway(StubGateway.ACCESS_ID, key)) {
+            //stub gateway speaks HTTP/1.1 only, skip the upgrade attempt of HTTP/2
+            run("platform threads (pool of 200)", gateway, key,
+                    ChainTransport.newBuilder().setVersion(HttpClient.Version.HTTP_1_1).build(),
+                    Executors.newFixedThreadPool(200), calls);
+            run("virtual threads", gateway, key,
+                    ChainTransport.newBuilder().setVersion(HttpClient.Version.HTTP_1_1).setVirtualThreads(true).build(),
+                    Executors.newVirtualThreadPerTaskExecutor(), calls);
+        }
+    }
+}